@@ -2,8 +2,10 @@ package com.webstyle;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class WebStyleApplication {
     public static void main(String[] args) {
         SpringApplication.run(WebStyleApplication.class, args);
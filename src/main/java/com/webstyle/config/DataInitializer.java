@@ -1,7 +1,9 @@
 package com.webstyle.config;
 
+import com.webstyle.model.EstoqueCentro;
 import com.webstyle.model.User;
 import com.webstyle.model.Product;
+import com.webstyle.repository.EstoqueCentroRepository;
 import com.webstyle.repository.UserRepository;
 import com.webstyle.repository.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,6 +22,9 @@ public class DataInitializer implements CommandLineRunner {
     @Autowired
     private ProductRepository productRepository;
     
+    @Autowired
+    private EstoqueCentroRepository estoqueCentroRepository;
+    
     private BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
 
     @Override
@@ -180,6 +185,13 @@ public class DataInitializer implements CommandLineRunner {
             productRepository.save(produto12);
 
             System.out.println("12 produtos de roupas de exemplo criados no sistema");
+
+            // Estoque distribuído entre os centros de distribuição (app.frete.centros)
+            // Os demais produtos ficam apenas no centro principal
+            estoqueCentroRepository.save(new EstoqueCentro(produto1, "SP", 15));
+            estoqueCentroRepository.save(new EstoqueCentro(produto1, "PE", 10));
+            estoqueCentroRepository.save(new EstoqueCentro(produto2, "SP", 20));
+            estoqueCentroRepository.save(new EstoqueCentro(produto2, "PE", 30));
         }
     }
 }
\ No newline at end of file
@@ -1,26 +1,15 @@
 package com.webstyle.config;
 
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
-import java.nio.file.Paths;
-
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
-    @Value("${app.upload.dir:uploads/products}")
-    private String uploadDir;
-
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        // Configuração para servir arquivos de upload
-        String uploadPath = Paths.get(uploadDir).toAbsolutePath().toString();
-        
-        registry.addResourceHandler("/uploads/**")
-                .addResourceLocations("file:" + uploadPath + "/")
-                .setCachePeriod(3600); // Cache por 1 hora
+        // Imagens de upload são servidas pelo ImageController (ETag e cache imutável)
         
         // Mantém a configuração padrão para arquivos estáticos
         registry.addResourceHandler("/static/**")
@@ -44,6 +44,9 @@ public class CartController {
      */
     @GetMapping
     public String viewCart(Model model, HttpSession session) {
+        // Ajusta o carrinho a mudanças de estoque/status desde que os itens foram adicionados
+        model.addAttribute("avisosCarrinho", cartService.revalidarCarrinho());
+        
         List<CartItem> cartItems = cartService.getCart();
         
         model.addAttribute("cartItems", cartItems);
@@ -51,18 +54,20 @@ public class CartController {
         model.addAttribute("cartItemCount", cartService.getCartItemCount());
         model.addAttribute("isEmpty", cartService.isCartEmpty());
         
-        // Pré-carrega endereço padrão se cliente estiver logado
+        // Endereços de entrega e endereço padrão se cliente estiver logado
+        // (consultados no banco: o cliente da sessão não carrega os endereços)
         Cliente clienteLogado = (Cliente) session.getAttribute("clienteLogado");
         if (clienteLogado != null) {
-            // Recarrega cliente do banco para ter endereços atualizados
-            Cliente cliente = clienteService.buscarPorId(clienteLogado.getId());
-            if (cliente != null) {
-                Endereco enderecoPadrao = clienteService.obterEnderecoPadrao(clienteLogado.getId());
-                if (enderecoPadrao != null) {
-                    model.addAttribute("enderecoPadrao", enderecoPadrao);
-                    model.addAttribute("cepPadrao", enderecoPadrao.getCep());
-                }
-            }
+            List<Endereco> enderecosEntrega = clienteService.listarEnderecosEntrega(clienteLogado.getId());
+            model.addAttribute("enderecosEntrega", enderecosEntrega);
+            
+            enderecosEntrega.stream()
+                    .filter(Endereco::isEnderecoPadrao)
+                    .findFirst()
+                    .ifPresent(enderecoPadrao -> {
+                        model.addAttribute("enderecoPadrao", enderecoPadrao);
+                        model.addAttribute("cepPadrao", enderecoPadrao.getCep());
+                    });
         }
         
         return "cart";
@@ -247,6 +252,14 @@ public class CartController {
                 return ResponseEntity.status(401).body(response);
             }
             
+            // Revalida o carrinho (estoque/status atuais); se algo mudou, o cliente precisa revisar
+            List<String> avisos = cartService.revalidarCarrinho();
+            if (!avisos.isEmpty()) {
+                response.put("success", false);
+                response.put("message", String.join(" ", avisos) + " Revise o carrinho antes de finalizar.");
+                return ResponseEntity.status(409).body(response);
+            }
+            
             // Obtém itens do carrinho
             List<CartItem> cartItems = cartService.getCart();
             if (cartItems.isEmpty()) {
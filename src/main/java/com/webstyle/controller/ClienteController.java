@@ -2,6 +2,7 @@ package com.webstyle.controller;
 
 import com.webstyle.model.Cliente;
 import com.webstyle.model.Endereco;
+import com.webstyle.service.CartService;
 import com.webstyle.service.ClienteService;
 import com.webstyle.service.ShippingService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,6 +29,9 @@ public class ClienteController {
     @Autowired
     private ShippingService shippingService;
     
+    @Autowired
+    private CartService cartService;
+    
     /**
      * Exibe página de login do cliente
      * URL: GET /cliente/login
@@ -44,8 +48,6 @@ public class ClienteController {
     /**
      * Processa login do cliente
      * URL: POST /cliente/login
-     * 
-     * CORREÇÃO: Recarrega o cliente do banco para garantir que os endereços sejam carregados
      */
     @PostMapping("/login")
     public String login(@RequestParam String email,
@@ -58,23 +60,12 @@ public class ClienteController {
         if (clienteOpt.isPresent()) {
             Cliente cliente = clienteOpt.get();
             
-            // CORREÇÃO: Recarrega o cliente do banco para garantir que os endereços sejam carregados
-            Cliente clienteCompleto = clienteService.buscarPorId(cliente.getId());
-            
-            if (clienteCompleto == null) {
-                model.addAttribute("erro", "Erro ao carregar dados do usuário. Tente novamente.");
-                model.addAttribute("email", email);
-                return "cliente-login";
-            }
-            
-            // Salva cliente COMPLETO na sessão
-            session.setAttribute("clienteLogado", clienteCompleto);
+            // Salva o cliente na sessão (sem endereços: as telas que precisam deles os carregam do banco)
+            session.setAttribute("clienteLogado", cliente);
+            cartService.aoEntrar();
             
-            // Debug: Log para verificar endereços
             System.out.println("=== LOGIN REALIZADO ===");
-            System.out.println("Cliente: " + clienteCompleto.getNomeCompleto());
-            System.out.println("Total de endereços: " + clienteCompleto.getEnderecos().size());
-            System.out.println("Endereços de entrega: " + clienteCompleto.getEnderecosEntrega().size());
+            System.out.println("Cliente: " + cliente.getNomeCompleto());
             
             // Redireciona para a home
             return "redirect:/home";
@@ -262,7 +253,7 @@ public class ClienteController {
         }
         
         // CORREÇÃO: Sempre recarrega os dados do banco para garantir que estão atualizados
-        Cliente cliente = clienteService.buscarPorId(clienteLogado.getId());
+        Cliente cliente = clienteService.buscarPorIdComEnderecos(clienteLogado.getId());
         if (cliente == null) {
             session.removeAttribute("clienteLogado");
             return "redirect:/cliente/login";
@@ -485,6 +476,7 @@ public class ClienteController {
     @GetMapping("/logout")
     public String logout(HttpSession session, RedirectAttributes redirectAttributes) {
         session.removeAttribute("clienteLogado");
+        cartService.aoSair();
         redirectAttributes.addFlashAttribute("sucesso", "Você saiu da sua conta com sucesso!");
         return "redirect:/home";
     }
@@ -1,15 +1,28 @@
 package com.webstyle.controller;
 
-import com.webstyle.model.Product;
-import com.webstyle.model.ProductImage;
+import com.webstyle.model.ProductCard;
+import com.webstyle.model.ProdutoSnapshot;
+import com.webstyle.service.FacetasCatalogoIndex;
+import com.webstyle.service.FragmentosHtmlCache;
 import com.webstyle.service.ProductService;
+import com.webstyle.service.SugestoesProdutosIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Controller público para a área de visualização de produtos (Sprint 3)
@@ -21,6 +34,12 @@ public class HomeController {
     @Autowired
     private ProductService productService;
     
+    @Autowired
+    private SugestoesProdutosIndex sugestoesProdutosIndex;
+    
+    @Autowired
+    private FragmentosHtmlCache fragmentosHtmlCache;
+    
     /**
      * Página inicial pública - Exibe cards de produtos ativos
      * Requisitos Sprint 3:
@@ -28,16 +47,145 @@ public class HomeController {
      * - Link "Faça login/Crie seu login"
      * - Cards com: imagem principal, nome, preço, botão "Ver Detalhes"
      * 
+     * Paginada por cursor: ?aposData=...&aposId=... exibe a página seguinte
+     * 
      * URL: /home ou /
      */
     @GetMapping("/home")
-    public String home(Model model) {
-        // Busca apenas produtos ATIVOS para exibir na página pública
-        List<Product> produtosAtivos = productService.listarProdutosAtivos();
-        model.addAttribute("produtos", produtosAtivos);
+    public String home(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime aposData,
+                       @RequestParam(required = false) Long aposId,
+                       Model model) {
+        // Busca apenas uma página de produtos ATIVOS (projeção leve, sem carregar entidades)
+        ProductService.PaginaVitrine pagina = productService.listarVitrine(aposData, aposId);
+        model.addAttribute("facetas", productService.contarFacetasVitrine());
+        model.addAttribute("produtos", pagina.getProdutos());
+        model.addAttribute("cardsHtml", fragmentosHtmlCache.cards(pagina.getProdutos()));
+        model.addAttribute("temMais", pagina.isTemMais());
+        model.addAttribute("proximoAposData", pagina.getProximoAposData());
+        model.addAttribute("proximoAposId", pagina.getProximoAposId());
+        return "home";
+    }
+    
+    /**
+     * Próxima página da vitrine (scroll infinito / botão "Carregar mais"): o HTML dos cards,
+     * vindo do cache de fragmentos, e o cursor da página seguinte
+     * 
+     * URL: GET /home/produtos?aposData=...&aposId=...
+     */
+    @GetMapping("/home/produtos")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> proximaPagina(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime aposData,
+            @RequestParam(required = false) Long aposId) {
+        
+        ProductService.PaginaVitrine pagina = productService.listarVitrine(aposData, aposId);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("html", String.join("", fragmentosHtmlCache.cards(pagina.getProdutos())));
+        response.put("temMais", pagina.isTemMais());
+        response.put("proximoAposData", pagina.getProximoAposData());
+        response.put("proximoAposId", pagina.getProximoAposId());
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Busca e filtros da vitrine: produtos ATIVOS por nome, código ou descrição, em ordem de relevância
+     * (ignora acentos e aceita o começo das palavras: "calc" encontra "Calça"), filtrados por
+     * faixa de preço, avaliação mínima e disponibilidade em estoque
+     * 
+     * URL: /busca?q=...&faixaPreco=...&avaliacaoMin=...&emEstoque=true&pagina=...
+     */
+    @GetMapping("/busca")
+    public String busca(@RequestParam(required = false) String q,
+                        @RequestParam(required = false) List<Integer> faixaPreco,
+                        @RequestParam(required = false) BigDecimal avaliacaoMin,
+                        @RequestParam(defaultValue = "false") boolean emEstoque,
+                        @RequestParam(defaultValue = "0") int pagina,
+                        Model model) {
+        FacetasCatalogoIndex.Filtro filtro = montarFiltro(faixaPreco, avaliacaoMin, emEstoque);
+        if ((q == null || q.isBlank()) && filtro.isVazio()) {
+            return "redirect:/home";
+        }
+        
+        ProductService.ResultadoVitrine resultado = productService.filtrarVitrine(q, filtro, pagina);
+        Page<ProductCard> produtos = resultado.getProdutos();
+        model.addAttribute("produtos", produtos.getContent());
+        model.addAttribute("cardsHtml", fragmentosHtmlCache.cards(produtos.getContent()));
+        model.addAttribute("busca", q != null ? q.trim() : "");
+        model.addAttribute("facetas", resultado.getFacetas());
+        model.addAttribute("filtroEmEstoque", emEstoque);
+        model.addAttribute("totalResultados", produtos.getTotalElements());
+        if (produtos.hasPrevious()) {
+            model.addAttribute("paginaAnteriorUrl", urlDaPagina(produtos.getNumber() - 1));
+        }
+        if (produtos.hasNext()) {
+            model.addAttribute("proximaPaginaUrl", urlDaPagina(produtos.getNumber() + 1));
+        }
         return "home";
     }
     
+    /**
+     * Busca e filtros da vitrine em JSON, com as contagens das facetas
+     * 
+     * URL: GET /api/produtos/filtro?q=...&faixaPreco=...&avaliacaoMin=...&emEstoque=true&pagina=...
+     */
+    @GetMapping("/api/produtos/filtro")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> filtrar(@RequestParam(required = false) String q,
+                                                       @RequestParam(required = false) List<Integer> faixaPreco,
+                                                       @RequestParam(required = false) BigDecimal avaliacaoMin,
+                                                       @RequestParam(defaultValue = "false") boolean emEstoque,
+                                                       @RequestParam(defaultValue = "0") int pagina) {
+        FacetasCatalogoIndex.Filtro filtro = montarFiltro(faixaPreco, avaliacaoMin, emEstoque);
+        ProductService.ResultadoVitrine resultado = productService.filtrarVitrine(q, filtro, pagina);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("produtos", resultado.getProdutos().getContent());
+        response.put("total", resultado.getProdutos().getTotalElements());
+        response.put("pagina", resultado.getProdutos().getNumber());
+        response.put("temMais", resultado.getProdutos().hasNext());
+        Map<String, Object> facetas = new HashMap<>();
+        facetas.put("faixasPreco", resultado.getFacetas().getFaixasPreco());
+        facetas.put("avaliacoes", resultado.getFacetas().getAvaliacoes());
+        facetas.put("emEstoque", resultado.getFacetas().getEmEstoque());
+        response.put("facetas", facetas);
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    private static FacetasCatalogoIndex.Filtro montarFiltro(List<Integer> faixaPreco, BigDecimal avaliacaoMin, boolean emEstoque) {
+        FacetasCatalogoIndex.Filtro filtro = new FacetasCatalogoIndex.Filtro();
+        if (faixaPreco != null) {
+            filtro.setFaixasPreco(faixaPreco);
+        }
+        filtro.setAvaliacaoMinima(avaliacaoMin);
+        filtro.setSomenteEmEstoque(emEstoque);
+        return filtro;
+    }
+    
+    /**
+     * URL da requisição atual (mesma busca e filtros) apontando para outra página
+     */
+    private static String urlDaPagina(int pagina) {
+        return ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("pagina", pagina)
+                .build()
+                .toUriString();
+    }
+    
+    /**
+     * Sugestões para a caixa de busca enquanto o cliente digita (nome ou código de produtos ATIVOS)
+     * Respondidas da árvore de prefixos em memória, sem consultar o banco
+     * 
+     * URL: GET /api/produtos/sugestoes?q=...
+     */
+    @GetMapping("/api/produtos/sugestoes")
+    @ResponseBody
+    public List<SugestoesProdutosIndex.Sugestao> sugestoes(@RequestParam(required = false) String q) {
+        return sugestoesProdutosIndex.sugerir(q);
+    }
+    
     /**
      * Página de detalhes do produto (visão pública)
      * Exibe informações completas do produto para visitantes não autenticados
@@ -46,21 +194,18 @@ public class HomeController {
      */
     @GetMapping("/produto/{id}")
     public String produtoDetalhe(@PathVariable Long id, Model model) {
-        // Busca o produto
-        Product produto = productService.buscarPorId(id);
+        // Busca o produto (cache do catálogo, já com as imagens ordenadas: principal primeiro)
+        ProdutoSnapshot produto = productService.buscarSnapshot(id);
         
         // Verifica se o produto existe e está ativo
-        if (produto == null || produto.getStatus() != Product.Status.ATIVO) {
+        if (produto == null || !produto.isAtivo()) {
             // Redireciona para home se produto não existir ou estiver inativo
             return "redirect:/home";
         }
         
-        // Busca as imagens do produto
-        List<ProductImage> imagens = productService.buscarImagensProduto(id);
-        
-        // Adiciona ao modelo
+        // Adiciona ao modelo (o corpo da página vem pronto do cache de fragmentos)
         model.addAttribute("produto", produto);
-        model.addAttribute("imagens", imagens);
+        model.addAttribute("detalheHtml", fragmentosHtmlCache.detalhe(produto));
         
         return "product-detail";
     }
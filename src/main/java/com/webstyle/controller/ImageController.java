@@ -1,52 +1,167 @@
 package com.webstyle.controller;
 
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.ResourceLoader;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import com.webstyle.service.MetadadosImagemCache;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.context.request.ServletWebRequest;
 
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Controller
 public class ImageController {
 
-    @Value("${app.upload.dir:uploads/products}")
-    private String uploadDir;
+    // Os arquivos têm nome único e nunca mudam: o navegador pode guardá-los indefinidamente
+    private static final CacheControl CACHE_IMUTAVEL = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
 
-    private final ResourceLoader resourceLoader;
+    // Atributos do Tomcat para envio do arquivo pelo próprio conector (sendfile / FileChannel.transferTo)
+    private static final String SENDFILE_SUPORTADO = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_ARQUIVO = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_INICIO = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_FIM = "org.apache.tomcat.sendfile.end";
 
-    public ImageController(ResourceLoader resourceLoader) {
-        this.resourceLoader = resourceLoader;
+    private final MetadadosImagemCache metadadosImagemCache;
+
+    public ImageController(MetadadosImagemCache metadadosImagemCache) {
+        this.metadadosImagemCache = metadadosImagemCache;
     }
 
+    /**
+     * Serve as imagens dos produtos com ETag (hash do conteúdo), Last-Modified e cache imutável
+     * - Requisições condicionais (If-None-Match / If-Modified-Since) recebem 304 sem acessar o disco
+     * - Range de um intervalo (com If-Range) recebe 206; intervalo que começa depois do fim do
+     *   arquivo recebe 416; Range malformado é ignorado (200 com o arquivo inteiro)
+     * - O corpo vai por sendfile no conector do Tomcat, sem passar pelo heap; só quando o
+     *   conector não oferece sendfile (ex.: HTTP/2, useSendfile=false) é copiado pelo OutputStream
+     */
     @GetMapping("/uploads/products/{filename:.+}")
-    public ResponseEntity<Resource> serveFile(@PathVariable String filename) {
+    public void serveFile(@PathVariable String filename,
+                          HttpServletRequest request, HttpServletResponse response) throws IOException {
+        enviar(filename, request, response);
+    }
+
+    /**
+     * Imagens do armazenamento por conteúdo, em subdiretórios pelo início do hash (ab/cd/abcd...png)
+     */
+    @GetMapping("/uploads/products/{nivel1:[0-9a-f]{2}}/{nivel2:[0-9a-f]{2}}/{filename:.+}")
+    public void serveFile(@PathVariable String nivel1, @PathVariable String nivel2, @PathVariable String filename,
+                          HttpServletRequest request, HttpServletResponse response) throws IOException {
+        enviar(nivel1 + "/" + nivel2 + "/" + filename, request, response);
+    }
+
+    private void enviar(String filename, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        MetadadosImagemCache.Metadados metadados;
         try {
-            Path filePath = Paths.get(uploadDir).resolve(filename);
-            Resource resource = resourceLoader.getResource("file:" + filePath.toAbsolutePath().toString());
+            metadados = metadadosImagemCache.obter(filename);
+        } catch (IOException e) {
+            metadados = null;
+        }
+        if (metadados == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_IMUTAVEL.getHeaderValue());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        // Define ETag/Last-Modified e responde 304 quando o navegador já tem o arquivo
+        if (new ServletWebRequest(request, response).checkNotModified(metadados.getEtag(), metadados.getUltimaModificacao())) {
+            return;
+        }
+
+        long tamanho = metadados.getTamanho();
+        long inicio = 0;
+        long fim = tamanho - 1;
 
-            if (!resource.exists() || !resource.isReadable()) {
-                return ResponseEntity.notFound().build();
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && tamanho > 0 && rangeValido(request, metadados)) {
+            // Range malformado: ignorado, responde o arquivo inteiro
+            List<HttpRange> intervalos;
+            try {
+                intervalos = HttpRange.parseRanges(range);
+            } catch (IllegalArgumentException e) {
+                intervalos = List.of();
             }
 
-            // Determinar o tipo de conteúdo
-            String contentType = Files.probeContentType(filePath);
-            if (contentType == null) {
-                contentType = "application/octet-stream";
+            // Vários intervalos: responde o arquivo inteiro (o servidor pode ignorar o Range)
+            if (intervalos.size() == 1) {
+                inicio = intervalos.get(0).getRangeStart(tamanho);
+                fim = intervalos.get(0).getRangeEnd(tamanho);
+                if (inicio >= tamanho) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + tamanho);
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + inicio + "-" + fim + "/" + tamanho);
             }
+        }
 
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .body(resource);
+        long quantidade = fim - inicio + 1;
+        response.setContentType(metadados.getTipo().toString());
+        response.setContentLengthLong(quantidade);
+        if ("HEAD".equals(request.getMethod()) || quantidade <= 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPORTADO))) {
+            // O Tomcat envia o trecho direto do arquivo para o socket depois que o controller retorna
+            request.setAttribute(SENDFILE_ARQUIVO, metadados.getCaminho().toString());
+            request.setAttribute(SENDFILE_INICIO, inicio);
+            request.setAttribute(SENDFILE_FIM, fim + 1);
+            return;
+        }
+
+        copiar(metadados, inicio, quantidade, response);
+    }
+
+    /**
+     * Envio sem sendfile: cópia comum do trecho pelo OutputStream do servlet
+     */
+    private void copiar(MetadadosImagemCache.Metadados metadados, long inicio, long quantidade,
+                        HttpServletResponse response) throws IOException {
+        try (FileChannel arquivo = FileChannel.open(metadados.getCaminho(), StandardOpenOption.READ)) {
+            WritableByteChannel destino = Channels.newChannel(response.getOutputStream());
+            long posicao = inicio;
+            long restante = quantidade;
+            while (restante > 0) {
+                long enviados = arquivo.transferTo(posicao, restante, destino);
+                if (enviados <= 0) {
+                    throw new IOException("Arquivo menor que o esperado: " + metadados.getCaminho());
+                }
+                posicao += enviados;
+                restante -= enviados;
+            }
+        }
+    }
 
-        } catch (Exception e) {
-            return ResponseEntity.notFound().build();
+    /**
+     * Com If-Range, o Range só vale se o arquivo do navegador for o mesmo (ETag ou data iguais)
+     */
+    private boolean rangeValido(HttpServletRequest request, MetadadosImagemCache.Metadados metadados) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // If-Range exige comparação forte: ETag fraco nunca vale
+            return ifRange.equals(metadados.getEtag());
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == metadados.getUltimaModificacao() / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
         }
     }
-}
\ No newline at end of file
+}
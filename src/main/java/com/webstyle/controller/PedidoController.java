@@ -5,13 +5,19 @@ import com.webstyle.model.Pedido;
 import com.webstyle.model.User;
 import com.webstyle.service.PedidoService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import jakarta.servlet.http.HttpSession;
-import java.util.List;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Controller para gerenciar pedidos do cliente
@@ -24,31 +30,73 @@ public class PedidoController {
     private PedidoService pedidoService;
     
     /**
-     * Lista todos os pedidos do cliente logado
-     * URL: GET /pedidos
+     * Lista os pedidos do cliente logado, uma página por vez (mais recentes primeiro)
+     * URL: GET /pedidos?aposData=...&aposId=...
      */
     @GetMapping
-    public String listarPedidos(HttpSession session, Model model) {
+    public String listarPedidos(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime aposData,
+            @RequestParam(required = false) Long aposId,
+            HttpSession session, Model model) {
         Cliente clienteLogado = (Cliente) session.getAttribute("clienteLogado");
         
         if (clienteLogado == null) {
             return "redirect:/cliente/login";
         }
         
-        List<Pedido> pedidos = pedidoService.listarPedidosCliente(clienteLogado.getId());
+        PedidoService.PaginaPedidos pagina = pedidoService.listarHistoricoCliente(clienteLogado.getId(), aposData, aposId);
         
-        model.addAttribute("pedidos", pedidos);
+        model.addAttribute("pedidos", pagina.getPedidos());
+        model.addAttribute("temMais", pagina.isTemMais());
+        model.addAttribute("proximoAposData", pagina.getProximoAposData());
+        model.addAttribute("proximoAposId", pagina.getProximoAposId());
+        model.addAttribute("primeiraPagina", aposId == null);
         model.addAttribute("cliente", clienteLogado);
         
         return "pedido-lista";
     }
     
     /**
-     * Lista todos os pedidos do sistema (somente para estoquista)
-     * URL: GET /pedidos/estoquista
+     * Histórico de pedidos do cliente logado em JSON (resumos, sem itens)
+     * URL: GET /pedidos/historico?aposData=...&aposId=...
+     */
+    @GetMapping("/historico")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> historicoPedidos(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime aposData,
+            @RequestParam(required = false) Long aposId,
+            HttpSession session) {
+        Cliente clienteLogado = (Cliente) session.getAttribute("clienteLogado");
+        
+        if (clienteLogado == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        
+        PedidoService.PaginaPedidos pagina = pedidoService.listarHistoricoCliente(clienteLogado.getId(), aposData, aposId);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("pedidos", pagina.getPedidos());
+        response.put("temMais", pagina.isTemMais());
+        response.put("proximoAposData", pagina.getProximoAposData());
+        response.put("proximoAposId", pagina.getProximoAposId());
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Lista os pedidos do sistema, uma página por vez (somente para estoquista)
+     * Filtros opcionais: status, período (dataInicio/dataFim) e cliente (e-mail ou CPF)
+     * URL: GET /pedidos/estoquista?status=...&dataInicio=...&dataFim=...&cliente=...&aposData=...&aposId=...
      */
     @GetMapping("/estoquista")
-    public String listarPedidosEstoquista(HttpSession session, Model model) {
+    public String listarPedidosEstoquista(
+            @RequestParam(required = false) Pedido.StatusPedido status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataInicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataFim,
+            @RequestParam(required = false) String cliente,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime aposData,
+            @RequestParam(required = false) Long aposId,
+            HttpSession session, Model model) {
         User usuarioLogado = (User) session.getAttribute("usuarioLogado");
         
         if (usuarioLogado == null) {
@@ -60,13 +108,57 @@ public class PedidoController {
             return "redirect:/main";
         }
         
-        List<Pedido> pedidos = pedidoService.listarTodosPedidos();
+        PedidoService.PaginaPedidos pagina = pedidoService.listarPedidosEstoquista(
+                status, dataInicio, dataFim, cliente, aposData, aposId);
         
-        model.addAttribute("pedidos", pedidos);
+        model.addAttribute("pedidos", pagina.getPedidos());
+        model.addAttribute("temMais", pagina.isTemMais());
+        model.addAttribute("proximoAposData", pagina.getProximoAposData());
+        model.addAttribute("proximoAposId", pagina.getProximoAposId());
+        model.addAttribute("primeiraPagina", aposId == null);
+        
+        // Filtros atuais (mantidos no formulário e nos links de paginação)
+        model.addAttribute("filtroStatus", status);
+        model.addAttribute("filtroDataInicio", dataInicio);
+        model.addAttribute("filtroDataFim", dataFim);
+        model.addAttribute("filtroCliente", cliente);
+        model.addAttribute("todosStatus", Pedido.StatusPedido.values());
         
         return "pedidos-estoquista";
     }
     
+    /**
+     * Mesma listagem do estoquista em JSON (resumos, sem itens)
+     * URL: GET /pedidos/estoquista/lista?status=...&dataInicio=...&dataFim=...&cliente=...&aposData=...&aposId=...
+     */
+    @GetMapping("/estoquista/lista")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> listarPedidosEstoquistaJson(
+            @RequestParam(required = false) Pedido.StatusPedido status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataInicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataFim,
+            @RequestParam(required = false) String cliente,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime aposData,
+            @RequestParam(required = false) Long aposId,
+            HttpSession session) {
+        User usuarioLogado = (User) session.getAttribute("usuarioLogado");
+        
+        if (usuarioLogado == null || !"estoquista@gmail.com".equals(usuarioLogado.getEmail())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        
+        PedidoService.PaginaPedidos pagina = pedidoService.listarPedidosEstoquista(
+                status, dataInicio, dataFim, cliente, aposData, aposId);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("pedidos", pagina.getPedidos());
+        response.put("temMais", pagina.isTemMais());
+        response.put("proximoAposData", pagina.getProximoAposData());
+        response.put("proximoAposId", pagina.getProximoAposId());
+        
+        return ResponseEntity.ok(response);
+    }
+    
     /**
      * Exibe formulário para editar status do pedido (estoquista)
      * URL: GET /pedidos/estoquista/editar/{id}
@@ -3,6 +3,7 @@ package com.webstyle.controller;
 import com.webstyle.model.Product;
 import com.webstyle.model.ProductImage;
 import com.webstyle.model.User;
+import com.webstyle.service.FragmentosHtmlCache;
 import com.webstyle.service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -20,6 +21,7 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 @Controller
 @RequestMapping("/produtos")
@@ -27,6 +29,9 @@ public class ProductController {
     
     @Autowired
     private ProductService productService;
+    
+    @Autowired
+    private FragmentosHtmlCache fragmentosHtmlCache;
 
     // Lista produtos com paginação e busca
     @GetMapping
@@ -439,4 +444,26 @@ public class ProductController {
             return ResponseEntity.status(500).body("Erro: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    // Estatísticas do cache do catálogo (taxa de acerto e memória) - APENAS ADMINS
+    @GetMapping("/cache/estatisticas")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> estatisticasCache(HttpSession session) {
+        User usuarioLogado = (User) session.getAttribute("usuarioLogado");
+        if (usuarioLogado == null || usuarioLogado.getTipo() != User.TipoUsuario.BACKOFFICE) {
+            return ResponseEntity.status(403).build();
+        }
+        return ResponseEntity.ok(productService.getEstatisticasCacheCatalogo());
+    }
+
+    // Estatísticas do cache de fragmentos HTML (cards e detalhe) - APENAS ADMINS
+    @GetMapping("/cache/fragmentos/estatisticas")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> estatisticasFragmentos(HttpSession session) {
+        User usuarioLogado = (User) session.getAttribute("usuarioLogado");
+        if (usuarioLogado == null || usuarioLogado.getTipo() != User.TipoUsuario.BACKOFFICE) {
+            return ResponseEntity.status(403).build();
+        }
+        return ResponseEntity.ok(fragmentosHtmlCache.getEstatisticas());
+    }
+}
@@ -51,9 +51,8 @@ public class ShippingController {
                 return ResponseEntity.badRequest().body(response);
             }
             
-            // Busca informações do CEP
-            System.out.println("Consultando ViaCEP...");
-            ShippingService.CepInfo cepInfo = shippingService.consultarCep(cepLimpo);
+            // Busca informações do CEP (base offline, com fallback para ViaCEP)
+            ShippingService.CepInfo cepInfo = shippingService.localizarCep(cepLimpo);
             System.out.println("CEP encontrado: " + cepInfo.getLocalidade() + "/" + cepInfo.getUf());
             
             // Obtém valor do carrinho
@@ -68,7 +67,8 @@ public class ShippingController {
             
             // Calcula opções de frete
             System.out.println("Calculando opções de frete...");
-            List<ShippingService.ShippingOption> opcoes = shippingService.calcularFrete(cepLimpo, valorCarrinho);
+            List<ShippingService.ShippingOption> opcoes =
+                shippingService.calcularFrete(cepLimpo, valorCarrinho, cartService.getCart());
             System.out.println("Opções calculadas: " + opcoes.size());
             
             // Salva CEP e opções na sessão
@@ -84,7 +84,7 @@ public class ShippingController {
             cepData.put("cep", cepInfo.getCep());
             cepData.put("logradouro", cepInfo.getLogradouro() != null ? cepInfo.getLogradouro() : "");
             cepData.put("bairro", cepInfo.getBairro() != null ? cepInfo.getBairro() : "");
-            cepData.put("localidade", cepInfo.getLocalidade());
+            cepData.put("localidade", cepInfo.getLocalidade() != null ? cepInfo.getLocalidade() : "");
             cepData.put("uf", cepInfo.getUf());
             response.put("cepInfo", cepData);
             
@@ -100,6 +100,7 @@ public class ShippingController {
                 opcaoMap.put("prazoMaximo", opcao.getPrazoMaximo());
                 opcaoMap.put("prazoFormatado", opcao.getPrazoFormatado());
                 opcaoMap.put("freteGratis", opcao.isFreteGratis());
+                opcaoMap.put("origem", opcao.getOrigem());
                 opcoesFormatadas.add(opcaoMap);
             }
             response.put("opcoes", opcoesFormatadas);
@@ -211,6 +212,26 @@ public class ShippingController {
         }
     }
     
+    /**
+     * Estatísticas do cache de CEP (para dimensionamento)
+     * URL: GET /frete/cache/estatisticas
+     */
+    @GetMapping("/cache/estatisticas")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> estatisticasCache() {
+        return ResponseEntity.ok(shippingService.getEstatisticasCacheCep());
+    }
+    
+    /**
+     * Métricas da integração com a ViaCEP (latência, falhas, circuit breaker)
+     * URL: GET /frete/viacep/estatisticas
+     */
+    @GetMapping("/viacep/estatisticas")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> estatisticasViaCep() {
+        return ResponseEntity.ok(shippingService.getEstatisticasViaCep());
+    }
+    
     /**
      * Limpa informações de frete da sessão
      * URL: POST /frete/limpar
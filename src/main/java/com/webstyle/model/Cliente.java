@@ -9,6 +9,8 @@ import java.util.List;
 
 @Entity
 @Table(name = "clientes")
+// Plano de carga com os endereços (perfil do cliente); nas demais consultas eles não são carregados
+@NamedEntityGraph(name = "Cliente.enderecos", attributeNodes = @NamedAttributeNode("enderecos"))
 public class Cliente {
     
     @Id
@@ -48,8 +50,8 @@ public class Cliente {
     @Column(nullable = false)
     private Status status;
     
-    // CORREÇÃO PRINCIPAL: Mudei de LAZY para EAGER para garantir que os endereços sejam sempre carregados
-    @OneToMany(mappedBy = "cliente", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    // LAZY: quem precisa dos endereços carrega o cliente com o grafo "Cliente.enderecos" (uma consulta)
+    @OneToMany(mappedBy = "cliente", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<Endereco> enderecos = new ArrayList<>();
     
     public enum Status {
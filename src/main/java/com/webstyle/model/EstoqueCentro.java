@@ -0,0 +1,70 @@
+package com.webstyle.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Estoque de um produto em um centro de distribuição (app.frete.centros)
+ * Produtos sem nenhum registro são considerados disponíveis apenas no centro principal
+ */
+@Entity
+@Table(name = "estoque_centros",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"produto_id", "centro_codigo"}))
+public class EstoqueCentro {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "produto_id", nullable = false)
+    private Product produto;
+
+    @Column(name = "centro_codigo", nullable = false, length = 20)
+    private String centroCodigo;
+
+    @Column(nullable = false)
+    private Integer quantidade;
+
+    // Construtor padrão
+    public EstoqueCentro() {
+    }
+
+    // Construtor com parâmetros
+    public EstoqueCentro(Product produto, String centroCodigo, Integer quantidade) {
+        this.produto = produto;
+        this.centroCodigo = centroCodigo;
+        this.quantidade = quantidade;
+    }
+
+    // Getters e Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Product getProduto() {
+        return produto;
+    }
+
+    public void setProduto(Product produto) {
+        this.produto = produto;
+    }
+
+    public String getCentroCodigo() {
+        return centroCodigo;
+    }
+
+    public void setCentroCodigo(String centroCodigo) {
+        this.centroCodigo = centroCodigo;
+    }
+
+    public Integer getQuantidade() {
+        return quantidade;
+    }
+
+    public void setQuantidade(Integer quantidade) {
+        this.quantidade = quantidade;
+    }
+}
@@ -0,0 +1,60 @@
+package com.webstyle.model;
+
+/**
+ * Cópia imutável dos dados de exibição de uma imagem de produto (cache do catálogo)
+ * Enquanto as versões redimensionadas não forem geradas, os caminhos delas apontam para o original
+ */
+public class ImagemSnapshot {
+    private final Long produtoId;
+    private final Long id;
+    private final String nomeOriginal;
+    private final String caminhoArquivo;
+    private final String caminhoMiniatura;
+    private final String caminhoZoom;
+    private final boolean imagemPrincipal;
+
+    public ImagemSnapshot(Long produtoId, Long id, String nomeOriginal, String caminhoArquivo,
+                          String caminhoMiniatura, String caminhoZoom, boolean imagemPrincipal) {
+        this.produtoId = produtoId;
+        this.id = id;
+        this.nomeOriginal = nomeOriginal;
+        this.caminhoArquivo = caminhoArquivo;
+        this.caminhoMiniatura = caminhoMiniatura != null ? caminhoMiniatura : caminhoArquivo;
+        this.caminhoZoom = caminhoZoom != null ? caminhoZoom : caminhoArquivo;
+        this.imagemPrincipal = imagemPrincipal;
+    }
+
+    public Long getProdutoId() {
+        return produtoId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getNomeOriginal() {
+        return nomeOriginal;
+    }
+
+    public String getCaminhoArquivo() {
+        return caminhoArquivo;
+    }
+
+    /**
+     * Miniatura da galeria da página de detalhes
+     */
+    public String getCaminhoMiniatura() {
+        return caminhoMiniatura;
+    }
+
+    /**
+     * Imagem grande da página de detalhes
+     */
+    public String getCaminhoZoom() {
+        return caminhoZoom;
+    }
+
+    public boolean isImagemPrincipal() {
+        return imagemPrincipal;
+    }
+}
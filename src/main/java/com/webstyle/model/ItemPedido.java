@@ -41,16 +41,20 @@ public class ItemPedido {
     public ItemPedido() {
     }
     
-    public ItemPedido(Product produto, Integer quantidade) {
+    /**
+     * @param dados dados do produto no momento da compra (cache do catálogo)
+     * @param produto referência ao produto (apenas a chave estrangeira)
+     */
+    public ItemPedido(ProdutoSnapshot dados, Product produto, Integer quantidade) {
         this.produto = produto;
-        this.codigoProduto = produto.getCodigo();
-        this.nomeProduto = produto.getNome();
-        this.precoUnitario = produto.getPreco();
+        this.codigoProduto = dados.getCodigo();
+        this.nomeProduto = dados.getNome();
+        this.precoUnitario = dados.getPreco();
         this.quantidade = quantidade;
-        this.subtotal = produto.getPreco().multiply(new BigDecimal(quantidade));
+        this.subtotal = dados.getPreco().multiply(new BigDecimal(quantidade));
         
-        if (produto.getImagemPrincipal() != null) {
-            this.imagemProduto = produto.getImagemPrincipal().getCaminhoArquivo();
+        if (dados.getImagemPrincipal() != null) {
+            this.imagemProduto = dados.getImagemPrincipal().getCaminhoArquivo();
         }
     }
     
@@ -8,6 +8,11 @@ import java.util.List;
 
 @Entity
 @Table(name = "pedidos")
+// Plano de carga da página de detalhes: itens e cliente em uma única consulta
+@NamedEntityGraph(name = "Pedido.detalhes", attributeNodes = {
+    @NamedAttributeNode("itens"),
+    @NamedAttributeNode("cliente")
+})
 public class Pedido {
     
     @Id
@@ -76,7 +81,7 @@ public class Pedido {
     @Column(nullable = false)
     private String prazoEntrega;
     
-    @OneToMany(mappedBy = "pedido", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "pedido", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<ItemPedido> itens = new ArrayList<>();
     
     public enum StatusPedido {
@@ -0,0 +1,59 @@
+package com.webstyle.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Projeção somente leitura de um pedido para a listagem do estoquista
+ * Carregada em uma única consulta (pedido + nome/e-mail do cliente),
+ * sem instanciar a entidade Pedido nem os itens
+ */
+public class PedidoResumo {
+    private final Long id;
+    private final String numeroPedido;
+    private final LocalDateTime dataPedido;
+    private final BigDecimal valorTotal;
+    private final Pedido.StatusPedido status;
+    private final String clienteNome;
+    private final String clienteEmail;
+
+    public PedidoResumo(Long id, String numeroPedido, LocalDateTime dataPedido, BigDecimal valorTotal,
+                        Pedido.StatusPedido status, String clienteNome, String clienteEmail) {
+        this.id = id;
+        this.numeroPedido = numeroPedido;
+        this.dataPedido = dataPedido;
+        this.valorTotal = valorTotal;
+        this.status = status;
+        this.clienteNome = clienteNome;
+        this.clienteEmail = clienteEmail;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getNumeroPedido() {
+        return numeroPedido;
+    }
+
+    public LocalDateTime getDataPedido() {
+        return dataPedido;
+    }
+
+    public BigDecimal getValorTotal() {
+        return valorTotal;
+    }
+
+    public Pedido.StatusPedido getStatus() {
+        return status;
+    }
+
+    public String getClienteNome() {
+        return clienteNome;
+    }
+
+    public String getClienteEmail() {
+        return clienteEmail;
+    }
+}
@@ -0,0 +1,86 @@
+package com.webstyle.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Projeção somente leitura de um produto para os cards da vitrine pública
+ * Carregada em uma única consulta (produto + caminho da imagem principal),
+ * sem instanciar a entidade Product nem a coleção de imagens
+ */
+public class ProductCard {
+    private final Long id;
+    private final String codigo;
+    private final String nome;
+    private final BigDecimal preco;
+    private final BigDecimal avaliacao;
+    private final LocalDateTime dataCriacao;
+    private final String imagemPrincipal; // Caminho da imagem
+
+    public ProductCard(Long id, String codigo, String nome, BigDecimal preco, BigDecimal avaliacao,
+                       LocalDateTime dataCriacao, String imagemPrincipal) {
+        this.id = id;
+        this.codigo = codigo;
+        this.nome = nome;
+        this.preco = preco;
+        this.avaliacao = avaliacao;
+        this.dataCriacao = dataCriacao;
+        this.imagemPrincipal = imagemPrincipal;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getCodigo() {
+        return codigo;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public BigDecimal getPreco() {
+        return preco;
+    }
+
+    public BigDecimal getAvaliacao() {
+        return avaliacao;
+    }
+
+    public LocalDateTime getDataCriacao() {
+        return dataCriacao;
+    }
+
+    public String getImagemPrincipal() {
+        return imagemPrincipal;
+    }
+
+    /**
+     * Cards iguais geram o mesmo HTML (versão do fragmento no FragmentosHtmlCache)
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ProductCard)) {
+            return false;
+        }
+        ProductCard outro = (ProductCard) o;
+        return Objects.equals(id, outro.id)
+                && Objects.equals(codigo, outro.codigo)
+                && Objects.equals(nome, outro.nome)
+                && Objects.equals(preco, outro.preco)
+                && Objects.equals(avaliacao, outro.avaliacao)
+                && Objects.equals(dataCriacao, outro.dataCriacao)
+                && Objects.equals(imagemPrincipal, outro.imagemPrincipal);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, codigo, nome, preco, avaliacao, dataCriacao, imagemPrincipal);
+    }
+}
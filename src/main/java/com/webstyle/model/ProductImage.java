@@ -2,6 +2,8 @@ package com.webstyle.model;
 
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity
 @Table(name = "product_images")
@@ -19,6 +21,13 @@ public class ProductImage {
     @Column(nullable = false)
     private String caminhoArquivo;
 
+    // Versões redimensionadas (nulas até serem geradas pelo ImagensDerivadasService)
+    private String caminhoMiniatura;
+
+    private String caminhoCard;
+
+    private String caminhoZoom;
+
     @Column(nullable = false)
     private boolean imagemPrincipal = false;
 
@@ -76,6 +85,44 @@ public class ProductImage {
         this.caminhoArquivo = caminhoArquivo;
     }
 
+    public String getCaminhoMiniatura() {
+        return caminhoMiniatura;
+    }
+
+    public void setCaminhoMiniatura(String caminhoMiniatura) {
+        this.caminhoMiniatura = caminhoMiniatura;
+    }
+
+    public String getCaminhoCard() {
+        return caminhoCard;
+    }
+
+    public void setCaminhoCard(String caminhoCard) {
+        this.caminhoCard = caminhoCard;
+    }
+
+    public String getCaminhoZoom() {
+        return caminhoZoom;
+    }
+
+    public void setCaminhoZoom(String caminhoZoom) {
+        this.caminhoZoom = caminhoZoom;
+    }
+
+    /**
+     * Arquivo original e versões redimensionadas já geradas
+     */
+    public List<String> getCaminhosArquivos() {
+        List<String> caminhos = new ArrayList<>(4);
+        caminhos.add(caminhoArquivo);
+        for (String derivada : new String[] { caminhoMiniatura, caminhoCard, caminhoZoom }) {
+            if (derivada != null && !caminhos.contains(derivada)) {
+                caminhos.add(derivada);
+            }
+        }
+        return caminhos;
+    }
+
     public boolean isImagemPrincipal() {
         return imagemPrincipal;
     }
@@ -0,0 +1,142 @@
+package com.webstyle.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Cópia imutável de um produto com as imagens já ordenadas (cache do catálogo)
+ * A imagem principal vem primeiro, as demais na ordem de cadastro; se nenhuma estiver
+ * marcada como principal, a primeira cadastrada faz esse papel (como em Product.getImagemPrincipal)
+ * Por ser uma projeção, sempre reflete a linha do banco no momento da leitura
+ */
+public class ProdutoSnapshot {
+    private final Long id;
+    private final String codigo;
+    private final String nome;
+    private final String descricao;
+    private final BigDecimal preco;
+    private final Integer quantidadeEstoque;
+    private final BigDecimal avaliacao;
+    private final Product.Status status;
+    private final LocalDateTime dataCriacao;
+    private final List<ImagemSnapshot> imagens;
+
+    /**
+     * Construtor usado pela consulta de projeção (sem imagens)
+     */
+    public ProdutoSnapshot(Long id, String codigo, String nome, String descricao, BigDecimal preco,
+                           Integer quantidadeEstoque, BigDecimal avaliacao, Product.Status status,
+                           LocalDateTime dataCriacao) {
+        this(id, codigo, nome, descricao, preco, quantidadeEstoque, avaliacao, status, dataCriacao,
+                Collections.emptyList());
+    }
+
+    private ProdutoSnapshot(Long id, String codigo, String nome, String descricao, BigDecimal preco,
+                            Integer quantidadeEstoque, BigDecimal avaliacao, Product.Status status,
+                            LocalDateTime dataCriacao, List<ImagemSnapshot> imagens) {
+        this.id = id;
+        this.codigo = codigo;
+        this.nome = nome;
+        this.descricao = descricao;
+        this.preco = preco;
+        this.quantidadeEstoque = quantidadeEstoque;
+        this.avaliacao = avaliacao;
+        this.status = status;
+        this.dataCriacao = dataCriacao;
+        this.imagens = imagens;
+    }
+
+    /**
+     * Mesmo produto com as imagens informadas (em ordem de cadastro), principal primeiro
+     */
+    public ProdutoSnapshot comImagens(List<ImagemSnapshot> imagensEmOrdem) {
+        ImagemSnapshot principal = null;
+        for (ImagemSnapshot imagem : imagensEmOrdem) {
+            if (imagem.isImagemPrincipal()) {
+                principal = imagem;
+                break;
+            }
+        }
+
+        List<ImagemSnapshot> ordenadas = new ArrayList<>(imagensEmOrdem.size());
+        if (principal != null) {
+            ordenadas.add(principal);
+        }
+        for (ImagemSnapshot imagem : imagensEmOrdem) {
+            if (imagem != principal) {
+                ordenadas.add(imagem);
+            }
+        }
+        return new ProdutoSnapshot(id, codigo, nome, descricao, preco, quantidadeEstoque, avaliacao, status,
+                dataCriacao, List.copyOf(ordenadas));
+    }
+
+    /**
+     * Estimativa do espaço ocupado em memória (bytes), para as métricas do cache
+     */
+    public long tamanhoEstimado() {
+        long bytes = 160 + tamanho(codigo) + tamanho(nome) + tamanho(descricao);
+        for (ImagemSnapshot imagem : imagens) {
+            bytes += 64 + tamanho(imagem.getNomeOriginal()) + tamanho(imagem.getCaminhoArquivo())
+                    + tamanho(imagem.getCaminhoMiniatura()) + tamanho(imagem.getCaminhoZoom());
+        }
+        return bytes;
+    }
+
+    private static long tamanho(String texto) {
+        // Cabeçalho da String + array de bytes (LATIN1 ou UTF16)
+        return texto == null ? 0 : 40 + texto.length() * 2L;
+    }
+
+    public boolean isAtivo() {
+        return status == Product.Status.ATIVO;
+    }
+
+    public ImagemSnapshot getImagemPrincipal() {
+        return imagens.isEmpty() ? null : imagens.get(0);
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getCodigo() {
+        return codigo;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public String getDescricao() {
+        return descricao;
+    }
+
+    public BigDecimal getPreco() {
+        return preco;
+    }
+
+    public Integer getQuantidadeEstoque() {
+        return quantidadeEstoque;
+    }
+
+    public BigDecimal getAvaliacao() {
+        return avaliacao;
+    }
+
+    public Product.Status getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getDataCriacao() {
+        return dataCriacao;
+    }
+
+    public List<ImagemSnapshot> getImagens() {
+        return imagens;
+    }
+}
@@ -1,6 +1,7 @@
 package com.webstyle.repository;
 
 import com.webstyle.model.Cliente;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -13,6 +14,12 @@ public interface ClienteRepository extends JpaRepository<Cliente, Long> {
     
     Optional<Cliente> findByCpf(String cpf);
     
+    /**
+     * Cliente com todos os endereços, em uma única consulta
+     */
+    @EntityGraph("Cliente.enderecos")
+    Optional<Cliente> findComEnderecosById(Long id);
+    
     boolean existsByEmail(String email);
     
     boolean existsByCpf(String cpf);
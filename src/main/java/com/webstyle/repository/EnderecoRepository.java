@@ -2,14 +2,33 @@ package com.webstyle.repository;
 
 import com.webstyle.model.Endereco;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface EnderecoRepository extends JpaRepository<Endereco, Long> {
     
-    List<Endereco> findByClienteId(Long clienteId);
+    // Consultas escritas em JPQL para filtrar pela coluna cliente_id (índice da chave fk_enderecos_cliente);
+    // derivadas do nome do método, juntariam clientes e filtrariam por clientes.id
+    @Query("SELECT e FROM Endereco e WHERE e.cliente.id = :clienteId")
+    List<Endereco> findByClienteId(@Param("clienteId") Long clienteId);
     
-    List<Endereco> findByClienteIdAndFaturamento(Long clienteId, boolean faturamento);
+    @Query("SELECT e FROM Endereco e WHERE e.cliente.id = :clienteId AND e.faturamento = :faturamento")
+    List<Endereco> findByClienteIdAndFaturamento(@Param("clienteId") Long clienteId, @Param("faturamento") boolean faturamento);
+    
+    /**
+     * Endereços de entrega ativos do cliente (checkout), sem carregar o cliente
+     */
+    @Query("SELECT e FROM Endereco e WHERE e.cliente.id = :clienteId AND e.faturamento = false AND e.ativo = true ORDER BY e.id")
+    List<Endereco> findByClienteIdAndFaturamentoFalseAndAtivoTrueOrderById(@Param("clienteId") Long clienteId);
+    
+    /**
+     * Endereço do cliente (vazio se não existir ou pertencer a outro cliente)
+     */
+    @Query("SELECT e FROM Endereco e WHERE e.id = :id AND e.cliente.id = :clienteId")
+    Optional<Endereco> findByIdAndClienteId(@Param("id") Long id, @Param("clienteId") Long clienteId);
 }
\ No newline at end of file
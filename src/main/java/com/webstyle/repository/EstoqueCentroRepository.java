@@ -0,0 +1,21 @@
+package com.webstyle.repository;
+
+import com.webstyle.model.EstoqueCentro;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EstoqueCentroRepository extends JpaRepository<EstoqueCentro, Long> {
+    
+    /**
+     * Estoque por centro dos produtos informados, em uma única consulta
+     * Cada linha: { produtoId, centroCodigo, quantidade }
+     */
+    @Query("SELECT e.produto.id, e.centroCodigo, e.quantidade FROM EstoqueCentro e WHERE e.produto.id IN :produtoIds")
+    List<Object[]> findQuantidadesPorCentro(@Param("produtoIds") Collection<Long> produtoIds);
+}
@@ -2,6 +2,8 @@ package com.webstyle.repository;
 
 import com.webstyle.model.ItemPedido;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -9,5 +11,7 @@ import java.util.List;
 @Repository
 public interface ItemPedidoRepository extends JpaRepository<ItemPedido, Long> {
     
-    List<ItemPedido> findByPedidoId(Long pedidoId);
+    // JPQL: filtra pela coluna pedido_id (idx_itens_pedido_pedido) sem juntar pedidos
+    @Query("SELECT i FROM ItemPedido i WHERE i.pedido.id = :pedidoId")
+    List<ItemPedido> findByPedidoId(@Param("pedidoId") Long pedidoId);
 }
\ No newline at end of file
@@ -1,20 +1,21 @@
 package com.webstyle.repository;
 
 import com.webstyle.model.Pedido;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface PedidoRepository extends JpaRepository<Pedido, Long> {
+public interface PedidoRepository extends JpaRepository<Pedido, Long>, PedidoRepositoryCustom {
     
     Optional<Pedido> findByNumeroPedido(String numeroPedido);
     
-    List<Pedido> findByClienteIdOrderByDataPedidoDesc(Long clienteId);
-    
-    @Query("SELECT MAX(p.id) FROM Pedido p")
-    Long findMaxId();
+    /**
+     * Pedido com itens e cliente, em uma única consulta (página de detalhes)
+     */
+    @EntityGraph("Pedido.detalhes")
+    Optional<Pedido> findComItensById(Long id);
 }
\ No newline at end of file
@@ -0,0 +1,45 @@
+package com.webstyle.repository;
+
+import com.webstyle.model.Pedido;
+import com.webstyle.model.PedidoResumo;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Consultas de pedidos montadas dinamicamente (filtros opcionais)
+ */
+public interface PedidoRepositoryCustom {
+    
+    /**
+     * Resumos de pedidos que atendem ao filtro, dos mais recentes para os mais antigos
+     * Continua a partir do cursor (aposData + aposId) quando informado, sem OFFSET
+     */
+    List<PedidoResumo> buscarResumos(FiltroPedidos filtro, LocalDateTime aposData, Long aposId, int limite);
+    
+    /**
+     * Filtros da listagem de pedidos (campos nulos são ignorados)
+     */
+    class FiltroPedidos {
+        private Pedido.StatusPedido status;
+        private LocalDateTime dataInicio; // inclusivo
+        private LocalDateTime dataFim;    // exclusivo
+        private Long clienteId;
+        
+        public Pedido.StatusPedido getStatus() { return status; }
+        
+        public void setStatus(Pedido.StatusPedido status) { this.status = status; }
+        
+        public LocalDateTime getDataInicio() { return dataInicio; }
+        
+        public void setDataInicio(LocalDateTime dataInicio) { this.dataInicio = dataInicio; }
+        
+        public LocalDateTime getDataFim() { return dataFim; }
+        
+        public void setDataFim(LocalDateTime dataFim) { this.dataFim = dataFim; }
+        
+        public Long getClienteId() { return clienteId; }
+        
+        public void setClienteId(Long clienteId) { this.clienteId = clienteId; }
+    }
+}
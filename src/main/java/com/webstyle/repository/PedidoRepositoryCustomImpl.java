@@ -0,0 +1,77 @@
+package com.webstyle.repository;
+
+import com.webstyle.model.Cliente;
+import com.webstyle.model.Pedido;
+import com.webstyle.model.PedidoResumo;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementação das consultas dinâmicas de PedidoRepository (Criteria API)
+ * Só entram na consulta os filtros informados, para que o banco use o índice adequado
+ */
+public class PedidoRepositoryCustomImpl implements PedidoRepositoryCustom {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    public List<PedidoResumo> buscarResumos(FiltroPedidos filtro, LocalDateTime aposData, Long aposId, int limite) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PedidoResumo> query = cb.createQuery(PedidoResumo.class);
+        Root<Pedido> pedido = query.from(Pedido.class);
+        Join<Pedido, Cliente> cliente = pedido.join("cliente");
+        
+        query.select(cb.construct(PedidoResumo.class,
+                pedido.get("id"),
+                pedido.get("numeroPedido"),
+                pedido.get("dataPedido"),
+                pedido.get("valorTotal"),
+                pedido.get("status"),
+                cliente.get("nomeCompleto"),
+                cliente.get("email")));
+        
+        List<Predicate> condicoes = new ArrayList<>();
+        if (filtro.getStatus() != null) {
+            condicoes.add(cb.equal(pedido.get("status"), filtro.getStatus()));
+        }
+        if (filtro.getDataInicio() != null) {
+            condicoes.add(cb.greaterThanOrEqualTo(pedido.get("dataPedido"), filtro.getDataInicio()));
+        }
+        if (filtro.getDataFim() != null) {
+            condicoes.add(cb.lessThan(pedido.get("dataPedido"), filtro.getDataFim()));
+        }
+        if (filtro.getClienteId() != null) {
+            condicoes.add(cb.equal(pedido.get("cliente").get("id"), filtro.getClienteId()));
+        }
+        
+        // Cursor: pedidos anteriores ao último exibido (dataPedido + id)
+        if (aposData != null && aposId != null) {
+            condicoes.add(cb.or(
+                    cb.lessThan(pedido.get("dataPedido"), aposData),
+                    cb.and(cb.equal(pedido.get("dataPedido"), aposData), cb.lessThan(pedido.get("id"), aposId))));
+        }
+        
+        query.where(condicoes.toArray(new Predicate[0]));
+        // Filtro só por status: a coluna (valor fixo) abre o ORDER BY sem mudar o resultado, e o banco
+        // lê a página já ordenada de idx_pedidos_status_data (status, data_pedido DESC, id DESC)
+        if (filtro.getStatus() != null && filtro.getClienteId() == null) {
+            query.orderBy(cb.asc(pedido.get("status")), cb.desc(pedido.get("dataPedido")), cb.desc(pedido.get("id")));
+        } else {
+            query.orderBy(cb.desc(pedido.get("dataPedido")), cb.desc(pedido.get("id")));
+        }
+        
+        return entityManager.createQuery(query)
+                .setMaxResults(limite)
+                .getResultList();
+    }
+}
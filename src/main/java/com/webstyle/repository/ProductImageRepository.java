@@ -1,28 +1,51 @@
 package com.webstyle.repository;
 
+import com.webstyle.model.ImagemSnapshot;
 import com.webstyle.model.ProductImage;
 import com.webstyle.model.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ProductImageRepository extends JpaRepository<ProductImage, Long> {
     
-    List<ProductImage> findByProdutoId(Long produtoId);
+    // Filtros por produto em JPQL (pi.produto.id vira a coluna produto_id): a consulta derivada
+    // do nome do método faz LEFT JOIN com products e filtra por products.id, sem usar o índice
+    // de product_images (IndicesConsultasTest)
+    @Query("SELECT pi FROM ProductImage pi WHERE pi.produto.id = :produtoId")
+    List<ProductImage> findByProdutoId(@Param("produtoId") Long produtoId);
     
     List<ProductImage> findByProdutoOrderByImagemPrincipalDescDataUploadAsc(Product produto);
     
-    Optional<ProductImage> findByProdutoIdAndImagemPrincipalTrue(Long produtoId);
+    @Query("SELECT pi FROM ProductImage pi WHERE pi.produto.id = :produtoId AND pi.imagemPrincipal = true")
+    Optional<ProductImage> findByProdutoIdAndImagemPrincipalTrue(@Param("produtoId") Long produtoId);
     
     @Query("SELECT pi FROM ProductImage pi WHERE pi.produto.id = :produtoId AND pi.imagemPrincipal = true")
     Optional<ProductImage> findImagemPrincipalByProdutoId(@Param("produtoId") Long produtoId);
     
-    void deleteByProdutoId(Long produtoId);
+    /**
+     * Um único DELETE (não passa pelo contexto de persistência)
+     */
+    @Modifying
+    @Query("DELETE FROM ProductImage pi WHERE pi.produto.id = :produtoId")
+    void deleteByProdutoId(@Param("produtoId") Long produtoId);
+    
+    @Query("SELECT COUNT(pi) FROM ProductImage pi WHERE pi.produto.id = :produtoId")
+    long countByProdutoId(@Param("produtoId") Long produtoId);
     
-    long countByProdutoId(Long produtoId);
+    /**
+     * Imagens dos produtos informados em ordem de cadastro (cache do catálogo)
+     * Projeção: não passa pelo contexto de persistência, sempre lê o estado atual do banco
+     */
+    @Query("SELECT new com.webstyle.model.ImagemSnapshot(pi.produto.id, pi.id, pi.nomeOriginal, pi.caminhoArquivo, " +
+           "pi.caminhoMiniatura, pi.caminhoZoom, pi.imagemPrincipal) " +
+           "FROM ProductImage pi WHERE pi.produto.id IN :produtoIds ORDER BY pi.id")
+    List<ImagemSnapshot> findSnapshotsByProdutoIds(@Param("produtoIds") Collection<Long> produtoIds);
 }
\ No newline at end of file
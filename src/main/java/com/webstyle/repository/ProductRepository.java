@@ -1,6 +1,8 @@
 package com.webstyle.repository;
 
 import com.webstyle.model.Product;
+import com.webstyle.model.ProductCard;
+import com.webstyle.model.ProdutoSnapshot;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -8,6 +10,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,22 +20,67 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     
     Optional<Product> findByCodigo(String codigo);
     
-    @Query("SELECT p FROM Product p WHERE " +
-           "LOWER(p.nome) LIKE LOWER(CONCAT('%', :busca, '%')) OR " +
-           "LOWER(p.codigo) LIKE LOWER(CONCAT('%', :busca, '%'))")
-    Page<Product> findByNomeContainingIgnoreCaseOrCodigoContainingIgnoreCase(
-            @Param("busca") String busca, Pageable pageable);
-    
     @Query("SELECT p FROM Product p ORDER BY p.dataCriacao DESC")
     Page<Product> findAllOrderByDataCriacaoDesc(Pageable pageable);
     
-    // ===== NOVO MÉTODO - Sprint 3 =====
+    
+    // ===== VITRINE PAGINADA (keyset) =====
+    /**
+     * Projeção dos cards da vitrine: dados do produto + caminho da imagem principal
+     * (ou da primeira imagem cadastrada, como em Product.getImagemPrincipal)
+     * Usa a versão redimensionada para card quando já foi gerada
+     */
+    String SELECT_CARD = "SELECT new com.webstyle.model.ProductCard(p.id, p.codigo, p.nome, p.preco, p.avaliacao, p.dataCriacao, " +
+           "COALESCE(" +
+           "(SELECT MAX(COALESCE(ip.caminhoCard, ip.caminhoArquivo)) FROM ProductImage ip WHERE ip.produto = p AND ip.imagemPrincipal = true), " +
+           "(SELECT MAX(COALESCE(i1.caminhoCard, i1.caminhoArquivo)) FROM ProductImage i1 WHERE i1.id = " +
+           "(SELECT MIN(i2.id) FROM ProductImage i2 WHERE i2.produto = p)))) " +
+           "FROM Product p ";
+    
+    /**
+     * Primeira página da vitrine, ordenada por data de criação (mais recentes primeiro)
+     * O tamanho da página vem do Pageable (apenas o limite é usado)
+     * O status (fixo no filtro) abre o ORDER BY para a página sair já ordenada de idx_products_status_data
+     */
+    @Query(SELECT_CARD +
+           "WHERE p.status = :status " +
+           "ORDER BY p.status, p.dataCriacao DESC, p.id DESC")
+    List<ProductCard> findCardsByStatus(@Param("status") Product.Status status, Pageable pageable);
+    
+    /**
+     * Páginas seguintes da vitrine: continua a partir do último card exibido
+     * (cursor = dataCriacao + id), sem OFFSET
+     */
+    @Query(SELECT_CARD +
+           "WHERE p.status = :status " +
+           "AND (p.dataCriacao < :dataCriacao OR (p.dataCriacao = :dataCriacao AND p.id < :id)) " +
+           "ORDER BY p.status, p.dataCriacao DESC, p.id DESC")
+    List<ProductCard> findCardsByStatusApos(@Param("status") Product.Status status,
+                                            @Param("dataCriacao") LocalDateTime dataCriacao,
+                                            @Param("id") Long id,
+                                            Pageable pageable);
+    
+    /**
+     * Cards dos produtos informados (carrinho), em uma única consulta
+     */
+    @Query(SELECT_CARD + "WHERE p.id IN :ids")
+    List<ProductCard> findCardsByIds(@Param("ids") Collection<Long> ids);
+    
+    // ===== CACHE DO CATÁLOGO =====
+    /**
+     * Projeção dos dados do produto para o cache do catálogo (sem imagens)
+     * Por não devolver entidades, sempre lê o estado atual do banco, mesmo que o contexto
+     * de persistência da requisição tenha uma cópia desatualizada do produto
+     */
+    String SELECT_SNAPSHOT = "SELECT new com.webstyle.model.ProdutoSnapshot(p.id, p.codigo, p.nome, p.descricao, " +
+           "p.preco, p.quantidadeEstoque, p.avaliacao, p.status, p.dataCriacao) FROM Product p ";
+    
+    @Query(SELECT_SNAPSHOT + "WHERE p.id IN :ids")
+    List<ProdutoSnapshot> findSnapshotsByIds(@Param("ids") Collection<Long> ids);
+    
     /**
-     * Busca produtos por status, ordenados pela data de criação (mais recentes primeiro)
-     * Usado para listar apenas produtos ATIVOS na página pública
-     * 
-     * @param status Status do produto (ATIVO ou INATIVO)
-     * @return Lista de produtos com o status especificado
+     * Todos os produtos em ordem de cadastro (carga dos índices do catálogo)
      */
-    List<Product> findByStatusOrderByDataCriacaoDesc(Product.Status status);
-}
\ No newline at end of file
+    @Query(SELECT_SNAPSHOT + "ORDER BY p.dataCriacao, p.id")
+    List<ProdutoSnapshot> findAllSnapshots();
+}
@@ -0,0 +1,200 @@
+package com.webstyle.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Base local de faixas de CEP → (UF, município IBGE, latitude/longitude)
+ * Carregada na inicialização a partir de um arquivo de dados (app.cep.base-offline)
+ * e mantida em arrays primitivos ordenados: a consulta é uma busca binária, sem rede
+ *
+ * As faixas do arquivo podem se sobrepor (estado + município); na carga elas são
+ * achatadas em segmentos disjuntos, sempre vencendo a faixa mais estreita
+ */
+@Component
+public class BaseCepOffline {
+
+    private final ResourceLoader resourceLoader;
+    private final String localArquivo;
+
+    // Segmentos disjuntos, ordenados por CEP inicial
+    private int[] inicios = new int[0];
+    private int[] fins = new int[0];
+    private int[] registroDoSegmento = new int[0];
+
+    // Registros distintos (vários segmentos podem apontar para o mesmo município)
+    private String[] ufs = new String[0];
+    private String[] codigosIbge = new String[0];
+    private String[] cidades = new String[0];
+    private double[] latitudes = new double[0];
+    private double[] longitudes = new double[0];
+
+    public BaseCepOffline(ResourceLoader resourceLoader,
+                          @Value("${app.cep.base-offline:classpath:data/cep-faixas.csv}") String localArquivo) {
+        this.resourceLoader = resourceLoader;
+        this.localArquivo = localArquivo;
+    }
+
+    @PostConstruct
+    public void carregar() throws IOException {
+        Resource arquivo = resourceLoader.getResource(localArquivo);
+        if (!arquivo.exists()) {
+            System.err.println("Base offline de CEP não encontrada em " + localArquivo + " - usando apenas ViaCEP");
+            return;
+        }
+
+        List<int[]> faixas = new ArrayList<>(); // {inicio, fim, registro}
+        List<String[]> registros = new ArrayList<>();
+        Map<String, Integer> indiceRegistros = new HashMap<>();
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(arquivo.getInputStream(), StandardCharsets.UTF_8))) {
+            String linha;
+            while ((linha = reader.readLine()) != null) {
+                linha = linha.trim();
+                if (linha.isEmpty() || linha.startsWith("#")) {
+                    continue;
+                }
+
+                String[] campos = linha.split(";", -1);
+                if (campos.length != 7) {
+                    throw new IOException("Linha inválida na base offline de CEP: " + linha);
+                }
+
+                String chave = String.join(";", Arrays.copyOfRange(campos, 2, 7));
+                Integer registro = indiceRegistros.get(chave);
+                if (registro == null) {
+                    registro = registros.size();
+                    registros.add(Arrays.copyOfRange(campos, 2, 7));
+                    indiceRegistros.put(chave, registro);
+                }
+
+                faixas.add(new int[] { Integer.parseInt(campos[0]), Integer.parseInt(campos[1]), registro });
+            }
+        }
+
+        achatar(faixas);
+
+        int total = registros.size();
+        ufs = new String[total];
+        codigosIbge = new String[total];
+        cidades = new String[total];
+        latitudes = new double[total];
+        longitudes = new double[total];
+        for (int i = 0; i < total; i++) {
+            String[] registro = registros.get(i);
+            ufs[i] = registro[0];
+            codigosIbge[i] = registro[1];
+            cidades[i] = registro[2];
+            latitudes[i] = Double.parseDouble(registro[3]);
+            longitudes[i] = Double.parseDouble(registro[4]);
+        }
+
+        System.out.println("Base offline de CEP carregada: " + faixas.size() + " faixas, "
+                + inicios.length + " segmentos, " + total + " localidades");
+    }
+
+    /**
+     * Converte as faixas (que podem se sobrepor) em segmentos disjuntos
+     * Executado apenas na carga; o arquivo tem poucas centenas de linhas
+     */
+    private void achatar(List<int[]> faixas) {
+        TreeSet<Integer> limites = new TreeSet<>();
+        for (int[] faixa : faixas) {
+            limites.add(faixa[0]);
+            limites.add(faixa[1] + 1);
+        }
+
+        List<int[]> segmentos = new ArrayList<>();
+        Integer inicio = limites.pollFirst();
+        while (inicio != null && !limites.isEmpty()) {
+            int proximo = limites.pollFirst();
+
+            // Faixa mais estreita que contém o trecho [inicio, proximo - 1]
+            int[] vencedora = null;
+            for (int[] faixa : faixas) {
+                if (faixa[0] <= inicio && faixa[1] >= proximo - 1
+                        && (vencedora == null || faixa[1] - faixa[0] < vencedora[1] - vencedora[0])) {
+                    vencedora = faixa;
+                }
+            }
+
+            if (vencedora != null) {
+                int[] anterior = segmentos.isEmpty() ? null : segmentos.get(segmentos.size() - 1);
+                if (anterior != null && anterior[1] == inicio - 1 && anterior[2] == vencedora[2]) {
+                    anterior[1] = proximo - 1;
+                } else {
+                    segmentos.add(new int[] { inicio, proximo - 1, vencedora[2] });
+                }
+            }
+            inicio = proximo;
+        }
+
+        int total = segmentos.size();
+        int[] novosInicios = new int[total];
+        int[] novosFins = new int[total];
+        int[] novosRegistros = new int[total];
+        for (int i = 0; i < total; i++) {
+            novosInicios[i] = segmentos.get(i)[0];
+            novosFins[i] = segmentos.get(i)[1];
+            novosRegistros[i] = segmentos.get(i)[2];
+        }
+        inicios = novosInicios;
+        fins = novosFins;
+        registroDoSegmento = novosRegistros;
+    }
+
+    /**
+     * Localiza o CEP (8 dígitos, sem formatação) na base local
+     * Retorna UF, município (quando a faixa é de município) e coordenadas,
+     * sem logradouro/bairro; ou null se o CEP estiver fora das faixas conhecidas
+     */
+    public ShippingService.CepInfo buscar(String cepLimpo) {
+        if (cepLimpo == null || cepLimpo.length() != 8) {
+            return null;
+        }
+
+        int cep;
+        try {
+            cep = Integer.parseInt(cepLimpo);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        int posicao = Arrays.binarySearch(inicios, cep);
+        if (posicao < 0) {
+            posicao = -posicao - 2; // último segmento que começa antes do CEP
+        }
+        if (posicao < 0 || cep > fins[posicao]) {
+            return null;
+        }
+
+        int registro = registroDoSegmento[posicao];
+        ShippingService.CepInfo cepInfo = new ShippingService.CepInfo();
+        cepInfo.setCep(cepLimpo.substring(0, 5) + "-" + cepLimpo.substring(5));
+        cepInfo.setLocalidade(cidades[registro]);
+        cepInfo.setUf(ufs[registro]);
+        cepInfo.setIbge(codigosIbge[registro]);
+        cepInfo.setLatitude(latitudes[registro]);
+        cepInfo.setLongitude(longitudes[registro]);
+        return cepInfo;
+    }
+
+    public int getTotalSegmentos() {
+        return inicios.length;
+    }
+}
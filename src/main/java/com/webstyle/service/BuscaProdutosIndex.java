@@ -0,0 +1,296 @@
+package com.webstyle.service;
+
+import com.webstyle.model.ProdutoSnapshot;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido em memória para a busca de produtos (nome, código e descrição)
+ * - Termos normalizados: minúsculas e sem acentos ("Calça" e "calca" são o mesmo termo)
+ * - Dicionário ordenado: cada palavra da busca casa também como prefixo ("cam" → camisa, camiseta)
+ * - Todas as palavras da busca precisam casar; o resultado é ordenado por relevância
+ *   (peso do campo × raridade do termo, casamento exato vale mais que prefixo)
+ * Carregado do banco ao iniciar a aplicação e atualizado a cada ProdutoAlteradoEvent
+ */
+@Component
+public class BuscaProdutosIndex {
+
+    // Peso de cada campo na relevância
+    private static final int PESO_CODIGO = 8;
+    private static final int PESO_NOME = 4;
+    private static final int PESO_DESCRICAO = 1;
+
+    // Ocorrências da mesma palavra na descrição que ainda aumentam o peso
+    private static final int MAX_OCORRENCIAS_DESCRICAO = 3;
+
+    // Casamento por prefixo vale menos que a palavra exata
+    private static final double FATOR_PREFIXO = 0.6;
+
+    // Palavras da busca com menos letras que isso só casam exatamente
+    private static final int MIN_LETRAS_PREFIXO = 2;
+
+    private static final Pattern ACENTOS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^a-z0-9]+");
+    private static final Set<String> PALAVRAS_IGNORADAS = Set.of(
+            "a", "o", "e", "as", "os", "de", "da", "do", "das", "dos", "em", "na", "no", "nas", "nos",
+            "com", "para", "por", "um", "uma");
+
+    private final CatalogoCache catalogoCache;
+
+    // Termo → (produtoId → peso); protegido pelo lock
+    private final TreeMap<String, Map<Long, Integer>> termos = new TreeMap<>();
+    private final Map<Long, Documento> documentos = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Alterações recebidas durante a carga completa (null fora dela), reaplicadas sobre a leitura
+    private Map<Long, ProdutoSnapshot> alteradosDuranteCarga;
+
+    public BuscaProdutosIndex(CatalogoCache catalogoCache) {
+        this.catalogoCache = catalogoCache;
+    }
+
+    /**
+     * Indexa todo o catálogo (após a carga inicial de dados da aplicação)
+     * A leitura do banco é feita sem o lock; alterações que chegam enquanto isso são
+     * registradas e reaplicadas depois, para não serem sobrescritas pela leitura mais antiga
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregar() {
+        lock.writeLock().lock();
+        try {
+            alteradosDuranteCarga = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<ProdutoSnapshot> produtos = catalogoCache.lerTodosSemImagens();
+        lock.writeLock().lock();
+        try {
+            termos.clear();
+            documentos.clear();
+            for (ProdutoSnapshot produto : produtos) {
+                adicionar(produto);
+            }
+            alteradosDuranteCarga.forEach(this::aplicar);
+            alteradosDuranteCarga = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("Índice de busca carregado: " + produtos.size() + " produtos, " + termos.size() + " termos");
+    }
+
+    /**
+     * Reindexa (ou remove) os produtos após o commit da alteração
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void aoAlterarProduto(ProdutoAlteradoEvent evento) {
+        // O CatalogoCache já descartou a versão antiga (ouvinte com prioridade)
+        Map<Long, ProdutoSnapshot> produtos = evento.isExcluido()
+                ? Map.of() : catalogoCache.obterVarios(evento.getProdutoIds());
+
+        lock.writeLock().lock();
+        try {
+            for (Long produtoId : evento.getProdutoIds()) {
+                ProdutoSnapshot produto = produtos.get(produtoId);
+                if (alteradosDuranteCarga != null) {
+                    alteradosDuranteCarga.put(produtoId, produto);
+                }
+                aplicar(produtoId, produto);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids dos produtos que casam com a busca, do mais relevante para o menos relevante
+     * (empate: mais recente primeiro)
+     *
+     * @param somenteAtivos true para a vitrine pública (ignora produtos INATIVOS)
+     */
+    public List<Long> buscar(String consulta, boolean somenteAtivos) {
+        List<String> palavras = tokenizar(consulta);
+        if (palavras.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> relevancia = null;
+            for (String palavra : palavras) {
+                Map<Long, Double> daPalavra = pontuar(palavra);
+                if (relevancia == null) {
+                    relevancia = daPalavra;
+                } else {
+                    // Todas as palavras precisam casar: mantém só os produtos presentes nas duas
+                    Map<Long, Double> anterior = relevancia;
+                    relevancia = new HashMap<>();
+                    for (Map.Entry<Long, Double> item : daPalavra.entrySet()) {
+                        Double acumulado = anterior.get(item.getKey());
+                        if (acumulado != null) {
+                            relevancia.put(item.getKey(), acumulado + item.getValue());
+                        }
+                    }
+                }
+                if (relevancia.isEmpty()) {
+                    return Collections.emptyList();
+                }
+            }
+
+            List<Long> ids = new ArrayList<>(relevancia.size());
+            for (Long id : relevancia.keySet()) {
+                if (!somenteAtivos || documentos.get(id).ativo) {
+                    ids.add(id);
+                }
+            }
+            Map<Long, Double> pontuacao = relevancia;
+            ids.sort((a, b) -> {
+                int comparacao = Double.compare(pontuacao.get(b), pontuacao.get(a));
+                return comparacao != 0 ? comparacao : Long.compare(b, a);
+            });
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getTotalProdutos() {
+        lock.readLock().lock();
+        try {
+            return documentos.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Relevância de cada produto para uma palavra da busca (exata ou como prefixo)
+     */
+    private Map<Long, Double> pontuar(String palavra) {
+        SortedMap<String, Map<Long, Integer>> casados = palavra.length() < MIN_LETRAS_PREFIXO
+                ? termos.subMap(palavra, true, palavra, true)
+                : termos.subMap(palavra, palavra + Character.MAX_VALUE);
+
+        Map<Long, Double> relevancia = new HashMap<>();
+        int totalDocumentos = Math.max(1, documentos.size());
+        for (Map.Entry<String, Map<Long, Integer>> termo : casados.entrySet()) {
+            double raridade = Math.log(1.0 + (double) totalDocumentos / termo.getValue().size());
+            double fator = termo.getKey().equals(palavra) ? 1.0 : FATOR_PREFIXO;
+            for (Map.Entry<Long, Integer> ocorrencia : termo.getValue().entrySet()) {
+                // Vários termos com o mesmo prefixo no produto: vale o melhor
+                relevancia.merge(ocorrencia.getKey(), ocorrencia.getValue() * raridade * fator, Math::max);
+            }
+        }
+        return relevancia;
+    }
+
+    // ===== ATUALIZAÇÃO (chamada com o lock de escrita) =====
+
+    /**
+     * Reindexa o produto (null = excluído)
+     */
+    private void aplicar(Long produtoId, ProdutoSnapshot produto) {
+        remover(produtoId);
+        if (produto != null) {
+            adicionar(produto);
+        }
+    }
+
+    private void adicionar(ProdutoSnapshot produto) {
+        Map<String, Integer> pesos = new HashMap<>();
+        String codigo = produto.getCodigo() != null ? produto.getCodigo() : "";
+        for (String termo : tokenizar(codigo)) {
+            pesos.merge(termo, PESO_CODIGO, Math::max);
+        }
+        // Código também como um termo só, sem separadores ("CAM-001" → "cam001")
+        String codigoCompacto = SEPARADORES.matcher(normalizar(codigo)).replaceAll("");
+        if (!codigoCompacto.isEmpty()) {
+            pesos.merge(codigoCompacto, PESO_CODIGO, Math::max);
+        }
+        for (String termo : tokenizar(produto.getNome())) {
+            pesos.merge(termo, PESO_NOME, Integer::sum);
+        }
+        Map<String, Integer> ocorrencias = new HashMap<>();
+        for (String termo : tokenizar(produto.getDescricao())) {
+            if (ocorrencias.merge(termo, 1, Integer::sum) <= MAX_OCORRENCIAS_DESCRICAO) {
+                pesos.merge(termo, PESO_DESCRICAO, Integer::sum);
+            }
+        }
+
+        for (Map.Entry<String, Integer> termo : pesos.entrySet()) {
+            termos.computeIfAbsent(termo.getKey(), t -> new HashMap<>()).put(produto.getId(), termo.getValue());
+        }
+        documentos.put(produto.getId(), new Documento(produto.isAtivo(), pesos.keySet()));
+    }
+
+    private void remover(Long produtoId) {
+        Documento documento = documentos.remove(produtoId);
+        if (documento == null) {
+            return;
+        }
+        for (String termo : documento.termos) {
+            Map<Long, Integer> produtos = termos.get(termo);
+            if (produtos != null) {
+                produtos.remove(produtoId);
+                if (produtos.isEmpty()) {
+                    termos.remove(termo);
+                }
+            }
+        }
+    }
+
+    // ===== NORMALIZAÇÃO =====
+
+    /**
+     * Minúsculas e sem acentos
+     */
+    static String normalizar(String texto) {
+        String decomposto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        return ACENTOS.matcher(decomposto).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Palavras normalizadas do texto, sem as palavras muito comuns (de, da, com...)
+     */
+    static List<String> tokenizar(String texto) {
+        List<String> palavras = new ArrayList<>();
+        if (texto == null || texto.isBlank()) {
+            return palavras;
+        }
+        for (String palavra : SEPARADORES.split(normalizar(texto))) {
+            if (!palavra.isEmpty() && !PALAVRAS_IGNORADAS.contains(palavra)) {
+                palavras.add(palavra);
+            }
+        }
+        return palavras;
+    }
+
+    /**
+     * Termos indexados de um produto (para remover na reindexação) e se está ativo
+     */
+    private static class Documento {
+        private final boolean ativo;
+        private final Set<String> termos;
+
+        private Documento(boolean ativo, Set<String> termos) {
+            this.ativo = ativo;
+            this.termos = termos;
+        }
+    }
+}
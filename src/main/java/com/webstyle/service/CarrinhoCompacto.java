@@ -0,0 +1,225 @@
+package com.webstyle.service;
+
+import java.util.Arrays;
+
+/**
+ * Conteúdo de um carrinho em formato compacto: (produtoId, quantidade, preço unitário em centavos)
+ * - Linhas em arrays primitivos densos, na ordem em que foram adicionadas
+ * - Índice por produtoId em tabela de endereçamento aberto: busca, inclusão e
+ *   remoção em O(1), sem objetos por linha
+ * - Total em centavos e quantidade de itens mantidos a cada alteração (consulta em O(1))
+ * Nome e imagem dos produtos não são guardados: vêm do catálogo na exibição
+ * Não é thread-safe; o CartStore controla o acesso concorrente
+ */
+public class CarrinhoCompacto {
+
+    private static final int CAPACIDADE_INICIAL = 4;
+
+    private long[] produtoIds = new long[CAPACIDADE_INICIAL];
+    private int[] quantidades = new int[CAPACIDADE_INICIAL];
+    private long[] precosCentavos = new long[CAPACIDADE_INICIAL];
+    private int tamanho;
+
+    // Totais mantidos incrementalmente
+    private long totalCentavos;
+    private int totalItens;
+
+    // Tabela de endereçamento aberto (sondagem linear): posição da linha + 1, 0 = vazio
+    private int[] indice = new int[CAPACIDADE_INICIAL * 2];
+
+    // Lido sem lock pela limpeza dos carrinhos inativos (InMemoryCartStore)
+    private volatile long ultimoAcesso = System.currentTimeMillis();
+
+    /**
+     * Quantidade do produto no carrinho (0 se não estiver)
+     */
+    public int quantidade(long produtoId) {
+        int linha = buscarLinha(produtoId);
+        return linha < 0 ? 0 : quantidades[linha];
+    }
+
+    /**
+     * Define quantidade e preço unitário (centavos) do produto; quantidade 0 ou menos remove a linha
+     */
+    public void definir(long produtoId, int quantidade, long precoCentavos) {
+        if (quantidade <= 0) {
+            remover(produtoId);
+            return;
+        }
+
+        int linha = buscarLinha(produtoId);
+        if (linha >= 0) {
+            totalCentavos += quantidade * precoCentavos - quantidades[linha] * precosCentavos[linha];
+            totalItens += quantidade - quantidades[linha];
+            quantidades[linha] = quantidade;
+            precosCentavos[linha] = precoCentavos;
+            return;
+        }
+
+        if (tamanho == produtoIds.length) {
+            produtoIds = Arrays.copyOf(produtoIds, tamanho * 2);
+            quantidades = Arrays.copyOf(quantidades, tamanho * 2);
+            precosCentavos = Arrays.copyOf(precosCentavos, tamanho * 2);
+        }
+        produtoIds[tamanho] = produtoId;
+        quantidades[tamanho] = quantidade;
+        precosCentavos[tamanho] = precoCentavos;
+        tamanho++;
+        totalCentavos += quantidade * precoCentavos;
+        totalItens += quantidade;
+
+        if (tamanho * 2 > indice.length) {
+            reindexar(indice.length * 2);
+        } else {
+            inserirNoIndice(produtoId, tamanho - 1);
+        }
+    }
+
+    /**
+     * Remove a linha do produto (a última linha ocupa o lugar da removida)
+     */
+    public void remover(long produtoId) {
+        int posicao = buscarPosicao(produtoId);
+        if (posicao < 0) {
+            return;
+        }
+
+        int linha = indice[posicao] - 1;
+        totalCentavos -= quantidades[linha] * precosCentavos[linha];
+        totalItens -= quantidades[linha];
+        removerDoIndice(posicao);
+
+        int ultima = tamanho - 1;
+        if (linha != ultima) {
+            indice[buscarPosicao(produtoIds[ultima])] = linha + 1;
+            produtoIds[linha] = produtoIds[ultima];
+            quantidades[linha] = quantidades[ultima];
+            precosCentavos[linha] = precosCentavos[ultima];
+        }
+        tamanho--;
+    }
+
+    public void limpar() {
+        tamanho = 0;
+        totalCentavos = 0;
+        totalItens = 0;
+        Arrays.fill(indice, 0);
+    }
+
+    public int getTamanho() {
+        return tamanho;
+    }
+
+    public boolean isVazio() {
+        return tamanho == 0;
+    }
+
+    public long getProdutoId(int linha) {
+        return produtoIds[linha];
+    }
+
+    public int getQuantidade(int linha) {
+        return quantidades[linha];
+    }
+
+    public long getPrecoCentavos(int linha) {
+        return precosCentavos[linha];
+    }
+
+    public long getTotalCentavos() {
+        return totalCentavos;
+    }
+
+    public int getTotalItens() {
+        return totalItens;
+    }
+
+    public long getUltimoAcesso() {
+        return ultimoAcesso;
+    }
+
+    public void registrarAcesso() {
+        ultimoAcesso = System.currentTimeMillis();
+    }
+
+    /**
+     * Cópia independente (para leitura fora do lock do CartStore)
+     */
+    public CarrinhoCompacto copiar() {
+        CarrinhoCompacto copia = new CarrinhoCompacto();
+        copia.produtoIds = Arrays.copyOf(produtoIds, Math.max(tamanho, CAPACIDADE_INICIAL));
+        copia.quantidades = Arrays.copyOf(quantidades, Math.max(tamanho, CAPACIDADE_INICIAL));
+        copia.precosCentavos = Arrays.copyOf(precosCentavos, Math.max(tamanho, CAPACIDADE_INICIAL));
+        copia.tamanho = tamanho;
+        copia.totalCentavos = totalCentavos;
+        copia.totalItens = totalItens;
+        copia.indice = indice.clone();
+        copia.ultimoAcesso = ultimoAcesso;
+        return copia;
+    }
+
+    // ===== ÍNDICE (endereçamento aberto) =====
+
+    private int buscarLinha(long produtoId) {
+        int posicao = buscarPosicao(produtoId);
+        return posicao < 0 ? -1 : indice[posicao] - 1;
+    }
+
+    private int buscarPosicao(long produtoId) {
+        int mascara = indice.length - 1;
+        int posicao = espalhar(produtoId) & mascara;
+        while (indice[posicao] != 0) {
+            if (produtoIds[indice[posicao] - 1] == produtoId) {
+                return posicao;
+            }
+            posicao = (posicao + 1) & mascara;
+        }
+        return -1;
+    }
+
+    /**
+     * Remove a posição da tabela recuando as entradas seguintes do mesmo agrupamento
+     * (sem marcadores de remoção, a sondagem continua correta)
+     */
+    private void removerDoIndice(int posicao) {
+        int mascara = indice.length - 1;
+        int vazia = posicao;
+        int atual = posicao;
+        while (true) {
+            atual = (atual + 1) & mascara;
+            if (indice[atual] == 0) {
+                break;
+            }
+            int ideal = espalhar(produtoIds[indice[atual] - 1]) & mascara;
+            boolean permanece = vazia <= atual
+                    ? vazia < ideal && ideal <= atual
+                    : vazia < ideal || ideal <= atual;
+            if (!permanece) {
+                indice[vazia] = indice[atual];
+                vazia = atual;
+            }
+        }
+        indice[vazia] = 0;
+    }
+
+    private void inserirNoIndice(long produtoId, int linha) {
+        int mascara = indice.length - 1;
+        int posicao = espalhar(produtoId) & mascara;
+        while (indice[posicao] != 0) {
+            posicao = (posicao + 1) & mascara;
+        }
+        indice[posicao] = linha + 1;
+    }
+
+    private void reindexar(int capacidade) {
+        indice = new int[capacidade];
+        for (int linha = 0; linha < tamanho; linha++) {
+            inserirNoIndice(produtoIds[linha], linha);
+        }
+    }
+
+    private static int espalhar(long produtoId) {
+        long h = produtoId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
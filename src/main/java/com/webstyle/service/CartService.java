@@ -2,52 +2,239 @@ package com.webstyle.service;
 
 import com.webstyle.model.CartItem;
 import com.webstyle.model.Product;
-import com.webstyle.model.ProductImage;
+import com.webstyle.model.ProductCard;
+import com.webstyle.model.ProdutoSnapshot;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
-import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
 
 /**
  * Serviço para gerenciar o carrinho de compras
- * Utiliza a sessão HTTP para armazenar os itens
+ * O carrinho fica no CartStore (fora da sessão HTTP), identificado por um cookie de 30 dias;
+ * guarda apenas produtoId, quantidade e preço, e os dados dos produtos vêm do catálogo na exibição
+ * - No login do cliente o carrinho continua, com um id novo (aoEntrar)
+ * - No logout o carrinho e o cookie são descartados (aoSair): o próximo usuário do mesmo
+ *   navegador começa com o carrinho vazio
+ * Total e quantidade de itens vêm dos totais mantidos pelo CartStore (custo constante)
  */
 @Service
 public class CartService {
     
-    private static final String CART_SESSION_KEY = "SHOPPING_CART";
+    private static final String CART_COOKIE = "CARRINHO_ID";
+    private static final int CART_COOKIE_MAX_AGE = 30 * 24 * 60 * 60; // 30 dias
+    private static final String CART_ID_ATTRIBUTE = CartService.class.getName() + ".CARRINHO_ID";
+    private static final String CART_RESUMO_ATTRIBUTE = CartService.class.getName() + ".RESUMO";
+    private static final Pattern FORMATO_ID = Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
     
     @Autowired
     private ProductService productService;
     
+    @Autowired
+    private CartStore cartStore;
+    
+    /**
+     * Id do carrinho do navegador atual (cookie)
+     * Com criar = true gera um novo id e envia o cookie quando ainda não existe
+     */
+    private String getCarrinhoId(boolean criar) {
+        ServletRequestAttributes attr = (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
+        HttpServletRequest request = attr.getRequest();
+        
+        String carrinhoId = (String) request.getAttribute(CART_ID_ATTRIBUTE);
+        if (carrinhoId != null) {
+            return carrinhoId;
+        }
+        
+        if (request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if (CART_COOKIE.equals(cookie.getName()) && FORMATO_ID.matcher(cookie.getValue()).matches()) {
+                    carrinhoId = cookie.getValue();
+                    break;
+                }
+            }
+        }
+        
+        if (carrinhoId == null && criar && attr.getResponse() != null) {
+            carrinhoId = UUID.randomUUID().toString();
+            enviarCookie(attr, carrinhoId, CART_COOKIE_MAX_AGE);
+        }
+        
+        if (carrinhoId != null) {
+            request.setAttribute(CART_ID_ATTRIBUTE, carrinhoId);
+        }
+        return carrinhoId;
+    }
+    
+    private void enviarCookie(ServletRequestAttributes attr, String valor, int maxAge) {
+        Cookie cookie = new Cookie(CART_COOKIE, valor);
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge(maxAge);
+        attr.getResponse().addCookie(cookie);
+    }
+    
+    /**
+     * Login do cliente: o carrinho montado antes do login continua, mas passa para um id novo
+     * (o id anterior, que circulou antes da autenticação, deixa de valer)
+     */
+    public void aoEntrar() {
+        String anterior = getCarrinhoId(false);
+        ServletRequestAttributes attr = (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
+        if (anterior == null || attr.getResponse() == null) {
+            return;
+        }
+        
+        String novo = UUID.randomUUID().toString();
+        CarrinhoCompacto carrinho = cartStore.obter(anterior);
+        for (int linha = 0; linha < carrinho.getTamanho(); linha++) {
+            cartStore.adicionar(novo, carrinho.getProdutoId(linha), carrinho.getQuantidade(linha),
+                    carrinho.getPrecoCentavos(linha), Integer.MAX_VALUE);
+        }
+        cartStore.limpar(anterior);
+        
+        enviarCookie(attr, novo, CART_COOKIE_MAX_AGE);
+        attr.getRequest().setAttribute(CART_ID_ATTRIBUTE, novo);
+        descartarResumo();
+    }
+    
     /**
-     * Obtém a sessão HTTP atual
+     * Logout do cliente: descarta o carrinho e remove o cookie
      */
-    private HttpSession getSession() {
+    public void aoSair() {
+        String carrinhoId = getCarrinhoId(false);
+        if (carrinhoId == null) {
+            return;
+        }
+        cartStore.limpar(carrinhoId);
+        
         ServletRequestAttributes attr = (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
-        return attr.getRequest().getSession(true);
+        if (attr.getResponse() != null) {
+            enviarCookie(attr, "", 0);
+        }
+        attr.getRequest().removeAttribute(CART_ID_ATTRIBUTE);
+        descartarResumo();
     }
     
     /**
-     * Obtém o carrinho da sessão
+     * Totais do carrinho, guardados na requisição até a próxima alteração
+     * (o header e as respostas AJAX consultam total e quantidade várias vezes)
+     */
+    private CartStore.Resumo getResumo() {
+        String carrinhoId = getCarrinhoId(false);
+        if (carrinhoId == null) {
+            return CartStore.Resumo.VAZIO;
+        }
+        
+        HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getRequest();
+        CartStore.Resumo resumo = (CartStore.Resumo) request.getAttribute(CART_RESUMO_ATTRIBUTE);
+        if (resumo == null) {
+            resumo = cartStore.resumo(carrinhoId);
+            request.setAttribute(CART_RESUMO_ATTRIBUTE, resumo);
+        }
+        return resumo;
+    }
+    
+    private void descartarResumo() {
+        ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getRequest()
+                .removeAttribute(CART_RESUMO_ATTRIBUTE);
+    }
+    
+    private static long centavos(BigDecimal valor) {
+        return valor.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+    
+    /**
+     * Obtém os itens do carrinho, com nome, preço e imagem atuais do catálogo
+     * Linhas de produtos que não existem mais são removidas e preços alterados
+     * no catálogo são atualizados no carrinho (e nos totais)
      */
-    @SuppressWarnings("unchecked")
     public List<CartItem> getCart() {
-        HttpSession session = getSession();
-        List<CartItem> cart = (List<CartItem>) session.getAttribute(CART_SESSION_KEY);
+        String carrinhoId = getCarrinhoId(false);
+        if (carrinhoId == null) {
+            return new ArrayList<>();
+        }
         
-        if (cart == null) {
-            cart = new ArrayList<>();
-            session.setAttribute(CART_SESSION_KEY, cart);
+        CarrinhoCompacto carrinho = cartStore.obter(carrinhoId);
+        List<Long> ids = new ArrayList<>(carrinho.getTamanho());
+        for (int linha = 0; linha < carrinho.getTamanho(); linha++) {
+            ids.add(carrinho.getProdutoId(linha));
         }
+        Map<Long, ProductCard> cards = productService.buscarCards(ids);
         
-        return cart;
+        List<CartItem> itens = new ArrayList<>(carrinho.getTamanho());
+        for (int linha = 0; linha < carrinho.getTamanho(); linha++) {
+            long produtoId = carrinho.getProdutoId(linha);
+            int quantidade = carrinho.getQuantidade(linha);
+            ProductCard card = cards.get(produtoId);
+            
+            if (card == null) {
+                cartStore.remover(carrinhoId, produtoId);
+                descartarResumo();
+                continue;
+            }
+            if (centavos(card.getPreco()) != carrinho.getPrecoCentavos(linha)) {
+                cartStore.atualizar(carrinhoId, produtoId, quantidade, centavos(card.getPreco()));
+                descartarResumo();
+            }
+            
+            itens.add(new CartItem(card.getId(), card.getCodigo(), card.getNome(), card.getPreco(),
+                    quantidade, card.getImagemPrincipal()));
+        }
+        return itens;
+    }
+    
+    /**
+     * Revalida o carrinho contra o catálogo antes de exibir/finalizar, com uma única consulta
+     * - Remove produtos excluídos ou inativos
+     * - Reduz quantidades acima do estoque atual
+     * Retorna as mensagens para o cliente (vazia se nada mudou)
+     */
+    public List<String> revalidarCarrinho() {
+        List<String> avisos = new ArrayList<>();
+        String carrinhoId = getCarrinhoId(false);
+        if (carrinhoId == null) {
+            return avisos;
+        }
+        
+        CarrinhoCompacto carrinho = cartStore.obter(carrinhoId);
+        List<Long> ids = new ArrayList<>(carrinho.getTamanho());
+        for (int linha = 0; linha < carrinho.getTamanho(); linha++) {
+            ids.add(carrinho.getProdutoId(linha));
+        }
+        Map<Long, ProdutoSnapshot> produtos = productService.buscarSnapshots(ids);
+        
+        for (int linha = 0; linha < carrinho.getTamanho(); linha++) {
+            long produtoId = carrinho.getProdutoId(linha);
+            int quantidade = carrinho.getQuantidade(linha);
+            ProdutoSnapshot produto = produtos.get(produtoId);
+            
+            if (produto == null || produto.getStatus() != Product.Status.ATIVO) {
+                cartStore.remover(carrinhoId, produtoId);
+                avisos.add((produto == null ? "Um produto" : produto.getNome()) + " não está mais disponível e foi removido do carrinho.");
+            } else if (produto.getQuantidadeEstoque() <= 0) {
+                cartStore.remover(carrinhoId, produtoId);
+                avisos.add(produto.getNome() + " esgotou e foi removido do carrinho.");
+            } else if (quantidade > produto.getQuantidadeEstoque()) {
+                cartStore.atualizar(carrinhoId, produtoId, produto.getQuantidadeEstoque(), centavos(produto.getPreco()));
+                avisos.add("A quantidade de " + produto.getNome() + " foi ajustada para " + produto.getQuantidadeEstoque() + " (estoque disponível).");
+            }
+        }
+        
+        if (!avisos.isEmpty()) {
+            descartarResumo();
+        }
+        return avisos;
     }
     
     /**
@@ -60,7 +247,7 @@ public class CartService {
         }
         
         // Busca o produto
-        Product produto = productService.buscarPorId(produtoId);
+        ProdutoSnapshot produto = productService.buscarSnapshot(produtoId);
         if (produto == null) {
             throw new RuntimeException("Produto não encontrado");
         }
@@ -75,62 +262,24 @@ public class CartService {
             throw new RuntimeException("Estoque insuficiente. Disponível: " + produto.getQuantidadeEstoque());
         }
         
-        List<CartItem> cart = getCart();
-        
-        // Busca a imagem principal do produto
-        List<ProductImage> imagens = productService.buscarImagensProduto(produtoId);
-        String imagemPrincipal = null;
-        if (imagens != null && !imagens.isEmpty()) {
-            ProductImage imgPrincipal = imagens.stream()
-                    .filter(ProductImage::isImagemPrincipal)
-                    .findFirst()
-                    .orElse(imagens.get(0));
-            imagemPrincipal = imgPrincipal.getCaminhoArquivo();
-        }
-        
-        // Verifica se o produto já está no carrinho
-        Optional<CartItem> existingItem = cart.stream()
-                .filter(item -> item.getProdutoId().equals(produtoId))
-                .findFirst();
-        
-        if (existingItem.isPresent()) {
-            // Produto já existe: SOMA a quantidade
-            CartItem item = existingItem.get();
-            int novaQuantidade = item.getQuantidade() + quantidade;
-            
-            // Verifica se a nova quantidade não excede o estoque
-            if (novaQuantidade > produto.getQuantidadeEstoque()) {
-                throw new RuntimeException("Quantidade total excede o estoque disponível. Máximo: " + produto.getQuantidadeEstoque());
-            }
-            
-            item.setQuantidade(novaQuantidade);
-        } else {
-            // Produto novo: adiciona ao carrinho
-            CartItem newItem = new CartItem(
-                produtoId,
-                produto.getCodigo(),
-                produto.getNome(),
-                produto.getPreco(),
-                quantidade,
-                imagemPrincipal
-            );
-            cart.add(newItem);
+        // Soma ao que já está no carrinho, limitado ao estoque
+        int novaQuantidade = cartStore.adicionar(getCarrinhoId(true), produtoId, quantidade,
+                centavos(produto.getPreco()), produto.getQuantidadeEstoque());
+        descartarResumo();
+        if (novaQuantidade < 0) {
+            throw new RuntimeException("Quantidade total excede o estoque disponível. Máximo: " + produto.getQuantidadeEstoque());
         }
-        
-        // Atualiza o carrinho na sessão
-        HttpSession session = getSession();
-        session.setAttribute(CART_SESSION_KEY, cart);
     }
     
     /**
      * Remove um produto do carrinho
      */
     public void removeFromCart(Long produtoId) {
-        List<CartItem> cart = getCart();
-        cart.removeIf(item -> item.getProdutoId().equals(produtoId));
-        
-        HttpSession session = getSession();
-        session.setAttribute(CART_SESSION_KEY, cart);
+        String carrinhoId = getCarrinhoId(false);
+        if (carrinhoId != null && produtoId != null) {
+            cartStore.remover(carrinhoId, produtoId);
+            descartarResumo();
+        }
     }
     
     /**
@@ -143,7 +292,7 @@ public class CartService {
         }
         
         // Verifica se há estoque suficiente
-        Product produto = productService.buscarPorId(produtoId);
+        ProdutoSnapshot produto = productService.buscarSnapshot(produtoId);
         if (produto == null) {
             throw new RuntimeException("Produto não encontrado");
         }
@@ -152,16 +301,10 @@ public class CartService {
             throw new RuntimeException("Estoque insuficiente. Disponível: " + produto.getQuantidadeEstoque());
         }
         
-        List<CartItem> cart = getCart();
-        Optional<CartItem> item = cart.stream()
-                .filter(i -> i.getProdutoId().equals(produtoId))
-                .findFirst();
-        
-        if (item.isPresent()) {
-            item.get().setQuantidade(novaQuantidade);
-            
-            HttpSession session = getSession();
-            session.setAttribute(CART_SESSION_KEY, cart);
+        String carrinhoId = getCarrinhoId(false);
+        if (carrinhoId != null) {
+            cartStore.atualizar(carrinhoId, produtoId, novaQuantidade, centavos(produto.getPreco()));
+            descartarResumo();
         }
     }
     
@@ -169,34 +312,31 @@ public class CartService {
      * Limpa o carrinho
      */
     public void clearCart() {
-        HttpSession session = getSession();
-        session.setAttribute(CART_SESSION_KEY, new ArrayList<CartItem>());
+        String carrinhoId = getCarrinhoId(false);
+        if (carrinhoId != null) {
+            cartStore.limpar(carrinhoId);
+            descartarResumo();
+        }
     }
     
     /**
-     * Calcula o total do carrinho
+     * Total do carrinho (mantido a cada alteração, sem percorrer as linhas)
      */
     public BigDecimal getCartTotal() {
-        List<CartItem> cart = getCart();
-        return cart.stream()
-                .map(CartItem::getSubtotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return getResumo().getTotal();
     }
     
     /**
      * Retorna a quantidade total de itens no carrinho
      */
     public int getCartItemCount() {
-        List<CartItem> cart = getCart();
-        return cart.stream()
-                .mapToInt(CartItem::getQuantidade)
-                .sum();
+        return getResumo().getTotalItens();
     }
     
     /**
      * Verifica se o carrinho está vazio
      */
     public boolean isCartEmpty() {
-        return getCart().isEmpty();
+        return getResumo().getLinhas() == 0;
     }
-}
\ No newline at end of file
+}
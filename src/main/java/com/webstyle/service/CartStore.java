@@ -0,0 +1,70 @@
+package com.webstyle.service;
+
+import java.math.BigDecimal;
+
+/**
+ * Armazenamento dos carrinhos de compra, fora da sessão HTTP
+ * Cada carrinho é identificado por um id (cookie do navegador) e guarda apenas
+ * (produtoId, quantidade, preço unitário em centavos); nome e imagem dos produtos
+ * são resolvidos na exibição. Total e quantidade de itens são mantidos a cada alteração
+ *
+ * Implementações: InMemoryCartStore (padrão) e JdbcCartStore (app.carrinho.store=jdbc),
+ * esta última compartilhada entre instâncias e preservada em reinícios
+ * Todas as operações são atômicas por carrinho
+ */
+public interface CartStore {
+
+    /**
+     * Cópia do conteúdo atual do carrinho (vazio se não existir)
+     */
+    CarrinhoCompacto obter(String carrinhoId);
+
+    /**
+     * Totais do carrinho, sem carregar as linhas
+     */
+    Resumo resumo(String carrinhoId);
+
+    /**
+     * Soma a quantidade à linha do produto (atualizando o preço unitário),
+     * desde que o total da linha não passe de "maximo"
+     * Retorna a nova quantidade da linha, ou -1 se exceder o máximo (nada é alterado)
+     */
+    int adicionar(String carrinhoId, long produtoId, int quantidade, long precoCentavos, int maximo);
+
+    /**
+     * Altera quantidade e preço de uma linha existente; quantidade 0 remove a linha
+     * Retorna false se o produto não estiver no carrinho
+     */
+    boolean atualizar(String carrinhoId, long produtoId, int quantidade, long precoCentavos);
+
+    void remover(String carrinhoId, long produtoId);
+
+    void limpar(String carrinhoId);
+
+    /**
+     * Totais de um carrinho
+     */
+    class Resumo {
+        public static final Resumo VAZIO = new Resumo(0, 0, 0);
+
+        private final int linhas;
+        private final int totalItens;
+        private final long totalCentavos;
+
+        public Resumo(int linhas, int totalItens, long totalCentavos) {
+            this.linhas = linhas;
+            this.totalItens = totalItens;
+            this.totalCentavos = totalCentavos;
+        }
+
+        public int getLinhas() { return linhas; }
+
+        public int getTotalItens() { return totalItens; }
+
+        public long getTotalCentavos() { return totalCentavos; }
+
+        public BigDecimal getTotal() {
+            return BigDecimal.valueOf(totalCentavos, 2);
+        }
+    }
+}
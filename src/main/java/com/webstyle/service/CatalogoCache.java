@@ -0,0 +1,194 @@
+package com.webstyle.service;
+
+import com.webstyle.model.ImagemSnapshot;
+import com.webstyle.model.ProdutoSnapshot;
+import com.webstyle.repository.ProductImageRepository;
+import com.webstyle.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Cache de leitura do catálogo: cópias imutáveis dos produtos com as imagens já ordenadas
+ * (detalhe do produto, carrinho e itens do pedido)
+ * - Leitura direta: o que não está no cache é carregado do banco (2 consultas para qualquer
+ *   quantidade de produtos) e guardado
+ * - Limitado por quantidade de produtos (remove o menos usado)
+ * - Invalidado após o commit de cada ProdutoAlteradoEvent, antes dos índices do catálogo,
+ *   que então leem daqui a versão nova
+ * - Versões por faixa de produtos evitam que uma leitura feita antes do commit
+ *   seja guardada depois da invalidação
+ * O cache é local a cada instância da aplicação
+ */
+@Component
+public class CatalogoCache {
+
+    private static final int FAIXAS = 256;
+
+    private final ProductRepository productRepository;
+    private final ProductImageRepository productImageRepository;
+    private final int maxProdutos;
+
+    // LinkedHashMap em ordem de acesso = LRU (protegido por synchronized)
+    private final LinkedHashMap<Long, ProdutoSnapshot> produtos;
+    private long bytesEstimados;
+
+    // Versão de cada faixa de produtos, incrementada a cada invalidação
+    private final AtomicLongArray versoes = new AtomicLongArray(FAIXAS);
+
+    // Métricas
+    private final AtomicLong acertos = new AtomicLong();
+    private final AtomicLong falhas = new AtomicLong();
+    private final AtomicLong remocoes = new AtomicLong();
+    private final AtomicLong invalidacoes = new AtomicLong();
+
+    public CatalogoCache(ProductRepository productRepository,
+                         ProductImageRepository productImageRepository,
+                         @Value("${app.catalogo.cache.max-produtos:5000}") int maxProdutos) {
+        this.productRepository = productRepository;
+        this.productImageRepository = productImageRepository;
+        this.maxProdutos = maxProdutos;
+        this.produtos = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, ProdutoSnapshot> maisAntigo) {
+                if (size() > CatalogoCache.this.maxProdutos) {
+                    bytesEstimados -= maisAntigo.getValue().tamanhoEstimado();
+                    remocoes.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Produto pelo id (null se não existir)
+     */
+    public ProdutoSnapshot obter(Long id) {
+        if (id == null) {
+            return null;
+        }
+        return obterVarios(List.of(id)).get(id);
+    }
+
+    /**
+     * Produtos informados, indexados por id (produtos inexistentes ficam de fora)
+     * Os que faltam no cache são carregados juntos
+     */
+    public Map<Long, ProdutoSnapshot> obterVarios(Collection<Long> ids) {
+        Map<Long, ProdutoSnapshot> encontrados = new HashMap<>();
+        List<Long> faltando = new ArrayList<>();
+        synchronized (this) {
+            for (Long id : ids) {
+                ProdutoSnapshot produto = produtos.get(id);
+                if (produto != null) {
+                    encontrados.put(id, produto);
+                } else if (!faltando.contains(id)) {
+                    faltando.add(id);
+                }
+            }
+        }
+        acertos.addAndGet(encontrados.size());
+        if (faltando.isEmpty()) {
+            return encontrados;
+        }
+        falhas.addAndGet(faltando.size());
+
+        // Versões lidas ANTES de consultar o banco
+        long[] versoesLidas = new long[faltando.size()];
+        for (int i = 0; i < faltando.size(); i++) {
+            versoesLidas[i] = versoes.get(faixa(faltando.get(i)));
+        }
+
+        Map<Long, ProdutoSnapshot> carregados = carregar(faltando);
+
+        synchronized (this) {
+            for (int i = 0; i < faltando.size(); i++) {
+                Long id = faltando.get(i);
+                ProdutoSnapshot produto = carregados.get(id);
+                if (produto != null && versoes.get(faixa(id)) == versoesLidas[i]) {
+                    ProdutoSnapshot anterior = produtos.put(id, produto);
+                    bytesEstimados += produto.tamanhoEstimado() - (anterior != null ? anterior.tamanhoEstimado() : 0);
+                }
+            }
+        }
+        encontrados.putAll(carregados);
+        return encontrados;
+    }
+
+    /**
+     * Todos os produtos, sem imagens e sem passar pelo cache (carga dos índices do catálogo)
+     */
+    public List<ProdutoSnapshot> lerTodosSemImagens() {
+        return productRepository.findAllSnapshots();
+    }
+
+    /**
+     * Remove o produto após o commit da alteração; roda antes dos demais ouvintes do evento
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void aoAlterarProduto(ProdutoAlteradoEvent evento) {
+        evento.getProdutoIds().forEach(this::invalidar);
+    }
+
+    public synchronized void invalidar(Long id) {
+        versoes.incrementAndGet(faixa(id));
+        ProdutoSnapshot removido = produtos.remove(id);
+        if (removido != null) {
+            bytesEstimados -= removido.tamanhoEstimado();
+        }
+        invalidacoes.incrementAndGet();
+    }
+
+    private Map<Long, ProdutoSnapshot> carregar(List<Long> ids) {
+        Map<Long, List<ImagemSnapshot>> imagensPorProduto = new HashMap<>();
+        for (ImagemSnapshot imagem : productImageRepository.findSnapshotsByProdutoIds(ids)) {
+            imagensPorProduto.computeIfAbsent(imagem.getProdutoId(), id -> new ArrayList<>()).add(imagem);
+        }
+
+        Map<Long, ProdutoSnapshot> carregados = new HashMap<>();
+        for (ProdutoSnapshot produto : productRepository.findSnapshotsByIds(ids)) {
+            carregados.put(produto.getId(), produto.comImagens(imagensPorProduto.getOrDefault(produto.getId(), List.of())));
+        }
+        return carregados;
+    }
+
+    /**
+     * Estatísticas do cache (taxa de acerto e memória ocupada, para dimensionamento)
+     */
+    public Map<String, Object> getEstatisticas() {
+        Map<String, Object> estatisticas = new LinkedHashMap<>();
+        long totalAcertos = acertos.get();
+        long totalFalhas = falhas.get();
+        long total = totalAcertos + totalFalhas;
+
+        synchronized (this) {
+            estatisticas.put("tamanho", produtos.size());
+            estatisticas.put("bytesEstimados", bytesEstimados);
+        }
+        estatisticas.put("maxProdutos", maxProdutos);
+        estatisticas.put("acertos", totalAcertos);
+        estatisticas.put("falhas", totalFalhas);
+        estatisticas.put("taxaAcerto", total == 0 ? 0.0 : (double) totalAcertos / total);
+        estatisticas.put("remocoes", remocoes.get());
+        estatisticas.put("invalidacoes", invalidacoes.get());
+        return estatisticas;
+    }
+
+    private static int faixa(Long id) {
+        return (int) (id ^ (id >>> 32)) & (FAIXAS - 1);
+    }
+}
@@ -0,0 +1,48 @@
+package com.webstyle.service;
+
+/**
+ * Centro de distribuição (origem das entregas)
+ * Configurado em app.frete.centros no formato codigo:nome:latitude:longitude
+ */
+public class CentroDistribuicao {
+    private final String codigo;
+    private final String nome;
+    private final double latitude;
+    private final double longitude;
+
+    public CentroDistribuicao(String codigo, String nome, double latitude, double longitude) {
+        this.codigo = codigo;
+        this.nome = nome;
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    /**
+     * Lê um centro no formato codigo:nome:latitude:longitude
+     */
+    public static CentroDistribuicao parse(String definicao) {
+        String[] campos = definicao.trim().split(":");
+        if (campos.length != 4) {
+            throw new IllegalArgumentException("Centro de distribuição inválido (esperado codigo:nome:latitude:longitude): " + definicao);
+        }
+        return new CentroDistribuicao(campos[0].trim(), campos[1].trim(),
+                Double.parseDouble(campos[2].trim()), Double.parseDouble(campos[3].trim()));
+    }
+
+    // Getters
+    public String getCodigo() {
+        return codigo;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+}
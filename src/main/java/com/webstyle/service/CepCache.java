@@ -0,0 +1,198 @@
+package com.webstyle.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache em memória das consultas de CEP
+ * - Limitado por quantidade de entradas (remove a menos usada) e por tempo de vida (TTL)
+ * - Entradas expiradas ficam disponíveis como resposta de emergência (obterUltimaConhecida)
+ * - Guarda também os CEPs não encontrados, com TTL menor
+ * - Requisições simultâneas para o mesmo CEP aguardam uma única consulta externa
+ */
+@Component
+public class CepCache {
+
+    private final int maxEntradas;
+    private final long ttlMillis;
+    private final long ttlNegativoMillis;
+
+    // LinkedHashMap em ordem de acesso = LRU (protegido por synchronized)
+    private final LinkedHashMap<String, Entrada> entradas;
+
+    // Consultas em andamento, por CEP (coalescência de requisições)
+    private final ConcurrentHashMap<String, CompletableFuture<Entrada>> emAndamento = new ConcurrentHashMap<>();
+
+    // Contadores
+    private final AtomicLong acertos = new AtomicLong();
+    private final AtomicLong falhas = new AtomicLong();
+    private final AtomicLong coalescidas = new AtomicLong();
+    private final AtomicLong remocoes = new AtomicLong();
+    private final AtomicLong expiracoes = new AtomicLong();
+
+    public CepCache(@Value("${app.cep.cache.max-entradas:10000}") int maxEntradas,
+                    @Value("${app.cep.cache.ttl-minutos:1440}") long ttlMinutos,
+                    @Value("${app.cep.cache.ttl-negativo-minutos:10}") long ttlNegativoMinutos) {
+        this.maxEntradas = maxEntradas;
+        this.ttlMillis = ttlMinutos * 60_000L;
+        this.ttlNegativoMillis = ttlNegativoMinutos * 60_000L;
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entrada> maisAntiga) {
+                if (size() > CepCache.this.maxEntradas) {
+                    remocoes.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Retorna o resultado em cache para o CEP (já normalizado com 8 dígitos)
+     * ou executa o carregador uma única vez, mesmo com várias requisições simultâneas
+     * Erros do carregador (falha de rede etc.) não são guardados no cache
+     */
+    public Entrada obter(String cep, Carregador carregador) throws IOException {
+        Entrada emCache = buscarValida(cep);
+        if (emCache != null) {
+            acertos.incrementAndGet();
+            return emCache;
+        }
+        falhas.incrementAndGet();
+
+        CompletableFuture<Entrada> consulta = new CompletableFuture<>();
+        CompletableFuture<Entrada> existente = emAndamento.putIfAbsent(cep, consulta);
+        if (existente != null) {
+            // Outra requisição já está consultando este CEP: aguarda o mesmo resultado
+            coalescidas.incrementAndGet();
+            return aguardar(existente);
+        }
+
+        try {
+            Entrada entrada = carregador.carregar();
+            armazenar(cep, entrada);
+            consulta.complete(entrada);
+            return entrada;
+        } catch (IOException | RuntimeException e) {
+            consulta.completeExceptionally(e);
+            throw e;
+        } finally {
+            emAndamento.remove(cep, consulta);
+        }
+    }
+
+    private synchronized Entrada buscarValida(String cep) {
+        Entrada entrada = entradas.get(cep);
+        if (entrada == null) {
+            return null;
+        }
+        if (entrada.expiraEm < System.currentTimeMillis()) {
+            // Mantida até ser recarregada ou removida pelo LRU: serve de resposta de emergência
+            expiracoes.incrementAndGet();
+            return null;
+        }
+        return entrada;
+    }
+
+    private synchronized void armazenar(String cep, Entrada entrada) {
+        long ttl = entrada.isNaoEncontrado() ? ttlNegativoMillis : ttlMillis;
+        entrada.expiraEm = System.currentTimeMillis() + ttl;
+        entradas.put(cep, entrada);
+    }
+
+    private Entrada aguardar(CompletableFuture<Entrada> consulta) throws IOException {
+        try {
+            return consulta.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Consulta de CEP interrompida");
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof IOException io) {
+                throw io;
+            }
+            if (causa instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IOException(causa);
+        }
+    }
+
+    /**
+     * Última resposta conhecida para o CEP, mesmo que já expirada (ou null)
+     * Usada quando a consulta externa está indisponível
+     */
+    public synchronized Entrada obterUltimaConhecida(String cep) {
+        return entradas.get(cep);
+    }
+
+    /**
+     * Remove todas as entradas (os contadores são mantidos)
+     */
+    public synchronized void limpar() {
+        entradas.clear();
+    }
+
+    /**
+     * Contadores para dimensionamento do cache
+     */
+    public Map<String, Object> getEstatisticas() {
+        Map<String, Object> estatisticas = new LinkedHashMap<>();
+        long totalAcertos = acertos.get();
+        long totalFalhas = falhas.get();
+        long total = totalAcertos + totalFalhas;
+
+        synchronized (this) {
+            estatisticas.put("tamanho", entradas.size());
+        }
+        estatisticas.put("maxEntradas", maxEntradas);
+        estatisticas.put("acertos", totalAcertos);
+        estatisticas.put("falhas", totalFalhas);
+        estatisticas.put("taxaAcerto", total == 0 ? 0.0 : (double) totalAcertos / total);
+        estatisticas.put("coalescidas", coalescidas.get());
+        estatisticas.put("remocoes", remocoes.get());
+        estatisticas.put("expiracoes", expiracoes.get());
+        return estatisticas;
+    }
+
+    /**
+     * Consulta externa executada em caso de falha no cache
+     */
+    @FunctionalInterface
+    public interface Carregador {
+        Entrada carregar() throws IOException;
+    }
+
+    /**
+     * Resultado guardado no cache: informações do CEP ou "CEP não encontrado"
+     */
+    public static class Entrada {
+        private final ShippingService.CepInfo cepInfo;
+        private long expiraEm;
+
+        private Entrada(ShippingService.CepInfo cepInfo) {
+            this.cepInfo = cepInfo;
+        }
+
+        public static Entrada encontrado(ShippingService.CepInfo cepInfo) {
+            return new Entrada(cepInfo);
+        }
+
+        public static Entrada naoEncontrado() {
+            return new Entrada(null);
+        }
+
+        public ShippingService.CepInfo getCepInfo() { return cepInfo; }
+
+        public boolean isNaoEncontrado() { return cepInfo == null; }
+    }
+}
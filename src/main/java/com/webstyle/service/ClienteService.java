@@ -11,6 +11,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.Period;
+import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -389,6 +390,23 @@ public class ClienteService {
         return clienteRepository.findById(id).orElse(null);
     }
     
+    /**
+     * Busca cliente por ID com todos os endereços carregados (uma única consulta)
+     * Os endereços são LAZY: use este método quando a tela precisar deles (perfil)
+     */
+    @Transactional(readOnly = true)
+    public Cliente buscarPorIdComEnderecos(Long id) {
+        return clienteRepository.findComEnderecosById(id).orElse(null);
+    }
+    
+    /**
+     * Endereços de entrega ativos do cliente (checkout)
+     */
+    @Transactional(readOnly = true)
+    public List<Endereco> listarEnderecosEntrega(Long clienteId) {
+        return enderecoRepository.findByClienteIdAndFaturamentoFalseAndAtivoTrueOrderById(clienteId);
+    }
+    
     /**
      * Busca cliente por email
      */
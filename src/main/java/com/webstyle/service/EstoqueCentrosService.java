@@ -0,0 +1,197 @@
+package com.webstyle.service;
+
+import com.webstyle.repository.EstoqueCentroRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Estoque por centro de distribuição (estoque_centros)
+ * - A alocação dos itens nos centros é a mesma na cotação do frete e na baixa do pedido:
+ *   o centro mais próximo que tem todos os itens; se nenhum tiver, cada linha sai do centro
+ *   mais próximo com estoque (podendo ser fracionada) e o que faltar sai do centro principal
+ * - A soma dos centros acompanha o estoque total do produto (products.quantidade_estoque)
+ *   quando o administrador cadastra o produto ou altera o estoque
+ * Produtos sem estoque por centro cadastrado ficam disponíveis só no centro principal (o primeiro)
+ */
+@Service
+public class EstoqueCentrosService {
+
+    private final EstoqueCentroRepository estoqueCentroRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final GeoDistanciaIndex geoDistanciaIndex;
+
+    public EstoqueCentrosService(EstoqueCentroRepository estoqueCentroRepository,
+                                 JdbcTemplate jdbcTemplate,
+                                 GeoDistanciaIndex geoDistanciaIndex) {
+        this.estoqueCentroRepository = estoqueCentroRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.geoDistanciaIndex = geoDistanciaIndex;
+    }
+
+    public List<CentroDistribuicao> getCentros() {
+        return geoDistanciaIndex.getCentros();
+    }
+
+    /**
+     * Matriz de estoque [linha][centro] com uma única consulta (linhas na ordem de produtoIds)
+     */
+    public int[][] carregarEstoque(List<Long> produtoIds) {
+        List<CentroDistribuicao> centros = getCentros();
+        Map<String, Integer> indiceCentros = new HashMap<>();
+        for (int c = 0; c < centros.size(); c++) {
+            indiceCentros.put(centros.get(c).getCodigo(), c);
+        }
+
+        Map<Long, int[]> porProduto = new HashMap<>();
+        Set<Long> distintos = new HashSet<>(produtoIds);
+        if (!distintos.isEmpty()) {
+            for (Object[] linha : estoqueCentroRepository.findQuantidadesPorCentro(distintos)) {
+                Integer centro = indiceCentros.get((String) linha[1]);
+                if (centro != null) {
+                    porProduto.computeIfAbsent((Long) linha[0], id -> new int[centros.size()])[centro] = (Integer) linha[2];
+                }
+            }
+        }
+
+        int[][] estoque = new int[produtoIds.size()][];
+        for (int i = 0; i < produtoIds.size(); i++) {
+            int[] quantidades = porProduto.get(produtoIds.get(i));
+            if (quantidades == null) {
+                quantidades = new int[centros.size()];
+                quantidades[0] = Integer.MAX_VALUE;
+            }
+            estoque[i] = quantidades;
+        }
+        return estoque;
+    }
+
+    /**
+     * Quantidade de cada linha que sai de cada centro [linha][centro]
+     *
+     * @param quantidades quantidade pedida de cada linha
+     * @param estoque     matriz de carregarEstoque
+     * @param distancias  distância do destino até cada centro (mesma ordem de getCentros())
+     */
+    public int[][] alocar(int[] quantidades, int[][] estoque, double[] distancias) {
+        int totalCentros = distancias.length;
+        Integer[] porDistancia = new Integer[totalCentros];
+        for (int c = 0; c < totalCentros; c++) {
+            porDistancia[c] = c;
+        }
+        Arrays.sort(porDistancia, Comparator.comparingDouble(c -> distancias[c]));
+
+        int[][] alocacao = new int[quantidades.length][totalCentros];
+
+        // Um único centro com todos os itens: o mais próximo
+        for (int c : porDistancia) {
+            if (atendeTodos(quantidades, estoque, c)) {
+                for (int i = 0; i < quantidades.length; i++) {
+                    alocacao[i][c] = quantidades[i];
+                }
+                return alocacao;
+            }
+        }
+
+        // Envio dividido: cada linha prefere um centro com ela completa; senão fraciona pelo mais próximo
+        for (int i = 0; i < quantidades.length; i++) {
+            int falta = quantidades[i];
+            for (int c : porDistancia) {
+                if (estoque[i][c] >= falta) {
+                    alocacao[i][c] = falta;
+                    falta = 0;
+                    break;
+                }
+            }
+            for (int c : porDistancia) {
+                if (falta == 0) {
+                    break;
+                }
+                int quantidade = Math.min(falta, estoque[i][c]);
+                alocacao[i][c] += quantidade;
+                falta -= quantidade;
+            }
+            alocacao[i][0] += falta;
+        }
+        return alocacao;
+    }
+
+    /**
+     * Ajusta o estoque dos centros do produto para somar o novo total
+     * - Aumento entra no centro principal
+     * - Redução sai primeiro do centro principal, depois dos demais (maior estoque primeiro)
+     * A linha do produto é bloqueada antes da leitura, como na reserva do pedido,
+     * para não perder uma baixa feita ao mesmo tempo
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void ajustarTotal(Long produtoId, int total) {
+        jdbcTemplate.queryForList("SELECT id FROM products WHERE id = ? FOR UPDATE", Long.class, produtoId);
+
+        String principal = getCentros().get(0).getCodigo();
+        Map<String, Integer> atuais = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT centro_codigo, quantidade FROM estoque_centros WHERE produto_id = ? " +
+                        "ORDER BY quantidade DESC, centro_codigo",
+                rs -> {
+                    atuais.put(rs.getString("centro_codigo"), rs.getInt("quantidade"));
+                }, produtoId);
+
+        if (!atuais.containsKey(principal)) {
+            jdbcTemplate.update("INSERT INTO estoque_centros (produto_id, centro_codigo, quantidade) VALUES (?, ?, 0)",
+                    produtoId, principal);
+            atuais.put(principal, 0);
+        }
+
+        int diferenca = total - atuais.values().stream().mapToInt(Integer::intValue).sum();
+        if (diferenca == 0) {
+            return;
+        }
+
+        Map<String, Integer> novos = new LinkedHashMap<>(atuais);
+        if (diferenca > 0) {
+            novos.merge(principal, diferenca, Integer::sum);
+        } else {
+            List<String> ordem = new ArrayList<>();
+            ordem.add(principal);
+            for (String centro : atuais.keySet()) {
+                if (!centro.equals(principal)) {
+                    ordem.add(centro);
+                }
+            }
+            int falta = -diferenca;
+            for (String centro : ordem) {
+                int retirada = Math.min(falta, novos.get(centro));
+                novos.put(centro, novos.get(centro) - retirada);
+                falta -= retirada;
+            }
+        }
+
+        List<Object[]> alteracoes = new ArrayList<>();
+        for (Map.Entry<String, Integer> centro : novos.entrySet()) {
+            if (!centro.getValue().equals(atuais.get(centro.getKey()))) {
+                alteracoes.add(new Object[] { centro.getValue(), produtoId, centro.getKey() });
+            }
+        }
+        jdbcTemplate.batchUpdate("UPDATE estoque_centros SET quantidade = ? WHERE produto_id = ? AND centro_codigo = ?",
+                alteracoes);
+    }
+
+    private boolean atendeTodos(int[] quantidades, int[][] estoque, int centro) {
+        for (int i = 0; i < quantidades.length; i++) {
+            if (estoque[i][centro] < quantidades[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,455 @@
+package com.webstyle.service;
+
+import com.webstyle.model.ProdutoSnapshot;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Filtros por facetas do catálogo (faixa de preço, avaliação mínima, em estoque, ativo)
+ * Cada produto recebe um ordinal (posição em ordem de cadastro) e cada valor de faceta
+ * guarda um BitSet com os ordinais dos produtos que o possuem:
+ * - Dentro da mesma faceta as opções combinam com OU, entre facetas com E
+ * - As contagens de cada faceta consideram os filtros das outras facetas (não o dela mesma),
+ *   para mostrar quantos produtos o cliente encontraria ao mudar aquela opção
+ * Tudo em memória, sem SQL por requisição; atualizado a cada ProdutoAlteradoEvent
+ */
+@Component
+public class FacetasCatalogoIndex {
+
+    // Avaliações de 1.0 a 5.0, de 0.5 em 0.5
+    private static final int PASSOS_AVALIACAO = 9;
+
+    private final CatalogoCache catalogoCache;
+
+    // Limites das faixas de preço (faixa i = [limite i-1, limite i))
+    private final BigDecimal[] limitesPreco;
+
+    // Estado dos índices (protegido pelo lock)
+    private final Map<Long, Integer> ordinais = new HashMap<>();
+    private long[] idsPorOrdinal = new long[64];
+    private int totalOrdinais;
+    private final BitSet existentes = new BitSet();
+    private final BitSet ativos = new BitSet();
+    private final BitSet emEstoque = new BitSet();
+    private final BitSet[] faixasPreco;
+    private final BitSet[] avaliacoes = novosBitSets(PASSOS_AVALIACAO);
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Alterações recebidas durante a carga completa (null fora dela), reaplicadas sobre a leitura
+    private Map<Long, ProdutoSnapshot> alteradosDuranteCarga;
+
+    public FacetasCatalogoIndex(CatalogoCache catalogoCache,
+                                @Value("${app.catalogo.faixas-preco:50,100,200,500}") String faixasPreco) {
+        this.catalogoCache = catalogoCache;
+        this.limitesPreco = Arrays.stream(faixasPreco.split(","))
+                .map(String::trim)
+                .filter(limite -> !limite.isEmpty())
+                .map(BigDecimal::new)
+                .sorted()
+                .toArray(BigDecimal[]::new);
+        this.faixasPreco = novosBitSets(limitesPreco.length + 1);
+    }
+
+    /**
+     * A leitura do banco é feita sem o lock; alterações que chegam enquanto isso são
+     * registradas e reaplicadas depois, para não serem sobrescritas pela leitura mais antiga
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregar() {
+        lock.writeLock().lock();
+        try {
+            alteradosDuranteCarga = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        // Ordinais em ordem de cadastro: percorrer do maior para o menor lista os mais recentes primeiro
+        List<ProdutoSnapshot> produtos = catalogoCache.lerTodosSemImagens();
+
+        lock.writeLock().lock();
+        try {
+            ordinais.clear();
+            totalOrdinais = 0;
+            for (BitSet bitSet : todos()) {
+                bitSet.clear();
+            }
+            for (ProdutoSnapshot produto : produtos) {
+                indexar(produto);
+            }
+            alteradosDuranteCarga.forEach(this::aplicar);
+            alteradosDuranteCarga = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("Facetas do catálogo carregadas: " + produtos.size() + " produtos, "
+                + faixasPreco.length + " faixas de preço");
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void aoAlterarProduto(ProdutoAlteradoEvent evento) {
+        // O CatalogoCache já descartou a versão antiga (ouvinte com prioridade)
+        Map<Long, ProdutoSnapshot> produtos = evento.isExcluido()
+                ? Map.of() : catalogoCache.obterVarios(evento.getProdutoIds());
+
+        lock.writeLock().lock();
+        try {
+            for (Long produtoId : evento.getProdutoIds()) {
+                ProdutoSnapshot produto = produtos.get(produtoId);
+                if (alteradosDuranteCarga != null) {
+                    alteradosDuranteCarga.put(produtoId, produto);
+                }
+                aplicar(produtoId, produto);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Aplica o filtro e calcula as contagens de cada faceta
+     *
+     * @param idsBusca resultado da busca textual em ordem de relevância (null = sem busca:
+     *                 produtos mais recentes primeiro)
+     * @param inicio   posição do primeiro produto da página no resultado
+     * @param quantidade tamanho da página
+     */
+    public Resultado filtrar(Filtro filtro, List<Long> idsBusca, int inicio, int quantidade) {
+        lock.readLock().lock();
+        try {
+            BitSet base = (BitSet) existentes.clone();
+            if (idsBusca != null) {
+                base.and(bitSetDos(idsBusca));
+            }
+
+            BitSet mascaraAtivo = filtro.getAtivo() == null ? null
+                    : filtro.getAtivo() ? ativos : complemento(ativos);
+            BitSet mascaraPreco = uniao(faixasPreco, filtro.getFaixasPreco());
+            BitSet mascaraAvaliacao = filtro.getAvaliacaoMinima() == null ? null
+                    : uniaoAPartirDe(avaliacoes, passoAvaliacao(filtro.getAvaliacaoMinima()));
+            BitSet mascaraEstoque = filtro.isSomenteEmEstoque() ? emEstoque : null;
+
+            // Resultado: todas as facetas aplicadas
+            BitSet resultado = intersecao(base, mascaraAtivo, mascaraPreco, mascaraAvaliacao, mascaraEstoque);
+
+            // Contagens: cada faceta com os filtros das demais
+            BitSet semPreco = intersecao(base, mascaraAtivo, mascaraAvaliacao, mascaraEstoque);
+            int[] porFaixa = new int[faixasPreco.length];
+            for (int i = 0; i < faixasPreco.length; i++) {
+                porFaixa[i] = contarIntersecao(semPreco, faixasPreco[i]);
+            }
+
+            BitSet semAvaliacao = intersecao(base, mascaraAtivo, mascaraPreco, mascaraEstoque);
+            int[] aPartirDe = new int[PASSOS_AVALIACAO];
+            int acumulado = 0;
+            for (int passo = PASSOS_AVALIACAO - 1; passo >= 0; passo--) {
+                acumulado += contarIntersecao(semAvaliacao, avaliacoes[passo]);
+                aPartirDe[passo] = acumulado;
+            }
+
+            int comEstoque = contarIntersecao(intersecao(base, mascaraAtivo, mascaraPreco, mascaraAvaliacao), emEstoque);
+            int comAtivo = contarIntersecao(intersecao(base, mascaraPreco, mascaraAvaliacao, mascaraEstoque), ativos);
+
+            List<Long> idsPagina = idsBusca != null
+                    ? paginaNaOrdem(idsBusca, resultado, inicio, quantidade)
+                    : paginaMaisRecentes(resultado, inicio, quantidade);
+
+            return new Resultado(idsPagina, resultado.cardinality(), montarOpcoesPreco(porFaixa, filtro),
+                    montarOpcoesAvaliacao(aPartirDe, filtro), comEstoque, comAtivo);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===== ATUALIZAÇÃO (chamada com o lock de escrita) =====
+
+    /**
+     * Reindexa o produto (null = excluído)
+     */
+    private void aplicar(Long produtoId, ProdutoSnapshot produto) {
+        if (produto != null) {
+            indexar(produto);
+        } else {
+            Integer ordinal = ordinais.remove(produtoId);
+            if (ordinal != null) {
+                limpar(ordinal);
+            }
+        }
+    }
+
+    private void indexar(ProdutoSnapshot produto) {
+        Integer ordinal = ordinais.get(produto.getId());
+        if (ordinal == null) {
+            // Produto novo: próximo ordinal (o mais recente)
+            ordinal = totalOrdinais++;
+            if (ordinal == idsPorOrdinal.length) {
+                idsPorOrdinal = Arrays.copyOf(idsPorOrdinal, ordinal * 2);
+            }
+            idsPorOrdinal[ordinal] = produto.getId();
+            ordinais.put(produto.getId(), ordinal);
+        } else {
+            limpar(ordinal);
+        }
+
+        existentes.set(ordinal);
+        if (produto.isAtivo()) {
+            ativos.set(ordinal);
+        }
+        if (produto.getQuantidadeEstoque() != null && produto.getQuantidadeEstoque() > 0) {
+            emEstoque.set(ordinal);
+        }
+        if (produto.getPreco() != null) {
+            faixasPreco[faixaPreco(produto.getPreco())].set(ordinal);
+        }
+        if (produto.getAvaliacao() != null) {
+            avaliacoes[passoAvaliacao(produto.getAvaliacao())].set(ordinal);
+        }
+    }
+
+    /**
+     * Remove o ordinal de todos os índices (ordinais de produtos excluídos não são reaproveitados,
+     * para manter a ordem de cadastro; a carga seguinte compacta)
+     */
+    private void limpar(int ordinal) {
+        for (BitSet bitSet : todos()) {
+            bitSet.clear(ordinal);
+        }
+    }
+
+    private List<BitSet> todos() {
+        List<BitSet> todos = new ArrayList<>(Arrays.asList(faixasPreco));
+        todos.addAll(Arrays.asList(avaliacoes));
+        todos.add(existentes);
+        todos.add(ativos);
+        todos.add(emEstoque);
+        return todos;
+    }
+
+    // ===== OPERAÇÕES DE BITSET =====
+
+    private int faixaPreco(BigDecimal preco) {
+        int faixa = 0;
+        while (faixa < limitesPreco.length && preco.compareTo(limitesPreco[faixa]) >= 0) {
+            faixa++;
+        }
+        return faixa;
+    }
+
+    private static int passoAvaliacao(BigDecimal avaliacao) {
+        int passo = avaliacao.multiply(BigDecimal.valueOf(2)).intValue() - 2;
+        return Math.max(0, Math.min(PASSOS_AVALIACAO - 1, passo));
+    }
+
+    private BitSet bitSetDos(List<Long> ids) {
+        BitSet bitSet = new BitSet(totalOrdinais);
+        for (Long id : ids) {
+            Integer ordinal = ordinais.get(id);
+            if (ordinal != null) {
+                bitSet.set(ordinal);
+            }
+        }
+        return bitSet;
+    }
+
+    private BitSet complemento(BitSet bitSet) {
+        BitSet complemento = (BitSet) existentes.clone();
+        complemento.andNot(bitSet);
+        return complemento;
+    }
+
+    /**
+     * OU das opções selecionadas da faceta (null = nenhuma selecionada, faceta não filtra)
+     */
+    private static BitSet uniao(BitSet[] opcoes, List<Integer> selecionadas) {
+        if (selecionadas == null || selecionadas.isEmpty()) {
+            return null;
+        }
+        BitSet uniao = new BitSet();
+        for (Integer opcao : selecionadas) {
+            if (opcao != null && opcao >= 0 && opcao < opcoes.length) {
+                uniao.or(opcoes[opcao]);
+            }
+        }
+        return uniao;
+    }
+
+    private static BitSet uniaoAPartirDe(BitSet[] opcoes, int primeira) {
+        BitSet uniao = new BitSet();
+        for (int i = primeira; i < opcoes.length; i++) {
+            uniao.or(opcoes[i]);
+        }
+        return uniao;
+    }
+
+    private static BitSet intersecao(BitSet base, BitSet... mascaras) {
+        BitSet resultado = (BitSet) base.clone();
+        for (BitSet mascara : mascaras) {
+            if (mascara != null) {
+                resultado.and(mascara);
+            }
+        }
+        return resultado;
+    }
+
+    private static int contarIntersecao(BitSet a, BitSet b) {
+        BitSet copia = (BitSet) a.clone();
+        copia.and(b);
+        return copia.cardinality();
+    }
+
+    private List<Long> paginaMaisRecentes(BitSet resultado, int inicio, int quantidade) {
+        List<Long> ids = new ArrayList<>(quantidade);
+        int posicao = 0;
+        for (int ordinal = resultado.previousSetBit(totalOrdinais - 1);
+             ordinal >= 0 && ids.size() < quantidade;
+             ordinal = resultado.previousSetBit(ordinal - 1)) {
+            if (posicao++ >= inicio) {
+                ids.add(idsPorOrdinal[ordinal]);
+            }
+        }
+        return ids;
+    }
+
+    private List<Long> paginaNaOrdem(List<Long> idsBusca, BitSet resultado, int inicio, int quantidade) {
+        List<Long> ids = new ArrayList<>(quantidade);
+        int posicao = 0;
+        for (Long id : idsBusca) {
+            if (ids.size() >= quantidade) {
+                break;
+            }
+            Integer ordinal = ordinais.get(id);
+            if (ordinal != null && resultado.get(ordinal) && posicao++ >= inicio) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    // ===== OPÇÕES EXIBIDAS =====
+
+    private List<Opcao> montarOpcoesPreco(int[] porFaixa, Filtro filtro) {
+        List<Opcao> opcoes = new ArrayList<>(porFaixa.length);
+        for (int faixa = 0; faixa < porFaixa.length; faixa++) {
+            String rotulo;
+            if (faixa == 0) {
+                rotulo = "Até R$ " + limitesPreco[0].toPlainString();
+            } else if (faixa == limitesPreco.length) {
+                rotulo = "Acima de R$ " + limitesPreco[faixa - 1].toPlainString();
+            } else {
+                rotulo = "R$ " + limitesPreco[faixa - 1].toPlainString() + " a R$ " + limitesPreco[faixa].toPlainString();
+            }
+            boolean selecionada = filtro.getFaixasPreco() != null && filtro.getFaixasPreco().contains(faixa);
+            opcoes.add(new Opcao(String.valueOf(faixa), rotulo, porFaixa[faixa], selecionada));
+        }
+        return opcoes;
+    }
+
+    private static List<Opcao> montarOpcoesAvaliacao(int[] aPartirDe, Filtro filtro) {
+        List<Opcao> opcoes = new ArrayList<>(PASSOS_AVALIACAO);
+        Integer selecionado = filtro.getAvaliacaoMinima() != null ? passoAvaliacao(filtro.getAvaliacaoMinima()) : null;
+        // Da maior para a menor (como as lojas costumam exibir "4.5 ou mais", "4.0 ou mais"...)
+        for (int passo = PASSOS_AVALIACAO - 1; passo >= 0; passo--) {
+            String valor = BigDecimal.valueOf(passo + 2).divide(BigDecimal.valueOf(2)).setScale(1).toPlainString();
+            opcoes.add(new Opcao(valor, valor + " ou mais", aPartirDe[passo], Integer.valueOf(passo).equals(selecionado)));
+        }
+        return opcoes;
+    }
+
+    private static BitSet[] novosBitSets(int quantidade) {
+        BitSet[] bitSets = new BitSet[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            bitSets[i] = new BitSet();
+        }
+        return bitSets;
+    }
+
+    /**
+     * Filtro escolhido pelo usuário (campos nulos/vazios não filtram)
+     */
+    public static class Filtro {
+        private List<Integer> faixasPreco = Collections.emptyList();
+        private BigDecimal avaliacaoMinima;
+        private boolean somenteEmEstoque;
+        private Boolean ativo;
+
+        public List<Integer> getFaixasPreco() { return faixasPreco; }
+        public void setFaixasPreco(List<Integer> faixasPreco) { this.faixasPreco = faixasPreco; }
+
+        public BigDecimal getAvaliacaoMinima() { return avaliacaoMinima; }
+        public void setAvaliacaoMinima(BigDecimal avaliacaoMinima) { this.avaliacaoMinima = avaliacaoMinima; }
+
+        public boolean isSomenteEmEstoque() { return somenteEmEstoque; }
+        public void setSomenteEmEstoque(boolean somenteEmEstoque) { this.somenteEmEstoque = somenteEmEstoque; }
+
+        public Boolean getAtivo() { return ativo; }
+        public void setAtivo(Boolean ativo) { this.ativo = ativo; }
+
+        public boolean isVazio() {
+            return (faixasPreco == null || faixasPreco.isEmpty()) && avaliacaoMinima == null && !somenteEmEstoque;
+        }
+    }
+
+    /**
+     * Ids da página (na ordem de exibição), total filtrado e contagens das facetas
+     */
+    public static class Resultado {
+        private final List<Long> idsPagina;
+        private final int total;
+        private final List<Opcao> faixasPreco;
+        private final List<Opcao> avaliacoes;
+        private final int emEstoque;
+        private final int ativos;
+
+        public Resultado(List<Long> idsPagina, int total, List<Opcao> faixasPreco, List<Opcao> avaliacoes,
+                         int emEstoque, int ativos) {
+            this.idsPagina = idsPagina;
+            this.total = total;
+            this.faixasPreco = faixasPreco;
+            this.avaliacoes = avaliacoes;
+            this.emEstoque = emEstoque;
+            this.ativos = ativos;
+        }
+
+        public List<Long> getIdsPagina() { return idsPagina; }
+        public int getTotal() { return total; }
+        public List<Opcao> getFaixasPreco() { return faixasPreco; }
+        public List<Opcao> getAvaliacoes() { return avaliacoes; }
+        public int getEmEstoque() { return emEstoque; }
+        public int getAtivos() { return ativos; }
+    }
+
+    /**
+     * Opção de uma faceta com a quantidade de produtos que ela traria
+     */
+    public static class Opcao {
+        private final String valor;
+        private final String rotulo;
+        private final int quantidade;
+        private final boolean selecionada;
+
+        public Opcao(String valor, String rotulo, int quantidade, boolean selecionada) {
+            this.valor = valor;
+            this.rotulo = rotulo;
+            this.quantidade = quantidade;
+            this.selecionada = selecionada;
+        }
+
+        public String getValor() { return valor; }
+        public String getRotulo() { return rotulo; }
+        public int getQuantidade() { return quantidade; }
+        public boolean isSelecionada() { return selecionada; }
+    }
+}
@@ -1,32 +1,120 @@
 package com.webstyle.service;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Armazenamento das imagens endereçado pelo conteúdo
+ * - O arquivo recebe o nome do SHA-256 do conteúdo, calculado durante a cópia (uma única leitura)
+ * - Subdiretórios pelos primeiros caracteres do hash (ab/cd/abcd...png): diretórios de tamanho limitado
+ * - O mesmo conteúdo enviado de novo reaproveita o arquivo existente (não ocupa disco)
+ * - Contagem de referências pelas linhas de product_images: o arquivo só é apagado quando
+ *   nenhuma imagem usa mais aquele conteúdo
+ * - Os arquivos de um mesmo envio são gravados em paralelo
+ */
 @Service
 public class FileUploadService {
 
+    // Extensões equivalentes gravadas com o mesmo nome (o mesmo conteúdo gera o mesmo arquivo)
+    private static final Map<String, String> EXTENSOES = Map.of("jpeg", "jpg", "jpe", "jpg", "tiff", "tif");
+
+    private static final int TRAVAS = 64;
+
     @Value("${app.upload.dir:uploads/products}")
     private String uploadDir;
 
+    @Autowired
+    private MetadadosImagemCache metadadosImagemCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.upload.threads:4}")
+    private int threadsGravacao;
+
+    // Gravação paralela dos arquivos de um mesmo envio
+    private ExecutorService executorGravacao;
+
+    // Gravação e exclusão do mesmo arquivo são serializadas pela trava do caminho
+    private final Object[] travas = new Object[TRAVAS];
+
+    // Arquivos gravados por transações ainda não concluídas (a linha de product_images ainda não é visível)
+    private final Map<String, Integer> reservados = new ConcurrentHashMap<>();
+
+    public FileUploadService() {
+        for (int i = 0; i < TRAVAS; i++) {
+            travas[i] = new Object();
+        }
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        AtomicInteger contador = new AtomicInteger();
+        this.executorGravacao = new ThreadPoolExecutor(threadsGravacao, threadsGravacao, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(64), tarefa -> {
+                    Thread thread = new Thread(tarefa, "upload-" + contador.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executorGravacao.shutdownNow();
+    }
+
     public String salvarArquivo(MultipartFile file) throws IOException {
+        return salvarArquivos(List.of(file)).get(0);
+    }
+
+    /**
+     * Grava os arquivos em paralelo (pool limitado) e devolve os caminhos na mesma ordem
+     * Todos são validados antes de gravar; se algum falhar, os já gravados ficam sem
+     * referência e são apagados ao fim da transação
+     */
+    public List<String> salvarArquivos(List<MultipartFile> arquivos) throws IOException {
         // Validações básicas
-        if (file.isEmpty()) {
-            throw new IOException("Arquivo está vazio");
-        }
+        for (MultipartFile file : arquivos) {
+            if (file.isEmpty()) {
+                throw new IOException("Arquivo está vazio");
+            }
 
-        // Validar tipo de arquivo (apenas imagens)
-        String contentType = file.getContentType();
-        if (contentType == null || !contentType.startsWith("image/")) {
-            throw new IOException("Arquivo deve ser uma imagem");
+            // Validar tipo de arquivo (apenas imagens)
+            String contentType = file.getContentType();
+            if (contentType == null || !contentType.startsWith("image/")) {
+                throw new IOException("Arquivo deve ser uma imagem");
+            }
         }
 
         // Criar diretório se não existir
@@ -35,27 +123,117 @@ public class FileUploadService {
             Files.createDirectories(uploadPath);
         }
 
-        // Gerar nome único para o arquivo
-        String originalFileName = file.getOriginalFilename();
-        String fileExtension = "";
-        if (originalFileName != null && originalFileName.contains(".")) {
-            fileExtension = originalFileName.substring(originalFileName.lastIndexOf("."));
+        boolean emTransacao = TransactionSynchronizationManager.isSynchronizationActive();
+        List<String> caminhos = new ArrayList<>(arquivos.size());
+        IOException erro = null;
+
+        if (arquivos.size() == 1) {
+            caminhos.add(gravar(arquivos.get(0), uploadPath, emTransacao));
+        } else {
+            List<Future<String>> gravacoes = new ArrayList<>(arquivos.size());
+            for (MultipartFile file : arquivos) {
+                gravacoes.add(executorGravacao.submit(() -> gravar(file, uploadPath, emTransacao)));
+            }
+            // Espera todas (mesmo após uma falha) para saber quais arquivos foram gravados
+            for (Future<String> gravacao : gravacoes) {
+                try {
+                    caminhos.add(gravacao.get());
+                } catch (ExecutionException e) {
+                    if (erro == null) {
+                        erro = e.getCause() instanceof IOException ? (IOException) e.getCause()
+                                : new IOException("Erro ao gravar arquivo: " + e.getCause().getMessage(), e.getCause());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    if (erro == null) {
+                        erro = new IOException("Gravação dos arquivos interrompida");
+                    }
+                }
+            }
         }
 
-        String uniqueFileName = UUID.randomUUID().toString() + fileExtension;
-        
-        // Salvar arquivo
-        Path filePath = uploadPath.resolve(uniqueFileName);
-        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+        if (emTransacao) {
+            liberarAoConcluir(caminhos);
+        } else if (erro != null) {
+            caminhos.forEach(caminho -> excluirSemReferencias(caminho, List.of(caminho)));
+        }
+        if (erro != null) {
+            throw erro;
+        }
 
         // Retornar o caminho relativo
-        return uploadDir + "/" + uniqueFileName;
+        return caminhos;
+    }
+
+    /**
+     * Copia para um arquivo temporário calculando o hash no caminho e move para o nome definitivo
+     */
+    private String gravar(MultipartFile file, Path uploadPath, boolean reservar) throws IOException {
+        Path temporario = uploadPath.resolve(".envio-" + UUID.randomUUID() + ".tmp");
+        String hash;
+        try (InputStream entrada = file.getInputStream()) {
+            hash = copiarComHash(entrada, temporario);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporario);
+            throw e;
+        }
+
+        String caminhoRelativo = hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash + extensao(file.getOriginalFilename());
+        String caminhoArquivo = uploadDir + "/" + caminhoRelativo;
+        Path filePath = uploadPath.resolve(caminhoRelativo);
+
+        synchronized (trava(caminhoArquivo)) {
+            if (Files.exists(filePath)) {
+                // Conteúdo já armazenado: descarta a cópia
+                Files.deleteIfExists(temporario);
+            } else {
+                Files.createDirectories(filePath.getParent());
+                Files.move(temporario, filePath, StandardCopyOption.ATOMIC_MOVE);
+            }
+            if (reservar) {
+                reservados.merge(caminhoArquivo, 1, Integer::sum);
+            }
+        }
+        return caminhoArquivo;
+    }
+
+    /**
+     * Libera os arquivos de uma imagem removida (original e versões redimensionadas)
+     * Só apaga se nenhuma linha de product_images usar mais o mesmo original; dentro de
+     * uma transação, a verificação é feita após o commit (quando a linha já foi removida)
+     */
+    public void liberarArquivos(String caminhoOriginal, List<String> caminhos) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    excluirSemReferencias(caminhoOriginal, caminhos);
+                }
+            });
+        } else {
+            excluirSemReferencias(caminhoOriginal, caminhos);
+        }
+    }
+
+    private void excluirSemReferencias(String caminhoOriginal, List<String> caminhos) {
+        synchronized (trava(caminhoOriginal)) {
+            if (reservados.containsKey(caminhoOriginal)) {
+                return;
+            }
+            Integer referencias = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM product_images WHERE caminho_arquivo = ?", Integer.class, caminhoOriginal);
+            if (referencias != null && referencias > 0) {
+                return;
+            }
+            caminhos.forEach(this::deletarArquivo);
+        }
     }
 
     public void deletarArquivo(String caminhoArquivo) {
         try {
             Path filePath = Paths.get(caminhoArquivo);
             Files.deleteIfExists(filePath);
+            metadadosImagemCache.remover(nomeNoDiretorio(filePath));
         } catch (IOException e) {
             // Log do erro, mas não quebra o fluxo
             System.err.println("Erro ao deletar arquivo: " + e.getMessage());
@@ -65,4 +243,73 @@ public class FileUploadService {
     public boolean arquivoExiste(String caminhoArquivo) {
         return Files.exists(Paths.get(caminhoArquivo));
     }
-}
\ No newline at end of file
+
+    // ===== REFERÊNCIAS PENDENTES =====
+
+    /**
+     * Enquanto a transação do upload não termina, o arquivo não pode ser apagado por uma
+     * exclusão concorrente que ainda não enxerga a nova linha; ao fim da transação, o arquivo
+     * que não ficou com nenhuma linha (transação desfeita, falha no envio) é apagado
+     */
+    private void liberarAoConcluir(List<String> caminhos) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                for (String caminhoArquivo : caminhos) {
+                    synchronized (trava(caminhoArquivo)) {
+                        reservados.computeIfPresent(caminhoArquivo, (caminho, quantidade) -> quantidade > 1 ? quantidade - 1 : null);
+                    }
+                    excluirSemReferencias(caminhoArquivo, List.of(caminhoArquivo));
+                }
+            }
+        });
+    }
+
+    private Object trava(String caminhoArquivo) {
+        return travas[Math.floorMod(caminhoArquivo.hashCode(), TRAVAS)];
+    }
+
+    // ===== HASH E NOMES =====
+
+    private static String copiarComHash(InputStream entrada, Path destino) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+
+        byte[] buffer = new byte[64 * 1024];
+        try (OutputStream saida = Files.newOutputStream(destino)) {
+            int lidos;
+            while ((lidos = entrada.read(buffer)) != -1) {
+                digest.update(buffer, 0, lidos);
+                saida.write(buffer, 0, lidos);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String extensao(String nomeOriginal) {
+        if (nomeOriginal == null || nomeOriginal.lastIndexOf('.') < 0) {
+            return "";
+        }
+        String extensao = nomeOriginal.substring(nomeOriginal.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        if (!extensao.matches("[a-z0-9]{1,5}")) {
+            return "";
+        }
+        return "." + EXTENSOES.getOrDefault(extensao, extensao);
+    }
+
+    /**
+     * Nome do arquivo relativo ao diretório de upload (chave do MetadadosImagemCache)
+     */
+    private String nomeNoDiretorio(Path arquivo) {
+        Path diretorio = Paths.get(uploadDir).toAbsolutePath().normalize();
+        Path absoluto = arquivo.toAbsolutePath().normalize();
+        if (!absoluto.startsWith(diretorio)) {
+            return arquivo.getFileName().toString();
+        }
+        return diretorio.relativize(absoluto).toString().replace('\\', '/');
+    }
+}
@@ -0,0 +1,158 @@
+package com.webstyle.service;
+
+import com.webstyle.model.ProductCard;
+import com.webstyle.model.ProdutoSnapshot;
+import jakarta.servlet.ServletContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache do HTML já renderizado dos fragmentos de produto (templates/fragments/produto.html):
+ * card da vitrine e corpo da página de detalhes
+ * - Cada entrada guarda a versão dos dados usada na renderização (o próprio ProductCard ou o
+ *   ProdutoSnapshot do CatalogoCache, mais o idioma): se os dados mudaram, o fragmento é
+ *   renderizado de novo, então o cache nunca serve HTML desatualizado
+ * - Limitado por quantidade de fragmentos (remove o menos usado) e liberado a cada
+ *   ProdutoAlteradoEvent
+ * As páginas continuam sendo montadas pelo Thymeleaf, mas os cards e o detalhe entram prontos
+ */
+@Component
+public class FragmentosHtmlCache {
+
+    private static final String TEMPLATE = "fragments/produto";
+
+    private final SpringTemplateEngine templateEngine;
+    private final JakartaServletWebApplication aplicacaoWeb;
+    private final int maxEntradas;
+
+    // LinkedHashMap em ordem de acesso = LRU (protegido por synchronized)
+    private final LinkedHashMap<String, Fragmento> fragmentos;
+
+    private final AtomicLong acertos = new AtomicLong();
+    private final AtomicLong falhas = new AtomicLong();
+
+    public FragmentosHtmlCache(SpringTemplateEngine templateEngine,
+                               ServletContext servletContext,
+                               @Value("${app.fragmentos.cache.max-entradas:10000}") int maxEntradas) {
+        this.templateEngine = templateEngine;
+        this.aplicacaoWeb = JakartaServletWebApplication.buildApplication(servletContext);
+        this.maxEntradas = maxEntradas;
+        this.fragmentos = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Fragmento> maisAntigo) {
+                return size() > FragmentosHtmlCache.this.maxEntradas;
+            }
+        };
+    }
+
+    /**
+     * HTML dos cards, na ordem informada
+     */
+    public List<String> cards(List<ProductCard> produtos) {
+        List<String> html = new ArrayList<>(produtos.size());
+        for (ProductCard produto : produtos) {
+            html.add(obter("card:" + produto.getId(), produto, "card", Map.of("produto", produto)));
+        }
+        return html;
+    }
+
+    /**
+     * HTML do corpo da página de detalhes do produto
+     */
+    public String detalhe(ProdutoSnapshot produto) {
+        return obter("detalhe:" + produto.getId(), produto, "detalhe",
+                Map.of("produto", produto, "imagens", produto.getImagens()));
+    }
+
+    /**
+     * Libera os fragmentos do produto após o commit da alteração
+     * (a versão já impediria o uso do HTML antigo; aqui só devolve a memória)
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void aoAlterarProduto(ProdutoAlteradoEvent evento) {
+        synchronized (this) {
+            for (Long produtoId : evento.getProdutoIds()) {
+                fragmentos.remove("card:" + produtoId);
+                fragmentos.remove("detalhe:" + produtoId);
+            }
+        }
+    }
+
+    private String obter(String chave, Object dados, String seletor, Map<String, Object> variaveis) {
+        Locale idioma = LocaleContextHolder.getLocale();
+        synchronized (this) {
+            Fragmento fragmento = fragmentos.get(chave);
+            if (fragmento != null && fragmento.dados.equals(dados) && fragmento.idioma.equals(idioma)) {
+                acertos.incrementAndGet();
+                return fragmento.html;
+            }
+        }
+
+        falhas.incrementAndGet();
+        String html = renderizar(seletor, variaveis, idioma);
+        synchronized (this) {
+            fragmentos.put(chave, new Fragmento(dados, idioma, html));
+        }
+        return html;
+    }
+
+    private String renderizar(String seletor, Map<String, Object> variaveis, Locale idioma) {
+        // Contexto web da requisição atual (necessário para as URLs @{...} com o context path)
+        ServletRequestAttributes atributos = (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
+        WebContext contexto = new WebContext(
+                aplicacaoWeb.buildExchange(atributos.getRequest(), Objects.requireNonNull(atributos.getResponse())),
+                idioma, variaveis);
+        return templateEngine.process(TEMPLATE, Set.of(seletor), contexto);
+    }
+
+    /**
+     * Estatísticas do cache (taxa de acerto, para dimensionamento)
+     */
+    public Map<String, Object> getEstatisticas() {
+        Map<String, Object> estatisticas = new LinkedHashMap<>();
+        long totalAcertos = acertos.get();
+        long totalFalhas = falhas.get();
+        long total = totalAcertos + totalFalhas;
+
+        synchronized (this) {
+            estatisticas.put("tamanho", fragmentos.size());
+        }
+        estatisticas.put("maxEntradas", maxEntradas);
+        estatisticas.put("acertos", totalAcertos);
+        estatisticas.put("falhas", totalFalhas);
+        estatisticas.put("taxaAcerto", total == 0 ? 0.0 : (double) totalAcertos / total);
+        return estatisticas;
+    }
+
+    /**
+     * HTML renderizado + dados e idioma usados na renderização (a versão do fragmento)
+     */
+    private static class Fragmento {
+        private final Object dados;
+        private final Locale idioma;
+        private final String html;
+
+        private Fragmento(Object dados, Locale idioma, String html) {
+            this.dados = dados;
+            this.idioma = idioma;
+            this.html = html;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.webstyle.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice de distâncias para o cálculo de frete, por código IBGE do município
+ * As coordenadas vêm de um arquivo de dados (app.frete.municipios) e a distância
+ * de cada município até cada centro de distribuição é calculada uma única vez na carga:
+ * a cotação faz apenas uma consulta O(1) no mapa
+ */
+@Component
+public class GeoDistanciaIndex {
+
+    // Raio médio da Terra (km)
+    private static final double RAIO_TERRA_KM = 6371.0;
+
+    // Fator aproximado entre a distância em linha reta e a distância por estrada
+    private static final double FATOR_ROTA = 1.2;
+
+    // Distância mínima considerada (entrega dentro do mesmo município)
+    private static final double DISTANCIA_MINIMA_KM = 15.0;
+
+    // Usada quando não há código IBGE conhecido nem coordenadas
+    public static final double DISTANCIA_PADRAO_KM = 1500.0;
+
+    private final ResourceLoader resourceLoader;
+    private final String localArquivo;
+    private final List<CentroDistribuicao> centros;
+
+    // IBGE → posição do município; distâncias em blocos de centros.size() por município
+    private Map<String, Integer> posicoes = Collections.emptyMap();
+    private double[] distancias = new double[0];
+
+    public GeoDistanciaIndex(ResourceLoader resourceLoader,
+                             @Value("${app.frete.municipios:classpath:data/municipios.csv}") String localArquivo,
+                             @Value("${app.frete.centros:SP:São Paulo:-23.5505:-46.6333}") String centros) {
+        this.resourceLoader = resourceLoader;
+        this.localArquivo = localArquivo;
+
+        List<CentroDistribuicao> lidos = new ArrayList<>();
+        for (String definicao : centros.split(",")) {
+            if (!definicao.isBlank()) {
+                lidos.add(CentroDistribuicao.parse(definicao));
+            }
+        }
+        if (lidos.isEmpty()) {
+            throw new IllegalArgumentException("Nenhum centro de distribuição configurado (app.frete.centros)");
+        }
+        this.centros = Collections.unmodifiableList(lidos);
+    }
+
+    @PostConstruct
+    public void carregar() throws IOException {
+        Resource arquivo = resourceLoader.getResource(localArquivo);
+        if (!arquivo.exists()) {
+            System.err.println("Coordenadas de municípios não encontradas em " + localArquivo
+                    + " - frete usará apenas as coordenadas do CEP");
+            return;
+        }
+
+        Map<String, Integer> novasPosicoes = new HashMap<>();
+        List<double[]> coordenadas = new ArrayList<>();
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(arquivo.getInputStream(), StandardCharsets.UTF_8))) {
+            String linha;
+            while ((linha = reader.readLine()) != null) {
+                linha = linha.trim();
+                if (linha.isEmpty() || linha.startsWith("#")) {
+                    continue;
+                }
+
+                String[] campos = linha.split(";", -1);
+                if (campos.length != 5) {
+                    throw new IOException("Linha inválida no arquivo de municípios: " + linha);
+                }
+
+                if (novasPosicoes.putIfAbsent(campos[0], coordenadas.size()) == null) {
+                    coordenadas.add(new double[] { Double.parseDouble(campos[3]), Double.parseDouble(campos[4]) });
+                }
+            }
+        }
+
+        int totalCentros = centros.size();
+        double[] novasDistancias = new double[coordenadas.size() * totalCentros];
+        for (int i = 0; i < coordenadas.size(); i++) {
+            double[] coordenada = coordenadas.get(i);
+            for (int c = 0; c < totalCentros; c++) {
+                novasDistancias[i * totalCentros + c] = distanciaEstimada(centros.get(c), coordenada[0], coordenada[1]);
+            }
+        }
+
+        posicoes = novasPosicoes;
+        distancias = novasDistancias;
+
+        System.out.println("Índice de distâncias carregado: " + coordenadas.size() + " municípios, "
+                + totalCentros + " centro(s) de distribuição");
+    }
+
+    /**
+     * Distância estimada (km) do destino até cada centro, na ordem de getCentros()
+     * Usa o índice por IBGE; se o município não estiver no índice, calcula a partir
+     * das coordenadas do próprio CEP (ex.: centroide do estado). Retorna null se não houver nenhum dos dois
+     */
+    public double[] distanciasKm(ShippingService.CepInfo cepInfo) {
+        int totalCentros = centros.size();
+        double[] resultado = new double[totalCentros];
+
+        Integer posicao = cepInfo.getIbge() != null ? posicoes.get(cepInfo.getIbge()) : null;
+        if (posicao != null) {
+            System.arraycopy(distancias, posicao * totalCentros, resultado, 0, totalCentros);
+            return resultado;
+        }
+
+        if (cepInfo.getLatitude() != null && cepInfo.getLongitude() != null) {
+            for (int c = 0; c < totalCentros; c++) {
+                resultado[c] = distanciaEstimada(centros.get(c), cepInfo.getLatitude(), cepInfo.getLongitude());
+            }
+            return resultado;
+        }
+
+        return null;
+    }
+
+    /**
+     * Distância estimada (km) até o centro de distribuição mais próximo
+     */
+    public double distanciaKm(ShippingService.CepInfo cepInfo) {
+        double[] porCentro = distanciasKm(cepInfo);
+        if (porCentro == null) {
+            return DISTANCIA_PADRAO_KM;
+        }
+
+        double menor = porCentro[0];
+        for (int c = 1; c < porCentro.length; c++) {
+            menor = Math.min(menor, porCentro[c]);
+        }
+        return menor;
+    }
+
+    public List<CentroDistribuicao> getCentros() {
+        return centros;
+    }
+
+    public int getTotalMunicipios() {
+        return posicoes.size();
+    }
+
+    private static double distanciaEstimada(CentroDistribuicao centro, double latitude, double longitude) {
+        double emLinhaReta = haversine(centro.getLatitude(), centro.getLongitude(), latitude, longitude);
+        return Math.max(DISTANCIA_MINIMA_KM, emLinhaReta * FATOR_ROTA);
+    }
+
+    /**
+     * Distância em linha reta (km) entre dois pontos pela fórmula de haversine
+     */
+    static double haversine(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * RAIO_TERRA_KM * Math.asin(Math.sqrt(a));
+    }
+}
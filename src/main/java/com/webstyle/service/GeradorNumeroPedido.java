@@ -0,0 +1,133 @@
+package com.webstyle.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gera números de pedido no formato ANO + MÊS + SEQUENCIAL de 9 dígitos (ex: 202411000000001),
+ * com a sequência reiniciada a cada mês
+ * - Os valores vêm de blocos reservados na tabela sequencias_pedido: um UPDATE a cada
+ *   "tamanho-bloco" pedidos; dentro do bloco a distribuição é só um incremento atômico em memória
+ * - Várias instâncias da aplicação recebem blocos diferentes, então não há números repetidos
+ * - A reserva roda em uma transação própria (REQUIRES_NEW, conexão do pool da aplicação) e faz
+ *   commit na hora: não depende da transação do pedido (um pedido desfeito não devolve o bloco)
+ * - Passar de 999.999.999 pedidos no mês é rejeitado (o número nunca muda de tamanho)
+ * Blocos não usados até o fim do mês (ou ao reiniciar a aplicação) deixam lacunas na numeração
+ */
+@Component
+public class GeradorNumeroPedido {
+    
+    private static final DateTimeFormatter FORMATO_ANO_MES = DateTimeFormatter.ofPattern("yyyyMM");
+    
+    // Dígitos do sequencial: comporta dezenas de milhares de pedidos por minuto durante o mês inteiro
+    private static final int DIGITOS = 9;
+    private static final long MAXIMO = 999_999_999L;
+    
+    private static final String SQL_AVANCAR =
+            "UPDATE sequencias_pedido SET proximo_valor = proximo_valor + ? WHERE ano_mes = ?";
+    private static final String SQL_CONSULTAR =
+            "SELECT proximo_valor FROM sequencias_pedido WHERE ano_mes = ?";
+    private static final String SQL_CRIAR =
+            "INSERT INTO sequencias_pedido (ano_mes, proximo_valor) VALUES (?, ?)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transacao;
+    private final long tamanhoBloco;
+    
+    // Bloco atual: substituído por inteiro quando esgota ou muda o mês
+    private volatile Bloco bloco;
+    
+    public GeradorNumeroPedido(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                               @Value("${app.pedido.numero.tamanho-bloco:100}") long tamanhoBloco) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.transacao.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.tamanhoBloco = tamanhoBloco;
+    }
+    
+    /**
+     * Próximo número de pedido
+     */
+    public String gerar() {
+        String anoMes = LocalDateTime.now().format(FORMATO_ANO_MES);
+        
+        // Caminho comum: sem lock, só o incremento no bloco atual
+        Bloco atual = bloco;
+        if (atual != null && atual.anoMes.equals(anoMes)) {
+            long valor = atual.proximo.getAndIncrement();
+            if (valor < atual.limite) {
+                return formatar(anoMes, valor);
+            }
+        }
+        
+        synchronized (this) {
+            while (true) {
+                atual = bloco;
+                if (atual == null || !atual.anoMes.equals(anoMes) || atual.proximo.get() >= atual.limite) {
+                    atual = reservarBloco(anoMes);
+                    bloco = atual;
+                }
+                long valor = atual.proximo.getAndIncrement();
+                if (valor < atual.limite) {
+                    return formatar(anoMes, valor);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Reserva o próximo bloco do mês no banco (UPDATE + SELECT na mesma transação:
+     * a linha fica bloqueada até o commit, então duas instâncias nunca leem o mesmo valor)
+     */
+    private Bloco reservarBloco(String anoMes) {
+        for (int tentativa = 0; ; tentativa++) {
+            try {
+                Long inicio = transacao.execute(status -> {
+                    if (jdbcTemplate.update(SQL_AVANCAR, tamanhoBloco, anoMes) == 0) {
+                        // Primeiro pedido do mês: cria a sequência já com o primeiro bloco reservado
+                        jdbcTemplate.update(SQL_CRIAR, anoMes, 1 + tamanhoBloco);
+                        return 1L;
+                    }
+                    return jdbcTemplate.queryForObject(SQL_CONSULTAR, Long.class, anoMes) - tamanhoBloco;
+                });
+                return new Bloco(anoMes, inicio, inicio + tamanhoBloco);
+            } catch (DuplicateKeyException e) {
+                // Outra instância criou a sequência do mês ao mesmo tempo: basta avançar a existente
+                if (tentativa >= 2) {
+                    throw new RuntimeException("Não foi possível reservar números de pedido para " + anoMes, e);
+                }
+            }
+        }
+    }
+    
+    private static String formatar(String anoMes, long valor) {
+        if (valor > MAXIMO) {
+            throw new RuntimeException("Limite mensal de números de pedido atingido (" + MAXIMO + ") em " + anoMes);
+        }
+        return anoMes + String.format("%0" + DIGITOS + "d", valor);
+    }
+    
+    /**
+     * Faixa [proximo, limite) de números reservados para esta instância
+     */
+    private static class Bloco {
+        private final String anoMes;
+        private final AtomicLong proximo;
+        private final long limite;
+        
+        private Bloco(String anoMes, long inicio, long limite) {
+            this.anoMes = anoMes;
+            this.proximo = new AtomicLong(inicio);
+            this.limite = limite;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.webstyle.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Cache da primeira página do histórico de pedidos de cada cliente (tela "Meus Pedidos")
+ * - Limitado por quantidade de clientes (remove o menos usado)
+ * - Invalidado após o commit de qualquer criação ou mudança de status de pedido do cliente
+ * - Versões por faixa de clientes evitam que uma leitura feita antes do commit
+ *   seja guardada depois da invalidação (a página antiga voltaria ao cache)
+ * O cache é local a cada instância da aplicação
+ */
+@Component
+public class HistoricoPedidosCache {
+
+    private static final int FAIXAS = 256;
+
+    private final int maxClientes;
+
+    // LinkedHashMap em ordem de acesso = LRU (protegido por synchronized)
+    private final LinkedHashMap<Long, PedidoService.PaginaPedidos> paginas;
+
+    // Versão de cada faixa de clientes, incrementada a cada invalidação
+    private final AtomicLongArray versoes = new AtomicLongArray(FAIXAS);
+
+    public HistoricoPedidosCache(@Value("${app.pedido.historico.cache-clientes:1000}") int maxClientes) {
+        this.maxClientes = maxClientes;
+        this.paginas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, PedidoService.PaginaPedidos> maisAntiga) {
+                return size() > HistoricoPedidosCache.this.maxClientes;
+            }
+        };
+    }
+
+    /**
+     * Primeira página em cache do cliente (null se não estiver em cache)
+     */
+    public synchronized PedidoService.PaginaPedidos obter(Long clienteId) {
+        return paginas.get(clienteId);
+    }
+
+    /**
+     * Versão atual do cliente: deve ser lida ANTES de consultar o banco e repassada a guardar()
+     */
+    public long versao(Long clienteId) {
+        return versoes.get(faixa(clienteId));
+    }
+
+    /**
+     * Guarda a primeira página do cliente, se nenhum pedido dele foi alterado
+     * desde que a versão foi lida (senão a página pode estar desatualizada)
+     */
+    public synchronized void guardar(Long clienteId, long versaoLida, PedidoService.PaginaPedidos pagina) {
+        if (versoes.get(faixa(clienteId)) == versaoLida) {
+            paginas.put(clienteId, pagina);
+        }
+    }
+
+    /**
+     * Remove a página do cliente após o commit do pedido criado/alterado
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void aoAlterarPedido(PedidoAlteradoEvent evento) {
+        invalidar(evento.getClienteId());
+    }
+
+    public synchronized void invalidar(Long clienteId) {
+        versoes.incrementAndGet(faixa(clienteId));
+        paginas.remove(clienteId);
+    }
+
+    private static int faixa(Long clienteId) {
+        return (int) (clienteId ^ (clienteId >>> 32)) & (FAIXAS - 1);
+    }
+}
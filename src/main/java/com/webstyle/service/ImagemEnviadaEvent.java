@@ -0,0 +1,29 @@
+package com.webstyle.service;
+
+/**
+ * Publicado pelo ProductService para cada imagem de produto gravada
+ * Após o commit, o ImagensDerivadasService gera as versões redimensionadas
+ */
+public class ImagemEnviadaEvent {
+    private final Long imagemId;
+    private final Long produtoId;
+    private final String caminhoArquivo;
+
+    public ImagemEnviadaEvent(Long imagemId, Long produtoId, String caminhoArquivo) {
+        this.imagemId = imagemId;
+        this.produtoId = produtoId;
+        this.caminhoArquivo = caminhoArquivo;
+    }
+
+    public Long getImagemId() {
+        return imagemId;
+    }
+
+    public Long getProdutoId() {
+        return produtoId;
+    }
+
+    public String getCaminhoArquivo() {
+        return caminhoArquivo;
+    }
+}
@@ -0,0 +1,317 @@
+package com.webstyle.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gera as versões redimensionadas das imagens de produto (miniatura, card e zoom)
+ * - Em segundo plano, após o commit do upload, em um pool limitado (fila cheia: a imagem
+ *   fica pendente e é processada na próxima inicialização)
+ * - JPEG recomprimido, sem os metadados do arquivo original (EXIF etc.), gravado ao lado do original
+ * - Nunca amplia: imagens menores que o tamanho alvo são apenas recomprimidas
+ * - Imagens com resolução acima do limite ou em formato não suportado pelo ImageIO ficam só com o original
+ * A vitrine usa o original enquanto as versões não existem (COALESCE nas projeções)
+ */
+@Service
+public class ImagensDerivadasService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final FileUploadService fileUploadService;
+    private final ExecutorService executor;
+    private final List<Tamanho> tamanhos;
+    private final float qualidade;
+    private final long maxPixels;
+
+    public ImagensDerivadasService(JdbcTemplate jdbcTemplate, ApplicationEventPublisher eventPublisher,
+                                   FileUploadService fileUploadService,
+                                   @Value("${app.imagens.derivadas.miniatura:160}") int ladoMiniatura,
+                                   @Value("${app.imagens.derivadas.card:600}") int ladoCard,
+                                   @Value("${app.imagens.derivadas.zoom:1600}") int ladoZoom,
+                                   @Value("${app.imagens.derivadas.qualidade:0.82}") float qualidade,
+                                   @Value("${app.imagens.derivadas.max-megapixels:50}") int maxMegapixels,
+                                   @Value("${app.imagens.derivadas.threads:2}") int threads,
+                                   @Value("${app.imagens.derivadas.fila:200}") int fila) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.fileUploadService = fileUploadService;
+        // Do maior para o menor: cada versão é reduzida a partir da anterior
+        this.tamanhos = List.of(new Tamanho("zoom", ladoZoom), new Tamanho("card", ladoCard),
+                new Tamanho("miniatura", ladoMiniatura));
+        this.qualidade = qualidade;
+        this.maxPixels = maxMegapixels * 1_000_000L;
+
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(fila), tarefa -> {
+                    Thread thread = new Thread(tarefa, "imagens-" + contador.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Agenda a geração após o commit do upload (o registro da imagem já existe no banco)
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void aoEnviarImagem(ImagemEnviadaEvent evento) {
+        try {
+            executor.execute(() -> processar(evento));
+        } catch (RejectedExecutionException e) {
+            System.err.println("Fila de imagens cheia: versões da imagem " + evento.getImagemId()
+                    + " serão geradas na próxima inicialização");
+        }
+    }
+
+    /**
+     * Gera as versões das imagens enviadas antes desta funcionalidade ou que ficaram pendentes
+     * (em uma única tarefa, sem ocupar a fila dos uploads)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void processarPendentes() {
+        List<ImagemEnviadaEvent> pendentes = jdbcTemplate.query(
+                "SELECT id, produto_id, caminho_arquivo FROM product_images WHERE caminho_miniatura IS NULL ORDER BY id",
+                (rs, linha) -> new ImagemEnviadaEvent(rs.getLong("id"), rs.getLong("produto_id"), rs.getString("caminho_arquivo")));
+        if (pendentes.isEmpty()) {
+            return;
+        }
+
+        System.out.println("Gerando versões redimensionadas de " + pendentes.size() + " imagem(ns) pendente(s)");
+        try {
+            executor.execute(() -> pendentes.forEach(this::processar));
+        } catch (RejectedExecutionException e) {
+            System.err.println("Fila de imagens cheia: imagens pendentes não processadas");
+        }
+    }
+
+    private void processar(ImagemEnviadaEvent evento) {
+        Path original = Paths.get(evento.getCaminhoArquivo());
+        List<Path> gerados = new ArrayList<>(tamanhos.size());
+        try {
+            // Mesmo conteúdo já processado para outra imagem (armazenamento por hash): reaproveita as versões
+            int reaproveitadas = jdbcTemplate.update(
+                    "UPDATE product_images SET (caminho_zoom, caminho_card, caminho_miniatura) = " +
+                    "(SELECT caminho_zoom, caminho_card, caminho_miniatura FROM product_images " +
+                    " WHERE caminho_arquivo = ? AND caminho_miniatura IS NOT NULL FETCH FIRST 1 ROWS ONLY) " +
+                    "WHERE id = ? AND EXISTS (SELECT 1 FROM product_images " +
+                    " WHERE caminho_arquivo = ? AND caminho_miniatura IS NOT NULL)",
+                    evento.getCaminhoArquivo(), evento.getImagemId(), evento.getCaminhoArquivo());
+            if (reaproveitadas > 0) {
+                eventPublisher.publishEvent(ProdutoAlteradoEvent.salvo(evento.getProdutoId()));
+                return;
+            }
+
+            BufferedImage imagem = ler(original);
+            if (imagem == null) {
+                return;
+            }
+
+            String[] caminhos = new String[tamanhos.size()];
+            for (int i = 0; i < tamanhos.size(); i++) {
+                Tamanho tamanho = tamanhos.get(i);
+                BufferedImage reduzida = reduzir(imagem, tamanho.ladoMaximo);
+                if (reduzida == imagem && i > 0) {
+                    // Já cabe no tamanho: reaproveita o arquivo da versão anterior
+                    caminhos[i] = caminhos[i - 1];
+                    continue;
+                }
+                imagem = reduzida;
+                Path destino = caminhoDerivado(original, tamanho.sufixo);
+                gravarJpeg(imagem, destino);
+                gerados.add(destino);
+                caminhos[i] = caminhoRelativo(evento.getCaminhoArquivo(), destino);
+            }
+
+            int atualizadas = jdbcTemplate.update(
+                    "UPDATE product_images SET caminho_zoom = ?, caminho_card = ?, caminho_miniatura = ? WHERE id = ?",
+                    caminhos[0], caminhos[1], caminhos[2], evento.getImagemId());
+            if (atualizadas == 0) {
+                // Imagem excluída enquanto as versões eram geradas
+                excluir(evento.getCaminhoArquivo(), gerados);
+                return;
+            }
+
+            // Cache do catálogo e cards passam a apontar para as novas versões
+            eventPublisher.publishEvent(ProdutoAlteradoEvent.salvo(evento.getProdutoId()));
+
+        } catch (Exception e) {
+            excluir(evento.getCaminhoArquivo(), gerados);
+            System.err.println("Erro ao gerar versões da imagem " + evento.getCaminhoArquivo() + ": " + e.getMessage());
+        }
+    }
+
+    // ===== LEITURA E REDIMENSIONAMENTO =====
+
+    /**
+     * Decodifica o original, recusando formatos não suportados e resoluções acima do limite
+     * (a resolução é lida do cabeçalho, antes de alocar os pixels)
+     */
+    private BufferedImage ler(Path original) throws IOException {
+        if (!Files.isRegularFile(original)) {
+            return null;
+        }
+
+        try (ImageInputStream entrada = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> leitores = entrada == null ? null : ImageIO.getImageReaders(entrada);
+            if (leitores == null || !leitores.hasNext()) {
+                System.err.println("Formato de imagem não suportado para redimensionar: " + original.getFileName());
+                return null;
+            }
+
+            ImageReader leitor = leitores.next();
+            try {
+                leitor.setInput(entrada, true, true);
+                long pixels = (long) leitor.getWidth(0) * leitor.getHeight(0);
+                if (pixels > maxPixels) {
+                    System.err.println("Imagem com resolução acima do limite, mantido só o original: " + original.getFileName());
+                    return null;
+                }
+                return leitor.read(0);
+            } finally {
+                leitor.dispose();
+            }
+        }
+    }
+
+    /**
+     * Reduz para que o maior lado fique em no máximo ladoMaximo (em etapas de metade, com
+     * interpolação bilinear, para não serrilhar); sempre devolve RGB sem transparência (JPEG)
+     * Devolve a própria imagem quando ela já é RGB e cabe no tamanho
+     */
+    private static BufferedImage reduzir(BufferedImage imagem, int ladoMaximo) {
+        int largura = imagem.getWidth();
+        int altura = imagem.getHeight();
+        double escala = Math.min(1.0, (double) ladoMaximo / Math.max(largura, altura));
+        int larguraFinal = Math.max(1, (int) Math.round(largura * escala));
+        int alturaFinal = Math.max(1, (int) Math.round(altura * escala));
+        if (escala == 1.0 && imagem.getType() == BufferedImage.TYPE_INT_RGB) {
+            return imagem;
+        }
+
+        BufferedImage atual = imagem;
+        do {
+            int proximaLargura = Math.max(larguraFinal, atual.getWidth() / 2);
+            int proximaAltura = Math.max(alturaFinal, atual.getHeight() / 2);
+            atual = desenhar(atual, proximaLargura, proximaAltura);
+        } while (atual.getWidth() != larguraFinal || atual.getHeight() != alturaFinal);
+        return atual;
+    }
+
+    private static BufferedImage desenhar(BufferedImage origem, int largura, int altura) {
+        BufferedImage destino = new BufferedImage(largura, altura, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = destino.createGraphics();
+        try {
+            // Fundo branco no lugar das áreas transparentes (PNG/GIF)
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, largura, altura);
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(origem, 0, 0, largura, altura, null);
+        } finally {
+            g.dispose();
+        }
+        return destino;
+    }
+
+    // ===== GRAVAÇÃO =====
+
+    /**
+     * Grava em arquivo temporário e move para o destino (quem lê nunca vê um JPEG pela metade)
+     */
+    private void gravarJpeg(BufferedImage imagem, Path destino) throws IOException {
+        ImageWriter escritor = ImageIO.getImageWritersByFormatName("jpeg").next();
+        // Nome temporário único: duas imagens com o mesmo conteúdo podem gerar as versões ao mesmo tempo
+        Path temporario = destino.resolveSibling(destino.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try (ImageOutputStream saida = ImageIO.createImageOutputStream(temporario.toFile())) {
+            ImageWriteParam parametros = escritor.getDefaultWriteParam();
+            parametros.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            parametros.setCompressionQuality(qualidade);
+            parametros.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            escritor.setOutput(saida);
+            escritor.write(null, new IIOImage(imagem, null, null), parametros);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporario);
+            throw e;
+        } finally {
+            escritor.dispose();
+        }
+        Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * uploads/products/abc.png -> uploads/products/abc-card.jpg
+     */
+    private static Path caminhoDerivado(Path original, String sufixo) {
+        String nome = original.getFileName().toString();
+        int ponto = nome.lastIndexOf('.');
+        String base = ponto > 0 ? nome.substring(0, ponto) : nome;
+        return original.resolveSibling(base + "-" + sufixo + ".jpg");
+    }
+
+    /**
+     * Caminho no mesmo formato do original (relativo ao diretório da aplicação, com "/")
+     */
+    private static String caminhoRelativo(String caminhoOriginal, Path derivado) {
+        return caminhoOriginal.substring(0, caminhoOriginal.lastIndexOf('/') + 1) + derivado.getFileName();
+    }
+
+    /**
+     * Descarta versões geradas sem registro (só apaga se nenhuma outra imagem usar o mesmo original)
+     */
+    private void excluir(String caminhoOriginal, List<Path> arquivos) {
+        fileUploadService.liberarArquivos(caminhoOriginal, arquivos.stream().map(Path::toString).toList());
+    }
+
+    /**
+     * Versão gerada: sufixo do arquivo e maior lado em pixels
+     */
+    private static class Tamanho {
+        private final String sufixo;
+        private final int ladoMaximo;
+
+        private Tamanho(String sufixo, int ladoMaximo) {
+            this.sufixo = sufixo;
+            this.ladoMaximo = ladoMaximo;
+        }
+    }
+}
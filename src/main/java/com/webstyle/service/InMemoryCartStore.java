@@ -0,0 +1,134 @@
+package com.webstyle.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Carrinhos em memória, no formato compacto (CarrinhoCompacto)
+ * - Locks distribuídos (striping) pelo id do carrinho: carrinhos diferentes não disputam o mesmo lock
+ * - Carrinhos sem acesso há mais de app.carrinho.inatividade-horas são descartados
+ * Padrão quando app.carrinho.store não é informado (uma única instância da aplicação)
+ */
+@Component
+@ConditionalOnProperty(name = "app.carrinho.store", havingValue = "memoria", matchIfMissing = true)
+public class InMemoryCartStore implements CartStore {
+
+    private static final int TOTAL_LOCKS = 64;
+
+    // Limpeza dos carrinhos inativos a cada N operações de escrita
+    private static final int INTERVALO_LIMPEZA = 1000;
+
+    private final ConcurrentHashMap<String, CarrinhoCompacto> carrinhos = new ConcurrentHashMap<>();
+    private final Object[] locks = new Object[TOTAL_LOCKS];
+    private final long inatividadeMillis;
+    private final AtomicLong escritas = new AtomicLong();
+
+    public InMemoryCartStore(@Value("${app.carrinho.inatividade-horas:72}") long inatividadeHoras) {
+        this.inatividadeMillis = inatividadeHoras * 3_600_000L;
+        for (int i = 0; i < TOTAL_LOCKS; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    @Override
+    public CarrinhoCompacto obter(String carrinhoId) {
+        synchronized (lock(carrinhoId)) {
+            CarrinhoCompacto carrinho = carrinhos.get(carrinhoId);
+            if (carrinho == null) {
+                return new CarrinhoCompacto();
+            }
+            carrinho.registrarAcesso();
+            return carrinho.copiar();
+        }
+    }
+
+    @Override
+    public CartStore.Resumo resumo(String carrinhoId) {
+        synchronized (lock(carrinhoId)) {
+            CarrinhoCompacto carrinho = carrinhos.get(carrinhoId);
+            if (carrinho == null) {
+                return CartStore.Resumo.VAZIO;
+            }
+            return new CartStore.Resumo(carrinho.getTamanho(), carrinho.getTotalItens(), carrinho.getTotalCentavos());
+        }
+    }
+
+    @Override
+    public int adicionar(String carrinhoId, long produtoId, int quantidade, long precoCentavos, int maximo) {
+        int novaQuantidade;
+        synchronized (lock(carrinhoId)) {
+            CarrinhoCompacto carrinho = carrinhos.computeIfAbsent(carrinhoId, id -> new CarrinhoCompacto());
+            novaQuantidade = carrinho.quantidade(produtoId) + quantidade;
+            if (novaQuantidade > maximo) {
+                return -1;
+            }
+            carrinho.definir(produtoId, novaQuantidade, precoCentavos);
+            carrinho.registrarAcesso();
+        }
+        aposEscrita();
+        return novaQuantidade;
+    }
+
+    @Override
+    public boolean atualizar(String carrinhoId, long produtoId, int quantidade, long precoCentavos) {
+        synchronized (lock(carrinhoId)) {
+            CarrinhoCompacto carrinho = carrinhos.get(carrinhoId);
+            if (carrinho == null || carrinho.quantidade(produtoId) == 0) {
+                return false;
+            }
+            carrinho.definir(produtoId, quantidade, precoCentavos);
+            carrinho.registrarAcesso();
+        }
+        aposEscrita();
+        return true;
+    }
+
+    @Override
+    public void remover(String carrinhoId, long produtoId) {
+        synchronized (lock(carrinhoId)) {
+            CarrinhoCompacto carrinho = carrinhos.get(carrinhoId);
+            if (carrinho != null) {
+                carrinho.remover(produtoId);
+                carrinho.registrarAcesso();
+            }
+        }
+    }
+
+    @Override
+    public void limpar(String carrinhoId) {
+        synchronized (lock(carrinhoId)) {
+            carrinhos.remove(carrinhoId);
+        }
+    }
+
+    private Object lock(String carrinhoId) {
+        return locks[(carrinhoId.hashCode() & 0x7fffffff) % TOTAL_LOCKS];
+    }
+
+    /**
+     * Chamado fora do lock do carrinho: a varredura não bloqueia os demais carrinhos da mesma faixa
+     * Cada carrinho inativo é conferido de novo sob o seu lock antes de ser descartado
+     * (pode ter sido acessado depois da varredura)
+     */
+    private void aposEscrita() {
+        if (escritas.incrementAndGet() % INTERVALO_LIMPEZA != 0) {
+            return;
+        }
+        long limite = System.currentTimeMillis() - inatividadeMillis;
+        for (Map.Entry<String, CarrinhoCompacto> entrada : carrinhos.entrySet()) {
+            if (entrada.getValue().getUltimoAcesso() >= limite) {
+                continue;
+            }
+            synchronized (lock(entrada.getKey())) {
+                if (entrada.getValue().getUltimoAcesso() < limite) {
+                    carrinhos.remove(entrada.getKey(), entrada.getValue());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.webstyle.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carrinhos no banco de dados, via JDBC
+ * - carrinhos: uma linha por carrinho com os totais (itens e centavos), atualizados a cada alteração
+ * - carrinho_itens: uma linha por (carrinho, produto) com quantidade e preço unitário
+ * Cada alteração bloqueia a linha do carrinho (SELECT ... FOR UPDATE), então operações
+ * concorrentes no mesmo carrinho são serializadas e os totais ficam consistentes
+ * A linha de um carrinho novo é criada dentro da própria transação, em um savepoint:
+ * cada operação usa uma única conexão do pool
+ * Os carrinhos sobrevivem a reinícios e são compartilhados entre várias instâncias da aplicação
+ * Carrinhos inativos são removidos por uma tarefa agendada, em transação própria
+ * As tabelas são criadas pelas migrações do banco (db/migration)
+ * Ativado com app.carrinho.store=jdbc
+ */
+@Component
+@ConditionalOnProperty(name = "app.carrinho.store", havingValue = "jdbc")
+public class JdbcCartStore implements CartStore {
+
+    private static final String SQL_CRIAR =
+            "MERGE INTO carrinhos c USING (VALUES (CAST(? AS VARCHAR(36)), CAST(? AS TIMESTAMP))) AS novo (carrinho_id, atualizado_em) " +
+            "ON c.carrinho_id = novo.carrinho_id " +
+            "WHEN NOT MATCHED THEN INSERT (carrinho_id, linhas, total_itens, total_centavos, atualizado_em) " +
+            "VALUES (novo.carrinho_id, 0, 0, 0, novo.atualizado_em)";
+
+    // SQLState de violação de chave única (H2 e PostgreSQL)
+    private static final String CHAVE_DUPLICADA = "23505";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long inatividadeMillis;
+
+    public JdbcCartStore(JdbcTemplate jdbcTemplate,
+                         @Value("${app.carrinho.inatividade-horas:72}") long inatividadeHoras) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.inatividadeMillis = inatividadeHoras * 3_600_000L;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CarrinhoCompacto obter(String carrinhoId) {
+        CarrinhoCompacto carrinho = new CarrinhoCompacto();
+        jdbcTemplate.query(
+                "SELECT produto_id, quantidade, preco_centavos FROM carrinho_itens WHERE carrinho_id = ? " +
+                "ORDER BY adicionado_em, produto_id",
+                rs -> {
+                    carrinho.definir(rs.getLong(1), rs.getInt(2), rs.getLong(3));
+                },
+                carrinhoId);
+        return carrinho;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CartStore.Resumo resumo(String carrinhoId) {
+        List<CartStore.Resumo> resumos = jdbcTemplate.query(
+                "SELECT linhas, total_itens, total_centavos FROM carrinhos WHERE carrinho_id = ?",
+                (rs, i) -> new CartStore.Resumo(rs.getInt(1), rs.getInt(2), rs.getLong(3)),
+                carrinhoId);
+        return resumos.isEmpty() ? CartStore.Resumo.VAZIO : resumos.get(0);
+    }
+
+    @Override
+    @Transactional
+    public int adicionar(String carrinhoId, long produtoId, int quantidade, long precoCentavos, int maximo) {
+        bloquearCarrinho(carrinhoId, true);
+
+        long[] atual = linhaAtual(carrinhoId, produtoId);
+        int novaQuantidade = (atual == null ? 0 : (int) atual[0]) + quantidade;
+        if (novaQuantidade > maximo) {
+            return -1;
+        }
+
+        gravarLinha(carrinhoId, produtoId, atual, novaQuantidade, precoCentavos);
+        return novaQuantidade;
+    }
+
+    @Override
+    @Transactional
+    public boolean atualizar(String carrinhoId, long produtoId, int quantidade, long precoCentavos) {
+        if (!bloquearCarrinho(carrinhoId, false)) {
+            return false;
+        }
+
+        long[] atual = linhaAtual(carrinhoId, produtoId);
+        if (atual == null) {
+            return false;
+        }
+
+        gravarLinha(carrinhoId, produtoId, atual, quantidade, precoCentavos);
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public void remover(String carrinhoId, long produtoId) {
+        atualizar(carrinhoId, produtoId, 0, 0);
+    }
+
+    @Override
+    @Transactional
+    public void limpar(String carrinhoId) {
+        jdbcTemplate.update("DELETE FROM carrinho_itens WHERE carrinho_id = ?", carrinhoId);
+        jdbcTemplate.update("DELETE FROM carrinhos WHERE carrinho_id = ?", carrinhoId);
+    }
+
+    /**
+     * Bloqueia a linha do carrinho até o fim da transação (criando-a se necessário)
+     * Retorna false se o carrinho não existe e criar = false
+     */
+    private boolean bloquearCarrinho(String carrinhoId, boolean criar) {
+        List<Integer> existente = jdbcTemplate.queryForList(
+                "SELECT linhas FROM carrinhos WHERE carrinho_id = ? FOR UPDATE", Integer.class, carrinhoId);
+        if (!existente.isEmpty()) {
+            return true;
+        }
+        if (!criar) {
+            return false;
+        }
+
+        // Não existe: cria (MERGE não faz nada se o carrinho já existir) em um savepoint, na mesma
+        // conexão da transação atual. Se duas requisições criam o mesmo carrinho ao mesmo tempo, o
+        // MERGE perdedor ainda pode acusar chave duplicada; só o savepoint é desfeito e a transação
+        // atual continua válida (no PostgreSQL um erro sem savepoint aborta a transação inteira)
+        // (savepoint direto na conexão: o JpaTransactionManager não oferece transações aninhadas)
+        jdbcTemplate.execute((ConnectionCallback<Void>) conexao -> {
+            Savepoint savepoint = conexao.setSavepoint();
+            try (PreparedStatement ps = conexao.prepareStatement(SQL_CRIAR)) {
+                ps.setString(1, carrinhoId);
+                ps.setTimestamp(2, new Timestamp(System.currentTimeMillis()));
+                ps.executeUpdate();
+                conexao.releaseSavepoint(savepoint);
+            } catch (SQLException e) {
+                conexao.rollback(savepoint);
+                if (!CHAVE_DUPLICADA.equals(e.getSQLState())) {
+                    throw e;
+                }
+                // Criado por outra requisição ao mesmo tempo
+            }
+            return null;
+        });
+        jdbcTemplate.queryForList("SELECT linhas FROM carrinhos WHERE carrinho_id = ? FOR UPDATE", Integer.class, carrinhoId);
+        return true;
+    }
+
+    /**
+     * {quantidade, preço em centavos} da linha, ou null se o produto não está no carrinho
+     */
+    private long[] linhaAtual(String carrinhoId, long produtoId) {
+        List<long[]> linhas = jdbcTemplate.query(
+                "SELECT quantidade, preco_centavos FROM carrinho_itens WHERE carrinho_id = ? AND produto_id = ?",
+                (rs, i) -> new long[] { rs.getInt(1), rs.getLong(2) },
+                carrinhoId, produtoId);
+        return linhas.isEmpty() ? null : linhas.get(0);
+    }
+
+    /**
+     * Grava a linha (inclusão, alteração ou remoção com quantidade 0) e aplica a diferença nos totais
+     */
+    private void gravarLinha(String carrinhoId, long produtoId, long[] atual, int quantidade, long precoCentavos) {
+        Timestamp agora = new Timestamp(System.currentTimeMillis());
+        int quantidadeAnterior = atual == null ? 0 : (int) atual[0];
+        long valorAnterior = atual == null ? 0 : atual[0] * atual[1];
+        int deltaLinhas;
+
+        if (quantidade <= 0) {
+            jdbcTemplate.update("DELETE FROM carrinho_itens WHERE carrinho_id = ? AND produto_id = ?", carrinhoId, produtoId);
+            quantidade = 0;
+            precoCentavos = 0;
+            deltaLinhas = atual == null ? 0 : -1;
+        } else if (atual == null) {
+            jdbcTemplate.update(
+                    "INSERT INTO carrinho_itens (carrinho_id, produto_id, quantidade, preco_centavos, adicionado_em) " +
+                    "VALUES (?, ?, ?, ?, ?)",
+                    carrinhoId, produtoId, quantidade, precoCentavos, agora);
+            deltaLinhas = 1;
+        } else {
+            jdbcTemplate.update(
+                    "UPDATE carrinho_itens SET quantidade = ?, preco_centavos = ? WHERE carrinho_id = ? AND produto_id = ?",
+                    quantidade, precoCentavos, carrinhoId, produtoId);
+            deltaLinhas = 0;
+        }
+
+        jdbcTemplate.update(
+                "UPDATE carrinhos SET linhas = linhas + ?, total_itens = total_itens + ?, " +
+                "total_centavos = total_centavos + ?, atualizado_em = ? WHERE carrinho_id = ?",
+                deltaLinhas, quantidade - quantidadeAnterior, quantidade * precoCentavos - valorAnterior, agora, carrinhoId);
+    }
+
+    /**
+     * Remove os carrinhos sem alteração há mais de app.carrinho.inatividade-horas
+     * Roda fora das requisições, em transação própria (app.carrinho.limpeza-minutos)
+     */
+    @Scheduled(fixedDelayString = "${app.carrinho.limpeza-minutos:60}", initialDelayString = "${app.carrinho.limpeza-minutos:60}",
+               timeUnit = TimeUnit.MINUTES)
+    @Transactional
+    public void removerInativos() {
+        Timestamp limite = new Timestamp(System.currentTimeMillis() - inatividadeMillis);
+        jdbcTemplate.update(
+                "DELETE FROM carrinho_itens WHERE carrinho_id IN (SELECT carrinho_id FROM carrinhos WHERE atualizado_em < ?)",
+                limite);
+        int removidos = jdbcTemplate.update("DELETE FROM carrinhos WHERE atualizado_em < ?", limite);
+        if (removidos > 0) {
+            System.out.println(removidos + " carrinho(s) inativo(s) removido(s)");
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.webstyle.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Metadados HTTP das imagens enviadas (ETag pelo conteúdo, data de modificação, tamanho e tipo)
+ * Os arquivos têm nome único (UUID) e nunca são alterados, então os metadados são calculados
+ * uma única vez por arquivo: requisições condicionais (304) são respondidas sem acessar o disco
+ * Limitado por quantidade de arquivos (remove o menos usado); a exclusão do arquivo remove a entrada
+ */
+@Component
+public class MetadadosImagemCache {
+
+    // Tipos de conteúdo por extensão (sem Files.probeContentType a cada requisição)
+    private static final Map<String, MediaType> TIPOS = Map.of(
+            "jpg", MediaType.IMAGE_JPEG,
+            "jpeg", MediaType.IMAGE_JPEG,
+            "png", MediaType.IMAGE_PNG,
+            "gif", MediaType.IMAGE_GIF,
+            "webp", MediaType.parseMediaType("image/webp"),
+            "avif", MediaType.parseMediaType("image/avif"),
+            "bmp", MediaType.parseMediaType("image/bmp"),
+            "svg", MediaType.parseMediaType("image/svg+xml"));
+
+    // Nome do armazenamento por conteúdo: SHA-256 em hexadecimal + extensão
+    private static final Pattern NOME_POR_HASH = Pattern.compile("([0-9a-f]{32})[0-9a-f]{32}(\\.[a-z0-9]+)?");
+
+    private final Path diretorio;
+    private final int maxEntradas;
+
+    // LinkedHashMap em ordem de acesso = LRU (protegido por synchronized)
+    private final LinkedHashMap<String, Metadados> entradas;
+
+    public MetadadosImagemCache(@Value("${app.upload.dir:uploads/products}") String uploadDir,
+                                @Value("${app.imagens.metadados.max-entradas:20000}") int maxEntradas) {
+        this.diretorio = Paths.get(uploadDir).toAbsolutePath().normalize();
+        this.maxEntradas = maxEntradas;
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Metadados> maisAntiga) {
+                return size() > MetadadosImagemCache.this.maxEntradas;
+            }
+        };
+    }
+
+    /**
+     * Metadados do arquivo (null se não existir ou estiver fora do diretório de upload)
+     */
+    public Metadados obter(String nomeArquivo) throws IOException {
+        synchronized (this) {
+            Metadados metadados = entradas.get(nomeArquivo);
+            if (metadados != null) {
+                return metadados;
+            }
+        }
+
+        Path arquivo = diretorio.resolve(nomeArquivo).normalize();
+        if (!arquivo.startsWith(diretorio) || !Files.isRegularFile(arquivo) || !Files.isReadable(arquivo)) {
+            return null;
+        }
+
+        Metadados metadados = new Metadados(arquivo, "\"" + etag(arquivo) + "\"",
+                Files.getLastModifiedTime(arquivo).toMillis(), Files.size(arquivo), tipoConteudo(nomeArquivo));
+        synchronized (this) {
+            entradas.put(nomeArquivo, metadados);
+        }
+        return metadados;
+    }
+
+    public synchronized void remover(String nomeArquivo) {
+        entradas.remove(nomeArquivo);
+    }
+
+    private static MediaType tipoConteudo(String nomeArquivo) {
+        int ponto = nomeArquivo.lastIndexOf('.');
+        MediaType tipo = ponto < 0 ? null : TIPOS.get(nomeArquivo.substring(ponto + 1).toLowerCase(Locale.ROOT));
+        return tipo != null ? tipo : MediaType.APPLICATION_OCTET_STREAM;
+    }
+
+    /**
+     * Arquivos do armazenamento por conteúdo já têm o SHA-256 no nome (sem ler o arquivo);
+     * os demais (versões redimensionadas, uploads antigos) têm o conteúdo lido uma vez
+     */
+    private static String etag(Path arquivo) throws IOException {
+        Matcher nome = NOME_POR_HASH.matcher(arquivo.getFileName().toString());
+        return nome.matches() ? nome.group(1) : hashConteudo(arquivo);
+    }
+
+    /**
+     * SHA-256 do conteúdo (primeiros 16 bytes em hexadecimal, suficiente para o ETag)
+     */
+    private static String hashConteudo(Path arquivo) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[8192];
+            try (InputStream entrada = Files.newInputStream(arquivo)) {
+                int lidos;
+                while ((lidos = entrada.read(buffer)) != -1) {
+                    digest.update(buffer, 0, lidos);
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    /**
+     * Dados de um arquivo de imagem para os cabeçalhos HTTP
+     */
+    public static class Metadados {
+        private final Path caminho;
+        private final String etag;
+        private final long ultimaModificacao;
+        private final long tamanho;
+        private final MediaType tipo;
+
+        public Metadados(Path caminho, String etag, long ultimaModificacao, long tamanho, MediaType tipo) {
+            this.caminho = caminho;
+            this.etag = etag;
+            this.ultimaModificacao = ultimaModificacao;
+            this.tamanho = tamanho;
+            this.tipo = tipo;
+        }
+
+        public Path getCaminho() { return caminho; }
+
+        public String getEtag() { return etag; }
+
+        public long getUltimaModificacao() { return ultimaModificacao; }
+
+        public long getTamanho() { return tamanho; }
+
+        public MediaType getTipo() { return tipo; }
+    }
+}
@@ -0,0 +1,23 @@
+package com.webstyle.service;
+
+/**
+ * Publicado quando um pedido é criado ou tem o status alterado
+ * Os ouvintes (ex.: HistoricoPedidosCache) reagem após o commit da transação
+ */
+public class PedidoAlteradoEvent {
+    private final Long pedidoId;
+    private final Long clienteId;
+
+    public PedidoAlteradoEvent(Long pedidoId, Long clienteId) {
+        this.pedidoId = pedidoId;
+        this.clienteId = clienteId;
+    }
+
+    public Long getPedidoId() {
+        return pedidoId;
+    }
+
+    public Long getClienteId() {
+        return clienteId;
+    }
+}
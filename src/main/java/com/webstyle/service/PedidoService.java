@@ -1,32 +1,79 @@
 package com.webstyle.service;
 
 import com.webstyle.model.*;
+import com.webstyle.repository.ClienteRepository;
 import com.webstyle.repository.EnderecoRepository;
+import com.webstyle.repository.ItemPedidoRepository;
 import com.webstyle.repository.PedidoRepository;
-import com.webstyle.repository.ProductRepository;
+import com.webstyle.repository.PedidoRepositoryCustom;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Sort;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Service
 @Transactional
 public class PedidoService {
     
+    // Quantidade de pedidos por página na listagem do estoquista
+    private static final int PEDIDOS_POR_PAGINA = 50;
+    
+    // Quantidade de pedidos por página no histórico do cliente
+    private static final int PEDIDOS_POR_PAGINA_CLIENTE = 20;
+    
+    private static final String SQL_INSERIR_ITEM =
+            "INSERT INTO itens_pedido (pedido_id, produto_id, codigo_produto, nome_produto, preco_unitario, quantidade, subtotal, imagem_produto) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    
     @Autowired
     private PedidoRepository pedidoRepository;
     
     @Autowired
-    private ProductRepository productRepository;
+    private ClienteRepository clienteRepository;
     
     @Autowired
     private EnderecoRepository enderecoRepository;
     
+    @Autowired
+    private ItemPedidoRepository itemPedidoRepository;
+    
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private ReservaEstoqueService reservaEstoqueService;
+    
+    @Autowired
+    private ShippingService shippingService;
+    
+    @Autowired
+    private GeradorNumeroPedido geradorNumeroPedido;
+    
+    @Autowired
+    private HistoricoPedidosCache historicoPedidosCache;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
     /**
      * Cria um novo pedido
      */
@@ -55,18 +102,13 @@ public class PedidoService {
             throw new RuntimeException("Endereço de entrega não informado");
         }
         
-        // Busca o endereço
-        Endereco endereco = enderecoRepository.findById(enderecoId)
+        // Busca o endereço (somente entre os endereços do próprio cliente)
+        Endereco endereco = enderecoRepository.findByIdAndClienteId(enderecoId, cliente.getId())
                 .orElseThrow(() -> new RuntimeException("Endereço não encontrado"));
         
-        // Verifica se o endereço pertence ao cliente
-        if (!endereco.getCliente().getId().equals(cliente.getId())) {
-            throw new RuntimeException("Endereço não pertence ao cliente");
-        }
-        
         // Cria o pedido
         Pedido pedido = new Pedido();
-        pedido.setNumeroPedido(gerarNumeroPedido());
+        pedido.setNumeroPedido(geradorNumeroPedido.gerar());
         pedido.setCliente(cliente);
         pedido.setDataPedido(LocalDateTime.now());
         pedido.setValorSubtotal(valorSubtotal);
@@ -97,42 +139,82 @@ public class PedidoService {
         pedido.setNomeFrete(nomeFrete);
         pedido.setPrazoEntrega(prazoEntrega);
         
-        // Adiciona os itens
+        // Dados de todos os produtos do carrinho (com imagens) pelo cache do catálogo
+        List<Long> produtoIds = new ArrayList<>(itensCarrinho.size());
         for (CartItem cartItem : itensCarrinho) {
-            Product produto = productRepository.findById(cartItem.getProdutoId())
-                    .orElseThrow(() -> new RuntimeException("Produto não encontrado: " + cartItem.getProdutoId()));
-            
-            // Verifica estoque
-            if (produto.getQuantidadeEstoque() < cartItem.getQuantidade()) {
-                throw new RuntimeException("Estoque insuficiente para o produto: " + produto.getNome());
+            produtoIds.add(cartItem.getProdutoId());
+        }
+        Map<Long, ProdutoSnapshot> produtos = productService.buscarSnapshots(produtoIds);
+        
+        // Monta os itens (gravados em lote depois do pedido)
+        List<ItemPedido> itens = new ArrayList<>(itensCarrinho.size());
+        Map<Long, Integer> quantidades = new HashMap<>();
+        for (CartItem cartItem : itensCarrinho) {
+            ProdutoSnapshot produto = produtos.get(cartItem.getProdutoId());
+            if (produto == null) {
+                throw new RuntimeException("Produto não encontrado: " + cartItem.getProdutoId());
             }
             
             // Cria o item do pedido
-            ItemPedido item = new ItemPedido(produto, cartItem.getQuantidade());
-            pedido.addItem(item);
+            itens.add(new ItemPedido(produto, productService.referenciaPorId(produto.getId()), cartItem.getQuantidade()));
             
-            // Atualiza o estoque
-            produto.setQuantidadeEstoque(produto.getQuantidadeEstoque() - cartItem.getQuantidade());
-            productRepository.save(produto);
+            quantidades.merge(produto.getId(), cartItem.getQuantidade(), Integer::sum);
+        }
+        
+        // Baixa o estoque de todos os itens de forma atômica (UPDATE condicional em lote)
+        // Qualquer item sem estoque desfaz toda a transação
+        // Os centros de distribuição são baixados com a mesma alocação da cotação do frete
+        List<Long> semEstoque = reservaEstoqueService.reservar(quantidades, shippingService.distanciasCentros(endereco.getCep()));
+        if (!semEstoque.isEmpty()) {
+            throw new RuntimeException("Estoque insuficiente para o produto: " + produtos.get(semEstoque.get(0)).getNome());
         }
         
-        // Salva o pedido
-        return pedidoRepository.save(pedido);
+        // Salva o pedido e os itens
+        Pedido salvo = pedidoRepository.save(pedido);
+        inserirItens(salvo, itens);
+        eventPublisher.publishEvent(new PedidoAlteradoEvent(salvo.getId(), cliente.getId()));
+        
+        // O estoque mudou: cache e índices do catálogo recarregam esses produtos após o commit
+        // (um único evento: os índices leem todos numa consulta só)
+        eventPublisher.publishEvent(ProdutoAlteradoEvent.salvos(quantidades.keySet()));
+        return salvo;
     }
     
     /**
-     * Gera número único do pedido no formato: ANO + MÊS + SEQUENCIAL (ex: 202411000001)
+     * Grava os itens do pedido num único lote JDBC (com id IDENTITY o Hibernate faz um INSERT por item)
+     * As linhas são inseridas fora do Hibernate: as entidades são carregadas (uma consulta)
+     * para que a coleção do pedido fique igual ao banco no restante da transação
      */
-    private String gerarNumeroPedido() {
-        LocalDateTime agora = LocalDateTime.now();
-        String anoMes = agora.format(DateTimeFormatter.ofPattern("yyyyMM"));
+    private void inserirItens(Pedido pedido, List<ItemPedido> itens) {
+        KeyHolder ids = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(conexao -> conexao.prepareStatement(SQL_INSERIR_ITEM, new String[] { "id" }),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ItemPedido item = itens.get(i);
+                        ps.setLong(1, pedido.getId());
+                        ps.setLong(2, item.getProduto().getId());
+                        ps.setString(3, item.getCodigoProduto());
+                        ps.setString(4, item.getNomeProduto());
+                        ps.setBigDecimal(5, item.getPrecoUnitario());
+                        ps.setInt(6, item.getQuantidade());
+                        ps.setBigDecimal(7, item.getSubtotal());
+                        ps.setString(8, item.getImagemProduto());
+                    }
+                    
+                    @Override
+                    public int getBatchSize() {
+                        return itens.size();
+                    }
+                }, ids);
         
-        Long maxId = pedidoRepository.findMaxId();
-        Long proximoId = (maxId == null) ? 1L : maxId + 1;
-        
-        String sequencial = String.format("%06d", proximoId);
-        
-        return anoMes + sequencial;
+        List<Long> itemIds = new ArrayList<>(itens.size());
+        for (Map<String, Object> chave : ids.getKeyList()) {
+            itemIds.add(((Number) chave.get("id")).longValue());
+        }
+        itemPedidoRepository.findAllById(itemIds).stream()
+            .sorted(Comparator.comparing(ItemPedido::getId))
+            .forEach(pedido::addItem);
     }
     
     /**
@@ -150,36 +232,92 @@ public class PedidoService {
     }
     
     /**
-     * Busca pedido por ID carregando todos os itens (EAGER)
-     * Este método força o carregamento dos itens antes de fechar a transação
+     * Busca pedido por ID com itens e cliente já carregados (uma única consulta)
+     * Os itens são LAZY: as demais consultas de pedido não os carregam
      */
+    @Transactional(readOnly = true)
     public Pedido buscarPorIdComItens(Long id) {
-        Pedido pedido = pedidoRepository.findById(id).orElse(null);
+        return pedidoRepository.findComItensById(id).orElse(null);
+    }
+
+    /**
+     * Página da listagem de pedidos do estoquista (resumos, sem itens), mais recentes primeiro
+     * Filtros opcionais: status, período (datas inclusivas) e cliente (e-mail ou CPF)
+     * A próxima página continua a partir do último pedido exibido (aposData + aposId)
+     */
+    @Transactional(readOnly = true)
+    public PaginaPedidos listarPedidosEstoquista(Pedido.StatusPedido status,
+                                                 LocalDate dataInicio,
+                                                 LocalDate dataFim,
+                                                 String cliente,
+                                                 LocalDateTime aposData,
+                                                 Long aposId) {
+        PedidoRepositoryCustom.FiltroPedidos filtro = new PedidoRepositoryCustom.FiltroPedidos();
+        filtro.setStatus(status);
+        if (dataInicio != null) {
+            filtro.setDataInicio(dataInicio.atStartOfDay());
+        }
+        if (dataFim != null) {
+            filtro.setDataFim(dataFim.plusDays(1).atStartOfDay());
+        }
         
-        if (pedido != null) {
-            // Força o carregamento dos itens do pedido
-            pedido.getItens().size();
-            
-            // Também força o carregamento do cliente
-            pedido.getCliente().getNomeCompleto();
+        if (cliente != null && !cliente.isBlank()) {
+            Optional<Cliente> encontrado = buscarClienteFiltro(cliente.trim());
+            if (encontrado.isEmpty()) {
+                return new PaginaPedidos(new ArrayList<>(), false);
+            }
+            filtro.setClienteId(encontrado.get().getId());
         }
         
-        return pedido;
+        return buscarPagina(filtro, aposData, aposId, PEDIDOS_POR_PAGINA);
     }
-
+    
     /**
-     * Lista todos os pedidos do sistema (para estoquista)
-     * Ordenados por data de pedido decrescente (mais recentes primeiro)
+     * Página do histórico de pedidos do cliente (resumos, sem itens), mais recentes primeiro
+     * A primeira página fica em cache por cliente até o próximo pedido criado ou alterado
+     * A próxima página continua a partir do último pedido exibido (aposData + aposId)
      */
-    public List<Pedido> listarTodosPedidos() {
-        return pedidoRepository.findAll(Sort.by(Sort.Direction.DESC, "dataPedido"));
+    @Transactional(readOnly = true)
+    public PaginaPedidos listarHistoricoCliente(Long clienteId, LocalDateTime aposData, Long aposId) {
+        PedidoRepositoryCustom.FiltroPedidos filtro = new PedidoRepositoryCustom.FiltroPedidos();
+        filtro.setClienteId(clienteId);
+        
+        if (aposData != null && aposId != null) {
+            return buscarPagina(filtro, aposData, aposId, PEDIDOS_POR_PAGINA_CLIENTE);
+        }
+        
+        PaginaPedidos emCache = historicoPedidosCache.obter(clienteId);
+        if (emCache != null) {
+            return emCache;
+        }
+        
+        long versao = historicoPedidosCache.versao(clienteId);
+        PaginaPedidos primeira = buscarPagina(filtro, null, null, PEDIDOS_POR_PAGINA_CLIENTE);
+        historicoPedidosCache.guardar(clienteId, versao, primeira);
+        return primeira;
+    }
+    
+    private PaginaPedidos buscarPagina(PedidoRepositoryCustom.FiltroPedidos filtro,
+                                       LocalDateTime aposData, Long aposId, int tamanho) {
+        // Busca um pedido a mais só para saber se existe próxima página
+        List<PedidoResumo> pedidos = pedidoRepository.buscarResumos(filtro, aposData, aposId, tamanho + 1);
+        
+        boolean temMais = pedidos.size() > tamanho;
+        if (temMais) {
+            pedidos = pedidos.subList(0, tamanho);
+        }
+        
+        return new PaginaPedidos(List.copyOf(pedidos), temMais);
     }
     
     /**
-     * Lista pedidos do cliente
+     * Cliente do filtro da listagem: por e-mail, ou por CPF (com ou sem formatação)
      */
-    public List<Pedido> listarPedidosCliente(Long clienteId) {
-        return pedidoRepository.findByClienteIdOrderByDataPedidoDesc(clienteId);
+    private Optional<Cliente> buscarClienteFiltro(String cliente) {
+        if (cliente.contains("@")) {
+            return clienteRepository.findByEmail(cliente);
+        }
+        return clienteRepository.findByCpf(cliente.replaceAll("\\D", ""));
     }
     
     /**
@@ -191,5 +329,31 @@ public class PedidoService {
         
         pedido.setStatus(novoStatus);
         pedidoRepository.save(pedido);
+        eventPublisher.publishEvent(new PedidoAlteradoEvent(pedido.getId(), pedido.getCliente().getId()));
+    }
+    
+    /**
+     * Página da listagem de pedidos com o cursor para a próxima página
+     */
+    public static class PaginaPedidos {
+        private final List<PedidoResumo> pedidos;
+        private final boolean temMais;
+        
+        public PaginaPedidos(List<PedidoResumo> pedidos, boolean temMais) {
+            this.pedidos = pedidos;
+            this.temMais = temMais;
+        }
+        
+        public List<PedidoResumo> getPedidos() { return pedidos; }
+        
+        public boolean isTemMais() { return temMais; }
+        
+        public LocalDateTime getProximoAposData() {
+            return temMais ? pedidos.get(pedidos.size() - 1).getDataPedido() : null;
+        }
+        
+        public Long getProximoAposId() {
+            return temMais ? pedidos.get(pedidos.size() - 1).getId() : null;
+        }
     }
 }
\ No newline at end of file
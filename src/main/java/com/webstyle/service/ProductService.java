@@ -1,22 +1,39 @@
 package com.webstyle.service;
 
 import com.webstyle.model.Product;
+import com.webstyle.model.ProductCard;
 import com.webstyle.model.ProductImage;
+import com.webstyle.model.ProdutoSnapshot;
 import com.webstyle.repository.ProductRepository;
 import com.webstyle.repository.ProductImageRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -32,7 +49,32 @@ public class ProductService {
     @Autowired
     private FileUploadService fileUploadService;
     
+    @Autowired
+    private BuscaProdutosIndex buscaProdutosIndex;
+    
+    @Autowired
+    private FacetasCatalogoIndex facetasCatalogoIndex;
+    
+    @Autowired
+    private CatalogoCache catalogoCache;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private EstoqueCentrosService estoqueCentrosService;
+    
+    // Imagens novas em lote JDBC (as linhas não passam pelo contexto de persistência)
+    private static final String SQL_INSERIR_IMAGEM =
+            "INSERT INTO product_images (produto_id, nome_arquivo, nome_original, caminho_arquivo, imagem_principal, data_upload) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+    
     private static final int PRODUTOS_POR_PAGINA = 10;
+    
+    private static final int PRODUTOS_POR_PAGINA_VITRINE = 24;
 
     public Product cadastrarProduto(Product produto, List<MultipartFile> imagens, Long imagemPrincipalIndex) throws IOException {
         // CORREÇÃO: Verifica se código já existe antes de validar outros campos
@@ -57,6 +99,7 @@ public class ProductService {
         
         // Salva o produto primeiro
         Product produtoSalvo = productRepository.save(produto);
+        estoqueCentrosService.ajustarTotal(produtoSalvo.getId(), produtoSalvo.getQuantidadeEstoque());
         
         // CORREÇÃO: Processa e salva as imagens apenas se foram fornecidas
         if (imagens != null && !imagens.isEmpty()) {
@@ -70,6 +113,7 @@ public class ProductService {
             }
         }
         
+        eventPublisher.publishEvent(ProdutoAlteradoEvent.salvo(produtoSalvo.getId()));
         return produtoSalvo;
     }
 
@@ -90,6 +134,8 @@ public class ProductService {
         Product produto = productOpt.get();
         produto.setQuantidadeEstoque(novaQuantidade);
         productRepository.save(produto);
+        estoqueCentrosService.ajustarTotal(id, novaQuantidade);
+        eventPublisher.publishEvent(ProdutoAlteradoEvent.salvo(id));
     }
 
     // CORREÇÃO: Validação mais robusta dos dados do produto
@@ -171,54 +217,82 @@ public class ProductService {
     }
 
     // CORREÇÃO: Melhor tratamento de imagens
+    /**
+     * Grava os arquivos em paralelo e insere todas as linhas de product_images em um único lote JDBC
+     */
     private void salvarImagensProduto(Product produto, List<MultipartFile> imagens, Long imagemPrincipalIndex) throws IOException {
-        int index = 0;
+        List<MultipartFile> arquivos = imagens.stream()
+            .filter(arquivo -> arquivo != null && !arquivo.isEmpty())
+            .toList();
+        if (arquivos.isEmpty()) {
+            return;
+        }
+        
+        List<String> caminhos;
+        try {
+            caminhos = fileUploadService.salvarArquivos(arquivos);
+        } catch (IOException e) {
+            System.err.println("Erro ao salvar imagens do produto " + produto.getCodigo() + ": " + e.getMessage());
+            throw e; // Re-lança para tratar no controller
+        }
+        
+        // CORREÇÃO: Define se é a imagem principal de forma mais robusta
+        boolean[] principais = new boolean[arquivos.size()];
         boolean temImagemPrincipal = false;
+        for (int index = 0; index < arquivos.size(); index++) {
+            if (imagemPrincipalIndex != null) {
+                principais[index] = imagemPrincipalIndex.equals((long) index);
+            } else {
+                // Se não foi especificada, a primeira é a principal
+                principais[index] = index == 0;
+            }
+            temImagemPrincipal |= principais[index];
+        }
         
-        for (MultipartFile arquivo : imagens) {
-            if (arquivo != null && !arquivo.isEmpty()) {
-                try {
-                    // Salva o arquivo fisicamente
-                    String caminhoArquivo = fileUploadService.salvarArquivo(arquivo);
-                    
-                    // Cria o registro da imagem
-                    ProductImage imagem = new ProductImage();
-                    imagem.setNomeOriginal(arquivo.getOriginalFilename());
-                    imagem.setNomeArquivo(caminhoArquivo.substring(caminhoArquivo.lastIndexOf("/") + 1));
-                    imagem.setCaminhoArquivo(caminhoArquivo);
-                    imagem.setProduto(produto);
-                    
-                    // CORREÇÃO: Define se é a imagem principal de forma mais robusta
-                    boolean isPrincipal = false;
-                    if (imagemPrincipalIndex != null) {
-                        isPrincipal = imagemPrincipalIndex.equals((long) index);
-                    } else if (index == 0) {
-                        // Se não foi especificada, a primeira é a principal
-                        isPrincipal = true;
+        // CORREÇÃO: Garante que sempre há uma imagem principal se há imagens
+        if (!temImagemPrincipal) {
+            if (produto.getImagens().isEmpty()) {
+                principais[0] = true;
+            } else {
+                produto.getImagens().get(0).setImagemPrincipal(true);
+                productImageRepository.save(produto.getImagens().get(0));
+            }
+        }
+        
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        KeyHolder ids = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(conexao -> conexao.prepareStatement(SQL_INSERIR_IMAGEM, new String[] { "id" }),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        String caminhoArquivo = caminhos.get(i);
+                        ps.setLong(1, produto.getId());
+                        ps.setString(2, caminhoArquivo.substring(caminhoArquivo.lastIndexOf("/") + 1));
+                        ps.setString(3, arquivos.get(i).getOriginalFilename());
+                        ps.setString(4, caminhoArquivo);
+                        ps.setBoolean(5, principais[i]);
+                        ps.setTimestamp(6, agora);
                     }
                     
-                    if (isPrincipal) {
-                        imagem.setImagemPrincipal(true);
-                        temImagemPrincipal = true;
+                    @Override
+                    public int getBatchSize() {
+                        return arquivos.size();
                     }
-                    
-                    produto.addImagem(imagem);
-                    productImageRepository.save(imagem);
-                    index++;
-                    
-                } catch (IOException e) {
-                    // Em caso de erro, tenta continuar com as outras imagens
-                    System.err.println("Erro ao salvar imagem " + arquivo.getOriginalFilename() + ": " + e.getMessage());
-                    throw e; // Re-lança para tratar no controller
-                }
-            }
-        }
+                }, ids);
         
-        // CORREÇÃO: Garante que sempre há uma imagem principal se há imagens
-        if (!temImagemPrincipal && !produto.getImagens().isEmpty()) {
-            produto.getImagens().get(0).setImagemPrincipal(true);
-            productImageRepository.save(produto.getImagens().get(0));
+        List<Map<String, Object>> chaves = ids.getKeyList();
+        List<Long> imagemIds = new ArrayList<>(caminhos.size());
+        for (int i = 0; i < caminhos.size(); i++) {
+            Long imagemId = ((Number) chaves.get(i).get("id")).longValue();
+            imagemIds.add(imagemId);
+            eventPublisher.publishEvent(new ImagemEnviadaEvent(imagemId, produto.getId(), caminhos.get(i)));
         }
+        
+        // As linhas foram inseridas fora do Hibernate: carrega as entidades (uma consulta)
+        // para que a coleção gerenciada do produto fique igual ao banco no restante da transação
+        productImageRepository.findAllById(imagemIds).stream()
+            .sorted(Comparator.comparing(ProductImage::getId))
+            .forEach(produto.getImagens()::add);
     }
 
     public Page<Product> listarProdutos(int pagina) {
@@ -227,16 +301,76 @@ public class ProductService {
         return productRepository.findAllOrderByDataCriacaoDesc(pageable);
     }
 
+    /**
+     * Busca de produtos do backoffice (ativos e inativos), servida pelo índice em memória
+     * Resultado ordenado por relevância; apenas os produtos da página são lidos do banco
+     */
     public Page<Product> buscarProdutos(String busca, int pagina) {
-        Pageable pageable = PageRequest.of(pagina, PRODUTOS_POR_PAGINA, 
-                Sort.by(Sort.Direction.DESC, "dataCriacao"));
-        
         if (busca == null || busca.trim().isEmpty()) {
             return listarProdutos(pagina);
         }
         
-        return productRepository.findByNomeContainingIgnoreCaseOrCodigoContainingIgnoreCase(
-                busca.trim(), pageable);
+        Pageable pageable = PageRequest.of(pagina, PRODUTOS_POR_PAGINA);
+        List<Long> ids = buscaProdutosIndex.buscar(busca, false);
+        List<Long> idsPagina = fatiar(ids, pageable);
+        
+        Map<Long, Product> porId = new HashMap<>();
+        for (Product produto : productRepository.findAllById(idsPagina)) {
+            porId.put(produto.getId(), produto);
+        }
+        
+        return new PageImpl<>(ordenarPorIds(idsPagina, porId), pageable, ids.size());
+    }
+    
+    /**
+     * Busca e filtros da vitrine pública: apenas produtos ATIVOS
+     * Com texto de busca, em ordem de relevância; sem texto, os mais recentes primeiro
+     * As contagens das facetas acompanham o resultado (mesma requisição, sem SQL)
+     * 
+     * @param busca texto da busca (pode ser vazio quando há filtros)
+     * @param pagina página do resultado (0 = primeira)
+     */
+    @Transactional(readOnly = true)
+    public ResultadoVitrine filtrarVitrine(String busca, FacetasCatalogoIndex.Filtro filtro, int pagina) {
+        Pageable pageable = PageRequest.of(Math.max(pagina, 0), PRODUTOS_POR_PAGINA_VITRINE);
+        filtro.setAtivo(true);
+        
+        List<Long> idsBusca = busca == null || busca.trim().isEmpty() ? null : buscaProdutosIndex.buscar(busca, true);
+        FacetasCatalogoIndex.Resultado facetas = facetasCatalogoIndex.filtrar(
+                filtro, idsBusca, (int) pageable.getOffset(), pageable.getPageSize());
+        
+        Map<Long, ProductCard> porId = buscarCards(facetas.getIdsPagina());
+        Page<ProductCard> produtos = new PageImpl<>(ordenarPorIds(facetas.getIdsPagina(), porId), pageable, facetas.getTotal());
+        return new ResultadoVitrine(produtos, facetas);
+    }
+    
+    /**
+     * Contagens das facetas da vitrine sem filtro (opções exibidas na página inicial)
+     */
+    public FacetasCatalogoIndex.Resultado contarFacetasVitrine() {
+        FacetasCatalogoIndex.Filtro filtro = new FacetasCatalogoIndex.Filtro();
+        filtro.setAtivo(true);
+        return facetasCatalogoIndex.filtrar(filtro, null, 0, 0);
+    }
+    
+    private static List<Long> fatiar(List<Long> ids, Pageable pageable) {
+        int inicio = (int) Math.min(pageable.getOffset(), ids.size());
+        int fim = Math.min(inicio + pageable.getPageSize(), ids.size());
+        return ids.subList(inicio, fim);
+    }
+    
+    /**
+     * Mantém a ordem de relevância do índice (produtos removidos nesse meio tempo ficam de fora)
+     */
+    private static <T> List<T> ordenarPorIds(List<Long> ids, Map<Long, T> porId) {
+        List<T> ordenados = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            T item = porId.get(id);
+            if (item != null) {
+                ordenados.add(item);
+            }
+        }
+        return ordenados;
     }
 
     public Product buscarPorId(Long id) {
@@ -246,6 +380,35 @@ public class ProductService {
         return productRepository.findById(id).orElse(null);
     }
 
+    /**
+     * Produto (com imagens ordenadas, principal primeiro) pelo cache do catálogo
+     * Para exibição e validação; alterações devem usar buscarPorId (entidade)
+     */
+    public ProdutoSnapshot buscarSnapshot(Long id) {
+        return catalogoCache.obter(id);
+    }
+    
+    /**
+     * Produtos informados pelo cache do catálogo, indexados por id (inexistentes ficam de fora)
+     */
+    public Map<Long, ProdutoSnapshot> buscarSnapshots(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new HashMap<>();
+        }
+        return catalogoCache.obterVarios(ids);
+    }
+    
+    /**
+     * Referência ao produto sem carregá-lo (chave estrangeira dos itens do pedido)
+     */
+    public Product referenciaPorId(Long id) {
+        return productRepository.getReferenceById(id);
+    }
+    
+    public Map<String, Object> getEstatisticasCacheCatalogo() {
+        return catalogoCache.getEstatisticas();
+    }
+
     public Product buscarPorCodigo(String codigo) {
         if (codigo == null || codigo.trim().isEmpty()) {
             return null;
@@ -263,6 +426,7 @@ public class ProductService {
             Product produto = productOpt.get();
             produto.setStatus(status);
             productRepository.save(produto);
+            eventPublisher.publishEvent(ProdutoAlteradoEvent.salvo(id));
         } else {
             throw new RuntimeException("Produto não encontrado com ID: " + id);
         }
@@ -328,7 +492,10 @@ public class ProductService {
             }
         }
         
-        return productRepository.save(produto);
+        Product salvo = productRepository.save(produto);
+        estoqueCentrosService.ajustarTotal(id, salvo.getQuantidadeEstoque());
+        eventPublisher.publishEvent(ProdutoAlteradoEvent.salvo(id));
+        return salvo;
     }
 
     private void removerImagem(Product produto, Long imagemId) {
@@ -338,9 +505,9 @@ public class ProductService {
         
         ProductImage imagem = productImageRepository.findById(imagemId).orElse(null);
         if (imagem != null && imagem.getProduto().getId().equals(produto.getId())) {
-            // Remove o arquivo físico
+            // Libera o arquivo físico (original e versões redimensionadas), se nenhuma outra imagem usar o mesmo conteúdo
             try {
-                fileUploadService.deletarArquivo(imagem.getCaminhoArquivo());
+                fileUploadService.liberarArquivos(imagem.getCaminhoArquivo(), imagem.getCaminhosArquivos());
             } catch (Exception e) {
                 System.err.println("Erro ao deletar arquivo físico: " + e.getMessage());
             }
@@ -374,6 +541,7 @@ public class ProductService {
         if (novaImagemPrincipal != null && novaImagemPrincipal.getProduto().getId().equals(produtoId)) {
             novaImagemPrincipal.setImagemPrincipal(true);
             productImageRepository.save(novaImagemPrincipal);
+            eventPublisher.publishEvent(ProdutoAlteradoEvent.salvo(produtoId));
         } else {
             throw new RuntimeException("Imagem não encontrada ou não pertence ao produto especificado");
         }
@@ -393,10 +561,10 @@ public class ProductService {
         
         Product produto = buscarPorId(id);
         if (produto != null) {
-            // Remove todas as imagens físicas
+            // Libera as imagens físicas (originais e versões redimensionadas) sem outras referências
             produto.getImagens().forEach(imagem -> {
                 try {
-                    fileUploadService.deletarArquivo(imagem.getCaminhoArquivo());
+                    fileUploadService.liberarArquivos(imagem.getCaminhoArquivo(), imagem.getCaminhosArquivos());
                 } catch (Exception e) {
                     System.err.println("Erro ao deletar arquivo: " + e.getMessage());
                 }
@@ -404,19 +572,97 @@ public class ProductService {
             
             // Remove do banco (cascade remove as imagens)
             productRepository.deleteById(id);
+            eventPublisher.publishEvent(ProdutoAlteradoEvent.excluido(id));
         } else {
             throw new RuntimeException("Produto não encontrado com ID: " + id);
         }
     }
 
-    // ===== NOVO MÉTODO - Sprint 3 =====
+    // ===== VITRINE PAGINADA =====
     /**
-     * Lista apenas produtos ATIVOS para exibição pública (Sprint 3)
-     * Usado na página home.html
+     * Lista uma página de produtos ATIVOS para a vitrine pública (home.html)
+     * Paginação por cursor (keyset): a próxima página começa logo após o último card exibido,
+     * então o custo de cada página não depende do tamanho do catálogo
      * 
-     * @return Lista de produtos com status ATIVO, ordenados por data de criação (mais recentes primeiro)
+     * @param aposData data de criação do último card da página anterior (null = primeira página)
+     * @param aposId id do último card da página anterior (null = primeira página)
+     * @return Página com os cards e o cursor da próxima página
      */
-    public List<Product> listarProdutosAtivos() {
-        return productRepository.findByStatusOrderByDataCriacaoDesc(Product.Status.ATIVO);
+    @Transactional(readOnly = true)
+    public PaginaVitrine listarVitrine(LocalDateTime aposData, Long aposId) {
+        // Busca um card a mais para saber se existe próxima página
+        Pageable limite = PageRequest.of(0, PRODUTOS_POR_PAGINA_VITRINE + 1);
+        
+        List<ProductCard> cards;
+        if (aposData == null || aposId == null) {
+            cards = productRepository.findCardsByStatus(Product.Status.ATIVO, limite);
+        } else {
+            cards = productRepository.findCardsByStatusApos(Product.Status.ATIVO, aposData, aposId, limite);
+        }
+        
+        boolean temMais = cards.size() > PRODUTOS_POR_PAGINA_VITRINE;
+        if (temMais) {
+            cards = cards.subList(0, PRODUTOS_POR_PAGINA_VITRINE);
+        }
+        
+        return new PaginaVitrine(cards, temMais);
+    }
+    
+    /**
+     * Cards dos produtos informados, indexados por id (produtos inexistentes ficam de fora)
+     * Usado para exibir o carrinho, que guarda apenas produtoId e quantidade
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, ProductCard> buscarCards(Collection<Long> ids) {
+        Map<Long, ProductCard> cards = new HashMap<>();
+        if (ids == null || ids.isEmpty()) {
+            return cards;
+        }
+        for (ProductCard card : productRepository.findCardsByIds(ids)) {
+            cards.put(card.getId(), card);
+        }
+        return cards;
+    }
+    
+    /**
+     * Página da vitrine com o cursor para a próxima página
+     */
+    public static class PaginaVitrine {
+        private final List<ProductCard> produtos;
+        private final boolean temMais;
+        
+        public PaginaVitrine(List<ProductCard> produtos, boolean temMais) {
+            this.produtos = produtos;
+            this.temMais = temMais;
+        }
+        
+        public List<ProductCard> getProdutos() { return produtos; }
+        
+        public boolean isTemMais() { return temMais; }
+        
+        public LocalDateTime getProximoAposData() {
+            return temMais ? produtos.get(produtos.size() - 1).getDataCriacao() : null;
+        }
+        
+        public Long getProximoAposId() {
+            return temMais ? produtos.get(produtos.size() - 1).getId() : null;
+        }
+    }
+    
+    /**
+     * Página da busca/filtro da vitrine com as contagens das facetas
+     */
+    public static class ResultadoVitrine {
+        private final Page<ProductCard> produtos;
+        private final FacetasCatalogoIndex.Resultado facetas;
+        
+        public ResultadoVitrine(Page<ProductCard> produtos, FacetasCatalogoIndex.Resultado facetas) {
+            this.produtos = produtos;
+            this.facetas = facetas;
+        }
+        
+        public Page<ProductCard> getProdutos() { return produtos; }
+        
+        public FacetasCatalogoIndex.Resultado getFacetas() { return facetas; }
     }
-}
\ No newline at end of file
+}
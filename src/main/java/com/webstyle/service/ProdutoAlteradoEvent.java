@@ -0,0 +1,40 @@
+package com.webstyle.service;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Publicado quando produtos são cadastrados, alterados ou excluídos
+ * Os ouvintes (cache e índices em memória do catálogo) reagem após o commit da transação
+ * Vários produtos alterados na mesma operação (ex.: estoque baixado por um pedido) vão num
+ * único evento, para os ouvintes recarregarem todos de uma vez
+ */
+public class ProdutoAlteradoEvent {
+    private final List<Long> produtoIds;
+    private final boolean excluido;
+
+    public ProdutoAlteradoEvent(Collection<Long> produtoIds, boolean excluido) {
+        this.produtoIds = List.copyOf(produtoIds);
+        this.excluido = excluido;
+    }
+
+    public static ProdutoAlteradoEvent salvo(Long produtoId) {
+        return new ProdutoAlteradoEvent(List.of(produtoId), false);
+    }
+
+    public static ProdutoAlteradoEvent salvos(Collection<Long> produtoIds) {
+        return new ProdutoAlteradoEvent(produtoIds, false);
+    }
+
+    public static ProdutoAlteradoEvent excluido(Long produtoId) {
+        return new ProdutoAlteradoEvent(List.of(produtoId), true);
+    }
+
+    public List<Long> getProdutoIds() {
+        return produtoIds;
+    }
+
+    public boolean isExcluido() {
+        return excluido;
+    }
+}
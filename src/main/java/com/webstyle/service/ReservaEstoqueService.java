@@ -0,0 +1,115 @@
+package com.webstyle.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reserva (baixa) de estoque na finalização do pedido
+ * Cada produto é decrementado com um UPDATE condicional (quantidade_estoque >= n),
+ * todos em um único lote JDBC: o banco garante a atomicidade de cada linha, então
+ * checkouts simultâneos nunca vendem além do estoque (sem ler-verificar-gravar na aplicação)
+ * Se algum produto não tiver estoque suficiente, a transação inteira é desfeita
+ * O estoque por centro de distribuição (estoque_centros) é baixado na mesma reserva
+ */
+@Service
+public class ReservaEstoqueService {
+    
+    private static final String SQL_BAIXA =
+            "UPDATE products SET quantidade_estoque = quantidade_estoque - ?, data_atualizacao = ? " +
+            "WHERE id = ? AND quantidade_estoque >= ?";
+    
+    // Nunca abaixo de zero: o que passar da soma dos centros sai do centro principal
+    private static final String SQL_BAIXA_CENTRO =
+            "UPDATE estoque_centros SET quantidade = GREATEST(quantidade - ?, 0) WHERE produto_id = ? AND centro_codigo = ?";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private EstoqueCentrosService estoqueCentrosService;
+    
+    /**
+     * Baixa as quantidades informadas (produtoId → quantidade) dentro da transação atual
+     * Os produtos são atualizados em ordem de id, para que pedidos concorrentes
+     * bloqueiem as linhas sempre na mesma ordem (sem deadlock)
+     * 
+     * @param distancias distância do endereço de entrega até cada centro (ShippingService.distanciasCentros)
+     * @return ids dos produtos sem estoque suficiente (vazio = reserva feita)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Long> reservar(Map<Long, Integer> quantidades, double[] distancias) {
+        List<Long> ids = new ArrayList<>();
+        List<Integer> valores = new ArrayList<>();
+        for (Map.Entry<Long, Integer> item : new TreeMap<>(quantidades).entrySet()) {
+            ids.add(item.getKey());
+            valores.add(item.getValue());
+        }
+        
+        Timestamp agora = new Timestamp(System.currentTimeMillis());
+        int[] alterados = jdbcTemplate.batchUpdate(SQL_BAIXA, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setInt(1, valores.get(i));
+                ps.setTimestamp(2, agora);
+                ps.setLong(3, ids.get(i));
+                ps.setInt(4, valores.get(i));
+            }
+            
+            @Override
+            public int getBatchSize() {
+                return ids.size();
+            }
+        });
+        
+        List<Long> semEstoque = new ArrayList<>();
+        for (int i = 0; i < alterados.length; i++) {
+            if (alterados[i] == 0) {
+                semEstoque.add(ids.get(i));
+            }
+        }
+        if (semEstoque.isEmpty()) {
+            baixarCentros(ids, valores, distancias);
+        }
+        return semEstoque;
+    }
+    
+    /**
+     * Baixa o estoque dos centros de distribuição dos produtos reservados, com a mesma
+     * alocação da cotação do frete (EstoqueCentrosService.alocar: mais próximo primeiro)
+     * As linhas de products já estão bloqueadas por esta transação, então as linhas
+     * de estoque_centros desses produtos não mudam até o commit
+     * Produtos sem estoque por centro (disponíveis só no centro principal) não têm linha a baixar
+     */
+    private void baixarCentros(List<Long> ids, List<Integer> valores, double[] distancias) {
+        int[] quantidades = new int[ids.size()];
+        for (int i = 0; i < ids.size(); i++) {
+            quantidades[i] = valores.get(i);
+        }
+        int[][] alocacao = estoqueCentrosService.alocar(quantidades, estoqueCentrosService.carregarEstoque(ids), distancias);
+        
+        List<CentroDistribuicao> centros = estoqueCentrosService.getCentros();
+        List<Object[]> baixas = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            for (int c = 0; c < centros.size(); c++) {
+                if (alocacao[i][c] > 0) {
+                    baixas.add(new Object[] { alocacao[i][c], ids.get(i), centros.get(c).getCodigo() });
+                }
+            }
+        }
+        if (!baixas.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_BAIXA_CENTRO, baixas);
+        }
+    }
+}
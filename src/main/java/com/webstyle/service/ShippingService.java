@@ -1,37 +1,66 @@
 package com.webstyle.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.webstyle.model.CartItem;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Serviço para cálculo de frete com integração ViaCEP
- * Calcula distância aproximada de São Paulo (Centro de Distribuição)
+ * Calcula distância aproximada até os centros de distribuição (GeoDistanciaIndex)
  */
 @Service
 public class ShippingService {
     
-    // Coordenadas do centro de São Paulo (Centro de Distribuição)
-    private static final double SP_LATITUDE = -23.5505;
-    private static final double SP_LONGITUDE = -46.6333;
+    private final ViaCepClient viaCepClient;
+    private final CepCache cepCache;
+    private final BaseCepOffline baseCepOffline;
+    private final GeoDistanciaIndex geoDistanciaIndex;
+    private final EstoqueCentrosService estoqueCentrosService;
     
-    private final RestTemplate restTemplate;
-    private final ObjectMapper objectMapper;
+    public ShippingService(ViaCepClient viaCepClient, CepCache cepCache, BaseCepOffline baseCepOffline, GeoDistanciaIndex geoDistanciaIndex,
+                           EstoqueCentrosService estoqueCentrosService) {
+        this.viaCepClient = viaCepClient;
+        this.cepCache = cepCache;
+        this.baseCepOffline = baseCepOffline;
+        this.geoDistanciaIndex = geoDistanciaIndex;
+        this.estoqueCentrosService = estoqueCentrosService;
+    }
     
-    public ShippingService() {
-        this.restTemplate = new RestTemplate();
-        this.objectMapper = new ObjectMapper();
+    /**
+     * Localiza o CEP para cálculo de frete (UF, município e coordenadas)
+     * Usa a base offline de faixas de CEP e só consulta a ViaCEP para faixas desconhecidas
+     * Não retorna logradouro/bairro quando resolvido localmente
+     */
+    public CepInfo localizarCep(String cep) throws IOException {
+        String cepLimpo = cep.replaceAll("[^0-9]", "");
+        
+        if (cepLimpo.length() != 8) {
+            throw new IllegalArgumentException("CEP inválido. Deve conter 8 dígitos.");
+        }
+        
+        CepInfo cepInfo = baseCepOffline.buscar(cepLimpo);
+        if (cepInfo != null) {
+            return cepInfo;
+        }
+        
+        return consultarCep(cepLimpo);
     }
     
     /**
-     * Consulta CEP na API ViaCEP
+     * Consulta CEP (cache em memória, com fallback para a API ViaCEP)
+     * Com a ViaCEP indisponível (timeout, circuito aberto) responde com a última
+     * resposta conhecida do cache ou, sem ela, com a base offline (UF e município)
      */
     public CepInfo consultarCep(String cep) throws IOException {
         // Remove formatação do CEP
@@ -41,41 +70,224 @@ public class ShippingService {
             throw new IllegalArgumentException("CEP inválido. Deve conter 8 dígitos.");
         }
         
+        CepCache.Entrada entrada;
         try {
-            String url = "https://viacep.com.br/ws/" + cepLimpo + "/json/";
-            String response = restTemplate.getForObject(url, String.class);
-            
-            JsonNode jsonNode = objectMapper.readTree(response);
-            
-            // Verifica se o CEP existe
-            if (jsonNode.has("erro") && jsonNode.get("erro").asBoolean()) {
-                throw new IllegalArgumentException("CEP não encontrado.");
+            entrada = cepCache.obter(cepLimpo, () -> consultarViaCep(cepLimpo));
+        } catch (IOException e) {
+            entrada = cepCache.obterUltimaConhecida(cepLimpo);
+            if (entrada == null) {
+                CepInfo offline = baseCepOffline.buscar(cepLimpo);
+                if (offline == null) {
+                    throw e;
+                }
+                System.err.println("ViaCEP indisponível (" + e.getMessage() + ") - usando base offline para " + cepLimpo);
+                return offline;
             }
-            
-            CepInfo cepInfo = new CepInfo();
-            cepInfo.setCep(jsonNode.get("cep").asText());
-            cepInfo.setLogradouro(jsonNode.get("logradouro").asText());
-            cepInfo.setBairro(jsonNode.get("bairro").asText());
-            cepInfo.setLocalidade(jsonNode.get("localidade").asText());
-            cepInfo.setUf(jsonNode.get("uf").asText());
-            cepInfo.setIbge(jsonNode.has("ibge") ? jsonNode.get("ibge").asText() : "");
-            
-            return cepInfo;
-            
-        } catch (Exception e) {
-            throw new IOException("Erro ao consultar CEP: " + e.getMessage());
+            System.err.println("ViaCEP indisponível (" + e.getMessage() + ") - usando resposta em cache para " + cepLimpo);
+        }
+        
+        if (entrada.isNaoEncontrado()) {
+            throw new IOException("Erro ao consultar CEP: CEP não encontrado.");
+        }
+        
+        return entrada.getCepInfo();
+    }
+    
+    /**
+     * Consulta CEP na API ViaCEP (cliente assíncrono com timeout e circuit breaker)
+     * "CEP não encontrado" é um resultado (vai para o cache); falhas de rede lançam IOException
+     */
+    private CepCache.Entrada consultarViaCep(String cepLimpo) throws IOException {
+        try {
+            return viaCepClient.consultar(cepLimpo).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Consulta de CEP interrompida");
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            throw new IOException("Erro ao consultar CEP: " + (causa.getMessage() != null ? causa.getMessage() : causa.getClass().getSimpleName()));
         }
     }
     
+    /**
+     * Métricas da integração com a ViaCEP (latência, falhas, estado do circuito)
+     */
+    public Map<String, Object> getEstatisticasViaCep() {
+        return viaCepClient.getEstatisticas();
+    }
+    
+    /**
+     * Estatísticas do cache de CEP (acertos, falhas, remoções)
+     */
+    public Map<String, Object> getEstatisticasCacheCep() {
+        return cepCache.getEstatisticas();
+    }
+    
     /**
      * Calcula opções de frete baseado no CEP de destino e valor do carrinho
+     * Considera apenas o centro de distribuição mais próximo (sem verificar estoque por centro)
      */
     public List<ShippingOption> calcularFrete(String cep, BigDecimal valorCarrinho) throws IOException {
-        CepInfo cepInfo = consultarCep(cep);
+        CepInfo cepInfo = localizarCep(cep);
         
         // Calcula distância aproximada baseada na localização
         double distanciaKm = calcularDistanciaAproximada(cepInfo);
         
+        List<ShippingOption> opcoes = montarOpcoes(distanciaKm, valorCarrinho, null);
+        aplicarFreteGratis(opcoes, valorCarrinho);
+        return opcoes;
+    }
+    
+    /**
+     * Calcula opções de frete para os itens do carrinho considerando todos os centros de distribuição
+     * - Os itens saem do centro mais próximo que tem estoque para todas as linhas (o de menor
+     *   valor e prazo em todas as modalidades); se nenhum atende sozinho, o pedido é dividido
+     *   entre centros, do mais próximo para o mais distante
+     * - A alocação é a mesma usada na baixa do estoque do pedido (EstoqueCentrosService)
+     */
+    public List<ShippingOption> calcularFrete(String cep, BigDecimal valorCarrinho, List<CartItem> itens) throws IOException {
+        CepInfo cepInfo = localizarCep(cep);
+        
+        List<CentroDistribuicao> centros = estoqueCentrosService.getCentros();
+        double[] distancias = distanciasCentros(cepInfo, centros.size());
+        
+        List<Long> produtoIds = new ArrayList<>(itens.size());
+        int[] quantidades = new int[itens.size()];
+        for (int i = 0; i < itens.size(); i++) {
+            produtoIds.add(itens.get(i).getProdutoId());
+            quantidades[i] = itens.get(i).getQuantidade();
+        }
+        int[][] alocacao = estoqueCentrosService.alocar(quantidades, estoqueCentrosService.carregarEstoque(produtoIds), distancias);
+        
+        // Valor dos itens enviados por cada centro
+        BigDecimal[] valorPorCentro = new BigDecimal[centros.size()];
+        for (int i = 0; i < itens.size(); i++) {
+            for (int c = 0; c < centros.size(); c++) {
+                if (alocacao[i][c] > 0) {
+                    BigDecimal valor = itens.get(i).getPreco().multiply(BigDecimal.valueOf(alocacao[i][c]));
+                    valorPorCentro[c] = valorPorCentro[c] == null ? valor : valorPorCentro[c].add(valor);
+                }
+            }
+        }
+        
+        List<ShippingOption> opcoes = combinarVolumes(valorPorCentro, distancias, centros);
+        aplicarFreteGratis(opcoes, valorCarrinho);
+        return opcoes;
+    }
+    
+    /**
+     * Distância do CEP até cada centro, sem consultar a ViaCEP (base offline ou última resposta
+     * em cache, já obtida na cotação); sem nenhuma das duas, todos os centros ficam à mesma distância
+     * Usada na finalização do pedido para repetir a alocação da cotação
+     */
+    public double[] distanciasCentros(String cep) {
+        int totalCentros = estoqueCentrosService.getCentros().size();
+        String cepLimpo = cep != null ? cep.replaceAll("[^0-9]", "") : "";
+        
+        CepInfo cepInfo = cepLimpo.length() == 8 ? baseCepOffline.buscar(cepLimpo) : null;
+        if (cepInfo == null && cepLimpo.length() == 8) {
+            CepCache.Entrada entrada = cepCache.obterUltimaConhecida(cepLimpo);
+            if (entrada != null && !entrada.isNaoEncontrado()) {
+                cepInfo = entrada.getCepInfo();
+            }
+        }
+        if (cepInfo == null) {
+            double[] distancias = new double[totalCentros];
+            Arrays.fill(distancias, GeoDistanciaIndex.DISTANCIA_PADRAO_KM);
+            return distancias;
+        }
+        return distanciasCentros(cepInfo, totalCentros);
+    }
+    
+    private double[] distanciasCentros(CepInfo cepInfo, int totalCentros) {
+        double[] distancias = geoDistanciaIndex.distanciasKm(cepInfo);
+        if (distancias == null) {
+            distancias = new double[totalCentros];
+            Arrays.fill(distancias, GeoDistanciaIndex.DISTANCIA_PADRAO_KM);
+        }
+        return distancias;
+    }
+    
+    /**
+     * Opções de entrega para os volumes de cada centro (um volume: as opções do próprio centro)
+     * Com vários volumes, cada modalidade oferecida por algum centro soma os valores de todos;
+     * o volume cujo centro não oferece a modalidade (Expressa só até 300 km, Transportadora
+     * só acima) entra com a sua opção mais barata. Prazo do volume mais demorado
+     */
+    private List<ShippingOption> combinarVolumes(BigDecimal[] valorPorCentro, double[] distancias,
+                                                 List<CentroDistribuicao> centros) {
+        Integer[] porDistancia = new Integer[centros.size()];
+        for (int c = 0; c < porDistancia.length; c++) {
+            porDistancia[c] = c;
+        }
+        Arrays.sort(porDistancia, Comparator.comparingDouble(c -> distancias[c]));
+        
+        List<Map<String, ShippingOption>> volumes = new ArrayList<>();
+        List<String> origens = new ArrayList<>();
+        for (int c : porDistancia) {
+            if (valorPorCentro[c] == null) {
+                continue;
+            }
+            origens.add(centros.get(c).getNome());
+            Map<String, ShippingOption> doCentro = new LinkedHashMap<>();
+            for (ShippingOption opcao : montarOpcoes(distancias[c], valorPorCentro[c], centros.get(c))) {
+                doCentro.put(opcao.getTipo(), opcao);
+            }
+            volumes.add(doCentro);
+        }
+        if (volumes.size() == 1) {
+            return new ArrayList<>(volumes.get(0).values());
+        }
+        
+        // Modalidades na ordem em que aparecem (volume mais próximo primeiro)
+        Map<String, ShippingOption> modelos = new LinkedHashMap<>();
+        for (Map<String, ShippingOption> volume : volumes) {
+            for (ShippingOption opcao : volume.values()) {
+                modelos.putIfAbsent(opcao.getTipo(), opcao);
+            }
+        }
+        
+        String origem = String.join(" + ", origens);
+        List<ShippingOption> opcoes = new ArrayList<>();
+        for (ShippingOption modelo : modelos.values()) {
+            ShippingOption combinada = new ShippingOption();
+            combinada.setNome(modelo.getNome());
+            combinada.setTipo(modelo.getTipo());
+            combinada.setValor(BigDecimal.ZERO);
+            combinada.setOrigem(origem);
+            boolean substituida = false;
+            for (Map<String, ShippingOption> volume : volumes) {
+                ShippingOption opcao = volume.get(modelo.getTipo());
+                if (opcao == null) {
+                    opcao = maisBarata(volume.values());
+                    substituida = true;
+                }
+                combinada.setValor(combinada.getValor().add(opcao.getValor()));
+                combinada.setPrazoMinimo(Math.max(combinada.getPrazoMinimo(), opcao.getPrazoMinimo()));
+                combinada.setPrazoMaximo(Math.max(combinada.getPrazoMaximo(), opcao.getPrazoMaximo()));
+            }
+            combinada.setDescricao(modelo.getDescricao() + " (" + volumes.size() + " volumes"
+                    + (substituida ? ", parte pela opção mais barata do centro" : "") + ")");
+            opcoes.add(combinada);
+        }
+        return opcoes;
+    }
+    
+    private ShippingOption maisBarata(Collection<ShippingOption> opcoes) {
+        ShippingOption melhor = null;
+        for (ShippingOption opcao : opcoes) {
+            if (melhor == null || opcao.getValor().compareTo(melhor.getValor()) < 0
+                    || (opcao.getValor().compareTo(melhor.getValor()) == 0 && opcao.getPrazoMinimo() < melhor.getPrazoMinimo())) {
+                melhor = opcao;
+            }
+        }
+        return melhor;
+    }
+    
+    /**
+     * Opções de entrega (PAC, SEDEX e Transportadora/Expressa) para uma origem e distância
+     */
+    private List<ShippingOption> montarOpcoes(double distanciaKm, BigDecimal valorCarrinho, CentroDistribuicao centro) {
         List<ShippingOption> opcoes = new ArrayList<>();
         
         // OPÇÃO 1: PAC (Econômico)
@@ -121,85 +333,39 @@ public class ShippingService {
             opcoes.add(expressa);
         }
         
-        // Verifica frete grátis (acima de R$ 300)
-        if (valorCarrinho.compareTo(new BigDecimal("300.00")) >= 0) {
-            // Frete grátis no PAC
-            pac.setValor(BigDecimal.ZERO);
-            pac.setDescricao("Entrega econômica - FRETE GRÁTIS!");
-            pac.setFreteGratis(true);
+        if (centro != null) {
+            for (ShippingOption opcao : opcoes) {
+                opcao.setOrigem(centro.getNome());
+            }
         }
         
         return opcoes;
     }
     
     /**
-     * Calcula distância aproximada baseada na UF e município
+     * Frete grátis no PAC para carrinhos acima de R$ 300
      */
-    private double calcularDistanciaAproximada(CepInfo cepInfo) {
-        String uf = cepInfo.getUf();
-        String cidade = cepInfo.getLocalidade().toUpperCase();
-        
-        // Distâncias aproximadas de São Paulo capital
-        // Mesma cidade de São Paulo
-        if (uf.equals("SP") && cidade.contains("SÃO PAULO")) {
-            return 15.0; // Dentro da cidade
+    private void aplicarFreteGratis(List<ShippingOption> opcoes, BigDecimal valorCarrinho) {
+        if (valorCarrinho.compareTo(new BigDecimal("300.00")) < 0) {
+            return;
         }
-        
-        // Estado de São Paulo
-        if (uf.equals("SP")) {
-            // Cidades próximas da Grande SP
-            if (cidade.contains("GUARULHOS") || cidade.contains("OSASCO") || 
-                cidade.contains("SANTO ANDRÉ") || cidade.contains("SÃO BERNARDO") ||
-                cidade.contains("DIADEMA") || cidade.contains("MAUÁ") || 
-                cidade.contains("CARAPICUÍBA") || cidade.contains("BARUERI")) {
-                return 25.0;
-            }
-            // Interior próximo (até 100km)
-            if (cidade.contains("CAMPINAS") || cidade.contains("JUNDIAÍ") || 
-                cidade.contains("SOROCABA") || cidade.contains("SÃO JOSÉ DOS CAMPOS")) {
-                return 80.0;
+        for (ShippingOption opcao : opcoes) {
+            if ("PAC".equals(opcao.getTipo())) {
+                opcao.setValor(BigDecimal.ZERO);
+                opcao.setDescricao(opcao.getDescricao() + " - FRETE GRÁTIS!");
+                opcao.setFreteGratis(true);
             }
-            // Interior médio (100-300km)
-            if (cidade.contains("RIBEIRÃO PRETO") || cidade.contains("SANTOS") ||
-                cidade.contains("SÃO JOSÉ DO RIO PRETO") || cidade.contains("PIRACICABA")) {
-                return 250.0;
-            }
-            // Interior longe
-            return 450.0;
-        }
-        
-        // Estados vizinhos
-        switch (uf) {
-            case "RJ": return 450.0;  // Rio de Janeiro
-            case "MG": return 600.0;  // Minas Gerais
-            case "PR": return 400.0;  // Paraná
-            case "SC": return 700.0;  // Santa Catarina
-            case "RS": return 1100.0; // Rio Grande do Sul
-            case "ES": return 900.0;  // Espírito Santo
-            case "MS": return 1000.0; // Mato Grosso do Sul
-            case "MT": return 1700.0; // Mato Grosso
-            case "GO": return 900.0;  // Goiás
-            case "DF": return 1000.0; // Distrito Federal
-            case "BA": return 1900.0; // Bahia
-            case "SE": return 2100.0; // Sergipe
-            case "AL": return 2300.0; // Alagoas
-            case "PE": return 2700.0; // Pernambuco
-            case "PB": return 2900.0; // Paraíba
-            case "RN": return 3000.0; // Rio Grande do Norte
-            case "CE": return 3100.0; // Ceará
-            case "PI": return 2800.0; // Piauí
-            case "MA": return 3000.0; // Maranhão
-            case "TO": return 1700.0; // Tocantins
-            case "PA": return 2800.0; // Pará
-            case "AP": return 3400.0; // Amapá
-            case "RR": return 4000.0; // Roraima
-            case "AM": return 3800.0; // Amazonas
-            case "AC": return 3500.0; // Acre
-            case "RO": return 2900.0; // Rondônia
-            default: return 1500.0;   // Padrão
         }
     }
     
+    /**
+     * Distância estimada até o centro de distribuição mais próximo
+     * (índice por código IBGE; coordenadas do CEP como alternativa)
+     */
+    private double calcularDistanciaAproximada(CepInfo cepInfo) {
+        return geoDistanciaIndex.distanciaKm(cepInfo);
+    }
+    
     /**
      * Calcula valor do PAC
      */
@@ -328,6 +494,8 @@ public class ShippingService {
         private String localidade;
         private String uf;
         private String ibge;
+        private Double latitude;
+        private Double longitude;
         
         // Getters e Setters
         public String getCep() { return cep; }
@@ -347,6 +515,12 @@ public class ShippingService {
         
         public String getIbge() { return ibge; }
         public void setIbge(String ibge) { this.ibge = ibge; }
+        
+        public Double getLatitude() { return latitude; }
+        public void setLatitude(Double latitude) { this.latitude = latitude; }
+        
+        public Double getLongitude() { return longitude; }
+        public void setLongitude(Double longitude) { this.longitude = longitude; }
     }
     
     /**
@@ -360,6 +534,7 @@ public class ShippingService {
         private int prazoMinimo;
         private int prazoMaximo;
         private boolean freteGratis;
+        private String origem; // Centro(s) de distribuição de onde sai a entrega
         
         // Getters e Setters
         public String getNome() { return nome; }
@@ -383,6 +558,9 @@ public class ShippingService {
         public boolean isFreteGratis() { return freteGratis; }
         public void setFreteGratis(boolean freteGratis) { this.freteGratis = freteGratis; }
         
+        public String getOrigem() { return origem; }
+        public void setOrigem(String origem) { this.origem = origem; }
+        
         public String getPrazoFormatado() {
             if (prazoMinimo == 0) {
                 return "Hoje mesmo";
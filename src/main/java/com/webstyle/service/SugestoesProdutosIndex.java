@@ -0,0 +1,327 @@
+package com.webstyle.service;
+
+import com.webstyle.model.ProdutoSnapshot;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Sugestões de busca enquanto o cliente digita (autocomplete da vitrine)
+ * - Árvore de prefixos compactada (radix tree) com os nomes e códigos dos produtos ATIVOS,
+ *   normalizados como na busca (minúsculas, sem acentos); o nome entra a partir de cada
+ *   palavra, então "jeans" sugere "Calça Jeans Skinny"
+ * - Cada nó guarda as melhores sugestões abaixo dele, já ordenadas: a consulta só percorre
+ *   o prefixo digitado, sem banco e sem ordenar nada
+ * - A árvore é imutável: alterações no catálogo montam uma nova e trocam a referência,
+ *   e as consultas nunca esperam por lock
+ */
+@Component
+public class SugestoesProdutosIndex {
+
+    private final CatalogoCache catalogoCache;
+    private final int limite;
+
+    // Produtos ATIVOS por id (protegido por synchronized; base para remontar a árvore)
+    private final Map<Long, Sugestao> ativos = new HashMap<>();
+
+    // Alterações recebidas durante a carga completa (null fora dela), reaplicadas sobre a leitura
+    private Map<Long, ProdutoSnapshot> alteradosDuranteCarga;
+
+    private volatile Arvore arvore = new Arvore(new No(new char[0], new String[0], new No[0], new int[0]), new Sugestao[0]);
+
+    public SugestoesProdutosIndex(CatalogoCache catalogoCache,
+                                  @Value("${app.busca.sugestoes.limite:8}") int limite) {
+        this.catalogoCache = catalogoCache;
+        this.limite = limite;
+    }
+
+    /**
+     * A leitura do banco é feita fora do lock; alterações que chegam enquanto isso são
+     * registradas e reaplicadas depois, para não serem sobrescritas pela leitura mais antiga
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregar() {
+        synchronized (this) {
+            alteradosDuranteCarga = new HashMap<>();
+        }
+
+        List<ProdutoSnapshot> produtos = catalogoCache.lerTodosSemImagens();
+        synchronized (this) {
+            ativos.clear();
+            for (ProdutoSnapshot produto : produtos) {
+                if (produto.isAtivo()) {
+                    ativos.put(produto.getId(), new Sugestao(produto));
+                }
+            }
+            alteradosDuranteCarga.forEach(this::aplicar);
+            alteradosDuranteCarga = null;
+            remontar();
+            System.out.println("Sugestões de busca carregadas: " + ativos.size() + " produtos ativos");
+        }
+    }
+
+    /**
+     * Atualiza a árvore após o commit do cadastro, alteração, mudança de status ou exclusão
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void aoAlterarProduto(ProdutoAlteradoEvent evento) {
+        // O CatalogoCache já descartou a versão antiga (ouvinte com prioridade)
+        Map<Long, ProdutoSnapshot> produtos = evento.isExcluido()
+                ? Map.of() : catalogoCache.obterVarios(evento.getProdutoIds());
+
+        synchronized (this) {
+            boolean mudou = false;
+            for (Long produtoId : evento.getProdutoIds()) {
+                ProdutoSnapshot produto = produtos.get(produtoId);
+                if (alteradosDuranteCarga != null) {
+                    alteradosDuranteCarga.put(produtoId, produto);
+                }
+                mudou |= aplicar(produtoId, produto);
+            }
+            // Mudança de estoque ou preço não altera as sugestões: evita remontar à toa
+            if (mudou) {
+                remontar();
+            }
+        }
+    }
+
+    /**
+     * Melhores sugestões para o que foi digitado até agora (vazio se não houver)
+     */
+    public List<Sugestao> sugerir(String digitado) {
+        if (digitado == null) {
+            return Collections.emptyList();
+        }
+        String prefixo = normalizarChave(digitado);
+        if (prefixo.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Arvore atual = arvore;
+        int[] melhores = atual.raiz.buscar(prefixo);
+        List<Sugestao> sugestoes = new ArrayList<>(melhores.length);
+        for (int ordinal : melhores) {
+            sugestoes.add(atual.porOrdinal[ordinal]);
+        }
+        return sugestoes;
+    }
+
+    // ===== MONTAGEM (chamada com o lock do componente) =====
+
+    /**
+     * Atualiza o produto na base (null = excluído); retorna true se a sugestão mudou
+     */
+    private boolean aplicar(Long produtoId, ProdutoSnapshot produto) {
+        Sugestao anterior = produto != null && produto.isAtivo()
+                ? ativos.put(produtoId, new Sugestao(produto))
+                : ativos.remove(produtoId);
+        Sugestao atual = ativos.get(produtoId);
+        return anterior == null ? atual != null : !anterior.mesmaSugestao(atual);
+    }
+
+    private void remontar() {
+        // Ordinal = posição no ranking (melhor avaliação primeiro, depois nome): menor ordinal, melhor sugestão
+        Sugestao[] porOrdinal = ativos.values().toArray(new Sugestao[0]);
+        Arrays.sort(porOrdinal, Comparator.comparing(Sugestao::getAvaliacao, Comparator.reverseOrder())
+                .thenComparing(Sugestao::getNome)
+                .thenComparing(Sugestao::getId));
+
+        NoConstrucao raiz = new NoConstrucao("");
+        for (int ordinal = 0; ordinal < porOrdinal.length; ordinal++) {
+            Sugestao sugestao = porOrdinal[ordinal];
+            String nome = normalizarChave(sugestao.getNome());
+            for (int inicio = 0; inicio < nome.length(); inicio++) {
+                if (inicio == 0 || nome.charAt(inicio - 1) == ' ') {
+                    raiz.inserir(nome.substring(inicio), ordinal);
+                }
+            }
+            String codigo = normalizarChave(sugestao.getCodigo());
+            raiz.inserir(codigo, ordinal);
+            raiz.inserir(codigo.replace(" ", ""), ordinal);
+        }
+
+        arvore = new Arvore(raiz.congelar(limite), porOrdinal);
+    }
+
+    /**
+     * Texto normalizado da busca, com um único espaço entre as palavras
+     */
+    private static String normalizarChave(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        return String.join(" ", BuscaProdutosIndex.normalizar(texto).split("[^a-z0-9]+")).trim();
+    }
+
+    /**
+     * Árvore imutável + sugestões na ordem do ranking
+     */
+    private static class Arvore {
+        private final No raiz;
+        private final Sugestao[] porOrdinal;
+
+        private Arvore(No raiz, Sugestao[] porOrdinal) {
+            this.raiz = raiz;
+            this.porOrdinal = porOrdinal;
+        }
+    }
+
+    /**
+     * Nó imutável: filhos ordenados pelo primeiro caractere do rótulo da aresta
+     */
+    private static class No {
+        private final char[] primeiros;
+        private final String[] rotulos;
+        private final No[] filhos;
+        private final int[] melhores;
+
+        private No(char[] primeiros, String[] rotulos, No[] filhos, int[] melhores) {
+            this.primeiros = primeiros;
+            this.rotulos = rotulos;
+            this.filhos = filhos;
+            this.melhores = melhores;
+        }
+
+        private int[] buscar(String prefixo) {
+            No no = this;
+            int posicao = 0;
+            while (posicao < prefixo.length()) {
+                int filho = Arrays.binarySearch(no.primeiros, prefixo.charAt(posicao));
+                if (filho < 0) {
+                    return new int[0];
+                }
+                String rotulo = no.rotulos[filho];
+                int restante = prefixo.length() - posicao;
+                if (restante <= rotulo.length()) {
+                    // O prefixo termina no meio (ou no fim) da aresta
+                    return prefixo.regionMatches(posicao, rotulo, 0, restante) ? no.filhos[filho].melhores : new int[0];
+                }
+                if (!prefixo.startsWith(rotulo, posicao)) {
+                    return new int[0];
+                }
+                posicao += rotulo.length();
+                no = no.filhos[filho];
+            }
+            return no.melhores;
+        }
+    }
+
+    /**
+     * Nó mutável usado só durante a montagem
+     */
+    private static class NoConstrucao {
+        private String rotulo;
+        private final TreeMap<Character, NoConstrucao> filhos = new TreeMap<>();
+        private final List<Integer> ordinais = new ArrayList<>(1);
+
+        private NoConstrucao(String rotulo) {
+            this.rotulo = rotulo;
+        }
+
+        private void inserir(String chave, int ordinal) {
+            if (chave.isEmpty()) {
+                return;
+            }
+            NoConstrucao no = this;
+            int posicao = 0;
+            while (posicao < chave.length()) {
+                NoConstrucao filho = no.filhos.get(chave.charAt(posicao));
+                if (filho == null) {
+                    filho = new NoConstrucao(chave.substring(posicao));
+                    no.filhos.put(chave.charAt(posicao), filho);
+                    no = filho;
+                    break;
+                }
+
+                int comum = 0;
+                int maximo = Math.min(filho.rotulo.length(), chave.length() - posicao);
+                while (comum < maximo && filho.rotulo.charAt(comum) == chave.charAt(posicao + comum)) {
+                    comum++;
+                }
+
+                if (comum < filho.rotulo.length()) {
+                    // Divide a aresta no ponto em que a chave diverge
+                    NoConstrucao meio = new NoConstrucao(filho.rotulo.substring(0, comum));
+                    filho.rotulo = filho.rotulo.substring(comum);
+                    meio.filhos.put(filho.rotulo.charAt(0), filho);
+                    no.filhos.put(meio.rotulo.charAt(0), meio);
+                    filho = meio;
+                }
+                no = filho;
+                posicao += comum;
+            }
+            if (no.ordinais.isEmpty() || no.ordinais.get(no.ordinais.size() - 1) != ordinal) {
+                no.ordinais.add(ordinal);
+            }
+        }
+
+        /**
+         * Converte para nós imutáveis calculando as melhores sugestões de cada nó
+         * (as do próprio nó + as dos filhos, sem repetir produto, até o limite)
+         */
+        private No congelar(int limite) {
+            int total = filhos.size();
+            char[] primeiros = new char[total];
+            String[] rotulos = new String[total];
+            No[] congelados = new No[total];
+
+            List<Integer> candidatos = new ArrayList<>(ordinais);
+            int i = 0;
+            for (Map.Entry<Character, NoConstrucao> filho : filhos.entrySet()) {
+                primeiros[i] = filho.getKey();
+                rotulos[i] = filho.getValue().rotulo;
+                congelados[i] = filho.getValue().congelar(limite);
+                for (int ordinal : congelados[i].melhores) {
+                    candidatos.add(ordinal);
+                }
+                i++;
+            }
+
+            int[] melhores = candidatos.stream().mapToInt(Integer::intValue).sorted().distinct().limit(limite).toArray();
+            return new No(primeiros, rotulos, congelados, melhores);
+        }
+    }
+
+    /**
+     * Sugestão exibida na caixa de busca
+     */
+    public static class Sugestao {
+        private final Long id;
+        private final String nome;
+        private final String codigo;
+        private final BigDecimal avaliacao;
+
+        private Sugestao(ProdutoSnapshot produto) {
+            this.id = produto.getId();
+            this.nome = produto.getNome();
+            this.codigo = produto.getCodigo();
+            this.avaliacao = produto.getAvaliacao() != null ? produto.getAvaliacao() : BigDecimal.ZERO;
+        }
+
+        private boolean mesmaSugestao(Sugestao outra) {
+            return outra != null && nome.equals(outra.nome) && codigo.equals(outra.codigo)
+                    && avaliacao.compareTo(outra.avaliacao) == 0;
+        }
+
+        public Long getId() { return id; }
+
+        public String getNome() { return nome; }
+
+        public String getCodigo() { return codigo; }
+
+        public BigDecimal getAvaliacao() { return avaliacao; }
+    }
+}
@@ -0,0 +1,222 @@
+package com.webstyle.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cliente HTTP assíncrono da API ViaCEP
+ * - Timeouts de conexão e de resposta (nenhuma thread fica presa esperando a ViaCEP)
+ * - Limite de consultas simultâneas: acima dele a consulta falha na hora
+ * - Circuit breaker: após falhas consecutivas as consultas falham imediatamente
+ *   por um intervalo, e depois uma única consulta de teste decide se o circuito fecha
+ * - Métricas de latência e de falhas
+ * A URL base é configurável (app.viacep.url) para apontar para um servidor local nos testes
+ */
+@Component
+public class ViaCepClient {
+
+    private enum EstadoCircuito { FECHADO, ABERTO, MEIO_ABERTO }
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String urlBase;
+    private final Duration timeout;
+    private final Semaphore vagas;
+    private final int maxConcorrentes;
+    private final int limiteFalhas;
+    private final long circuitoAbertoMillis;
+
+    // Estado do circuit breaker (protegido por synchronized)
+    private EstadoCircuito estado = EstadoCircuito.FECHADO;
+    private int falhasConsecutivas;
+    private long abertoAte;
+
+    // Métricas
+    private final AtomicLong chamadas = new AtomicLong();
+    private final AtomicLong sucessos = new AtomicLong();
+    private final AtomicLong erros = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong rejeitadas = new AtomicLong();
+    private final AtomicLong curtoCircuito = new AtomicLong();
+    private final AtomicLong latenciaTotalMillis = new AtomicLong();
+    private final AtomicLong latenciaMaximaMillis = new AtomicLong();
+
+    public ViaCepClient(@Value("${app.viacep.url:https://viacep.com.br/ws/}") String urlBase,
+                        @Value("${app.viacep.connect-timeout-ms:1000}") long connectTimeoutMs,
+                        @Value("${app.viacep.timeout-ms:2000}") long timeoutMs,
+                        @Value("${app.viacep.max-concorrentes:20}") int maxConcorrentes,
+                        @Value("${app.viacep.circuito.falhas:5}") int limiteFalhas,
+                        @Value("${app.viacep.circuito.aberto-segundos:30}") long circuitoAbertoSegundos) {
+        this.urlBase = urlBase.endsWith("/") ? urlBase : urlBase + "/";
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.maxConcorrentes = maxConcorrentes;
+        this.vagas = new Semaphore(maxConcorrentes);
+        this.limiteFalhas = limiteFalhas;
+        this.circuitoAbertoMillis = circuitoAbertoSegundos * 1000L;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    /**
+     * Consulta o CEP (8 dígitos, sem formatação) sem bloquear a thread chamadora
+     * O resultado é "encontrado" ou "não encontrado"; indisponibilidade da ViaCEP
+     * (timeout, erro HTTP, circuito aberto, limite de concorrência) completa com IOException
+     */
+    public CompletableFuture<CepCache.Entrada> consultar(String cepLimpo) {
+        if (!permitirChamada()) {
+            curtoCircuito.incrementAndGet();
+            return CompletableFuture.failedFuture(new IOException("ViaCEP indisponível (circuito aberto)"));
+        }
+        if (!vagas.tryAcquire()) {
+            rejeitadas.incrementAndGet();
+            liberarTeste();
+            return CompletableFuture.failedFuture(new IOException("ViaCEP sobrecarregada: limite de consultas simultâneas atingido"));
+        }
+
+        chamadas.incrementAndGet();
+        long inicio = System.nanoTime();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(urlBase + cepLimpo + "/json/"))
+                .timeout(timeout)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(this::interpretar)
+                .whenComplete((entrada, erro) -> {
+                    vagas.release();
+                    registrarLatencia(inicio);
+                    if (erro == null) {
+                        sucessos.incrementAndGet();
+                        registrarSucesso();
+                    } else {
+                        Throwable causa = erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
+                        if (causa instanceof HttpTimeoutException) {
+                            timeouts.incrementAndGet();
+                        } else {
+                            erros.incrementAndGet();
+                        }
+                        registrarFalha();
+                    }
+                });
+    }
+
+    private CepCache.Entrada interpretar(HttpResponse<String> response) {
+        // A ViaCEP responde 400 para CEP mal formatado e {"erro": true} para CEP inexistente
+        if (response.statusCode() == 400) {
+            return CepCache.Entrada.naoEncontrado();
+        }
+        if (response.statusCode() != 200) {
+            throw new CompletionException(new IOException("ViaCEP respondeu HTTP " + response.statusCode()));
+        }
+
+        try {
+            JsonNode jsonNode = objectMapper.readTree(response.body());
+
+            // Verifica se o CEP existe
+            if (jsonNode.has("erro") && jsonNode.get("erro").asBoolean()) {
+                return CepCache.Entrada.naoEncontrado();
+            }
+
+            ShippingService.CepInfo cepInfo = new ShippingService.CepInfo();
+            cepInfo.setCep(jsonNode.path("cep").asText());
+            cepInfo.setLogradouro(jsonNode.path("logradouro").asText());
+            cepInfo.setBairro(jsonNode.path("bairro").asText());
+            cepInfo.setLocalidade(jsonNode.path("localidade").asText());
+            cepInfo.setUf(jsonNode.path("uf").asText());
+            cepInfo.setIbge(jsonNode.path("ibge").asText(""));
+
+            return CepCache.Entrada.encontrado(cepInfo);
+        } catch (IOException e) {
+            throw new CompletionException(new IOException("Resposta inválida da ViaCEP: " + e.getMessage()));
+        }
+    }
+
+    // ===== CIRCUIT BREAKER =====
+
+    private synchronized boolean permitirChamada() {
+        if (estado == EstadoCircuito.FECHADO) {
+            return true;
+        }
+        if (estado == EstadoCircuito.ABERTO && System.currentTimeMillis() >= abertoAte) {
+            // Intervalo encerrado: deixa passar uma única consulta de teste
+            estado = EstadoCircuito.MEIO_ABERTO;
+            return true;
+        }
+        return false;
+    }
+
+    private synchronized void liberarTeste() {
+        // Consulta de teste não chegou a ser feita: permite uma nova tentativa
+        if (estado == EstadoCircuito.MEIO_ABERTO) {
+            estado = EstadoCircuito.ABERTO;
+            abertoAte = 0;
+        }
+    }
+
+    private synchronized void registrarSucesso() {
+        falhasConsecutivas = 0;
+        if (estado != EstadoCircuito.FECHADO) {
+            System.out.println("ViaCEP respondeu novamente - circuito fechado");
+        }
+        estado = EstadoCircuito.FECHADO;
+    }
+
+    private synchronized void registrarFalha() {
+        falhasConsecutivas++;
+        if (estado == EstadoCircuito.MEIO_ABERTO
+                || (estado == EstadoCircuito.FECHADO && falhasConsecutivas >= limiteFalhas)) {
+            estado = EstadoCircuito.ABERTO;
+            abertoAte = System.currentTimeMillis() + circuitoAbertoMillis;
+            System.err.println("ViaCEP com " + falhasConsecutivas + " falha(s) consecutiva(s) - circuito aberto por "
+                    + (circuitoAbertoMillis / 1000) + "s");
+        }
+    }
+
+    private void registrarLatencia(long inicio) {
+        long millis = (System.nanoTime() - inicio) / 1_000_000;
+        latenciaTotalMillis.addAndGet(millis);
+        latenciaMaximaMillis.accumulateAndGet(millis, Math::max);
+    }
+
+    /**
+     * Métricas da integração (latência, falhas, estado do circuito)
+     */
+    public Map<String, Object> getEstatisticas() {
+        Map<String, Object> estatisticas = new LinkedHashMap<>();
+        long totalChamadas = chamadas.get();
+
+        synchronized (this) {
+            estatisticas.put("circuito", estado.name());
+            estatisticas.put("falhasConsecutivas", falhasConsecutivas);
+        }
+        estatisticas.put("chamadas", totalChamadas);
+        estatisticas.put("sucessos", sucessos.get());
+        estatisticas.put("erros", erros.get());
+        estatisticas.put("timeouts", timeouts.get());
+        estatisticas.put("rejeitadas", rejeitadas.get());
+        estatisticas.put("curtoCircuito", curtoCircuito.get());
+        estatisticas.put("emAndamento", maxConcorrentes - vagas.availablePermits());
+        estatisticas.put("latenciaMediaMs", totalChamadas == 0 ? 0.0 : (double) latenciaTotalMillis.get() / totalChamadas);
+        estatisticas.put("latenciaMaximaMs", latenciaMaximaMillis.get());
+        return estatisticas;
+    }
+}
@@ -0,0 +1,161 @@
+-- Esquema inicial do banco (equivalente ao que o Hibernate gerava com ddl-auto)
+-- A partir daqui toda alteração de esquema é feita em uma nova migração V<n>__descricao.sql
+
+-- ===== USUÁRIOS DO BACKOFFICE =====
+
+CREATE TABLE users (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    nome VARCHAR(255) NOT NULL,
+    cpf VARCHAR(255),
+    email VARCHAR(255) NOT NULL,
+    senha VARCHAR(255) NOT NULL,
+    tipo VARCHAR(255) CHECK (tipo IN ('BACKOFFICE', 'EXTERNO')),
+    status VARCHAR(255) CHECK (status IN ('ATIVO', 'INATIVO')),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+-- ===== PRODUTOS =====
+
+CREATE TABLE products (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    codigo VARCHAR(255) NOT NULL,
+    nome VARCHAR(200) NOT NULL,
+    descricao TEXT,
+    preco NUMERIC(10, 2) NOT NULL,
+    quantidade_estoque INTEGER NOT NULL,
+    avaliacao NUMERIC(2, 1) NOT NULL,
+    status VARCHAR(255) CHECK (status IN ('ATIVO', 'INATIVO')),
+    data_criacao TIMESTAMP(6) NOT NULL,
+    data_atualizacao TIMESTAMP(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_products_codigo UNIQUE (codigo)
+);
+
+CREATE TABLE product_images (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    produto_id BIGINT NOT NULL,
+    nome_arquivo VARCHAR(255) NOT NULL,
+    nome_original VARCHAR(255) NOT NULL,
+    caminho_arquivo VARCHAR(255) NOT NULL,
+    imagem_principal BOOLEAN NOT NULL,
+    data_upload TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_product_images_produto FOREIGN KEY (produto_id) REFERENCES products (id)
+);
+
+CREATE TABLE estoque_centros (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    produto_id BIGINT NOT NULL,
+    centro_codigo VARCHAR(20) NOT NULL,
+    quantidade INTEGER NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_estoque_centros_produto_centro UNIQUE (produto_id, centro_codigo),
+    CONSTRAINT fk_estoque_centros_produto FOREIGN KEY (produto_id) REFERENCES products (id) ON DELETE CASCADE
+);
+
+-- ===== CLIENTES =====
+
+CREATE TABLE clientes (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    nome_completo VARCHAR(255) NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    cpf VARCHAR(11) NOT NULL,
+    senha VARCHAR(255) NOT NULL,
+    data_nascimento DATE NOT NULL,
+    genero VARCHAR(255) NOT NULL,
+    data_cadastro TIMESTAMP(6) NOT NULL,
+    status VARCHAR(255) NOT NULL CHECK (status IN ('ATIVO', 'INATIVO')),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_clientes_email UNIQUE (email),
+    CONSTRAINT uk_clientes_cpf UNIQUE (cpf)
+);
+
+CREATE TABLE enderecos (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    cliente_id BIGINT NOT NULL,
+    cep VARCHAR(8) NOT NULL,
+    logradouro VARCHAR(255) NOT NULL,
+    numero VARCHAR(255) NOT NULL,
+    complemento VARCHAR(255),
+    bairro VARCHAR(255) NOT NULL,
+    cidade VARCHAR(255) NOT NULL,
+    estado VARCHAR(2) NOT NULL,
+    apelido VARCHAR(255),
+    faturamento BOOLEAN NOT NULL,
+    endereco_padrao BOOLEAN NOT NULL,
+    ativo BOOLEAN NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_enderecos_cliente FOREIGN KEY (cliente_id) REFERENCES clientes (id)
+);
+
+-- ===== PEDIDOS =====
+
+CREATE TABLE pedidos (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    numero_pedido VARCHAR(255) NOT NULL,
+    cliente_id BIGINT NOT NULL,
+    data_pedido TIMESTAMP(6) NOT NULL,
+    valor_subtotal NUMERIC(10, 2) NOT NULL,
+    valor_frete NUMERIC(10, 2) NOT NULL,
+    valor_total NUMERIC(10, 2) NOT NULL,
+    status VARCHAR(255) NOT NULL CHECK (status IN ('AGUARDANDO_PAGAMENTO', 'PAGAMENTO_REJEITADO', 'PAGAMENTO_CONFIRMADO',
+                                                   'AGUARDANDO_RETIRADA', 'EM_TRANSITO', 'ENTREGUE')),
+    forma_pagamento VARCHAR(255) NOT NULL CHECK (forma_pagamento IN ('CARTAO_CREDITO', 'BOLETO')),
+    numero_parcelas INTEGER,
+    endereco_entrega_cep VARCHAR(255) NOT NULL,
+    endereco_entrega_logradouro VARCHAR(255) NOT NULL,
+    endereco_entrega_numero VARCHAR(255) NOT NULL,
+    endereco_entrega_complemento VARCHAR(255),
+    endereco_entrega_bairro VARCHAR(255) NOT NULL,
+    endereco_entrega_cidade VARCHAR(255) NOT NULL,
+    endereco_entrega_estado VARCHAR(2) NOT NULL,
+    tipo_frete VARCHAR(255) NOT NULL,
+    nome_frete VARCHAR(255) NOT NULL,
+    prazo_entrega VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_pedidos_numero UNIQUE (numero_pedido),
+    CONSTRAINT fk_pedidos_cliente FOREIGN KEY (cliente_id) REFERENCES clientes (id)
+);
+
+CREATE TABLE itens_pedido (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    pedido_id BIGINT NOT NULL,
+    produto_id BIGINT NOT NULL,
+    codigo_produto VARCHAR(255) NOT NULL,
+    nome_produto VARCHAR(255) NOT NULL,
+    imagem_produto VARCHAR(255),
+    quantidade INTEGER NOT NULL,
+    preco_unitario NUMERIC(10, 2) NOT NULL,
+    subtotal NUMERIC(10, 2) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_itens_pedido_pedido FOREIGN KEY (pedido_id) REFERENCES pedidos (id),
+    CONSTRAINT fk_itens_pedido_produto FOREIGN KEY (produto_id) REFERENCES products (id)
+);
+
+-- Números de pedido: próximo valor ainda não reservado de cada mês (GeradorNumeroPedido)
+CREATE TABLE sequencias_pedido (
+    ano_mes VARCHAR(6) NOT NULL,
+    proximo_valor BIGINT NOT NULL,
+    PRIMARY KEY (ano_mes)
+);
+
+-- ===== CARRINHOS (JdbcCartStore, app.carrinho.store=jdbc) =====
+
+CREATE TABLE carrinhos (
+    carrinho_id VARCHAR(36) NOT NULL,
+    linhas INT NOT NULL,
+    total_itens INT NOT NULL,
+    total_centavos BIGINT NOT NULL,
+    atualizado_em TIMESTAMP NOT NULL,
+    PRIMARY KEY (carrinho_id)
+);
+
+CREATE TABLE carrinho_itens (
+    carrinho_id VARCHAR(36) NOT NULL,
+    produto_id BIGINT NOT NULL,
+    quantidade INT NOT NULL,
+    preco_centavos BIGINT NOT NULL,
+    adicionado_em TIMESTAMP NOT NULL,
+    PRIMARY KEY (carrinho_id, produto_id)
+);
@@ -0,0 +1,43 @@
+-- Índices das consultas dos repositórios (com.webstyle.repository)
+-- Buscas por chave única (email, cpf, codigo, numero_pedido) já usam o índice da constraint UNIQUE
+
+-- ===== PRODUTOS =====
+
+-- Vitrine: ProductRepository.findCardsByStatus / findCardsByStatusApos
+-- (WHERE status = ? ORDER BY data_criacao DESC, id DESC, cursor data_criacao + id)
+CREATE INDEX idx_products_status_data ON products (status, data_criacao, id);
+
+-- Backoffice: ProductRepository.findAllOrderByDataCriacaoDesc
+CREATE INDEX idx_products_data ON products (data_criacao, id);
+
+-- Imagens: ProductImageRepository.findByProdutoId, findByProdutoOrderByImagemPrincipalDescDataUploadAsc,
+-- findByProdutoIdAndImagemPrincipalTrue, countByProdutoId, deleteByProdutoId
+-- e a subconsulta da imagem principal nos cards da vitrine
+CREATE INDEX idx_product_images_produto ON product_images (produto_id, imagem_principal, data_upload);
+
+-- ===== CLIENTES =====
+
+-- EnderecoRepository.findByClienteId*, findByIdAndClienteId
+CREATE INDEX idx_enderecos_cliente ON enderecos (cliente_id, faturamento, ativo);
+
+-- ===== PEDIDOS =====
+
+-- Listagem do estoquista sem filtro: PedidoRepositoryCustom.buscarResumos (ORDER BY data_pedido DESC, id DESC)
+CREATE INDEX idx_pedidos_data ON pedidos (data_pedido, id);
+
+-- Listagem do estoquista filtrada por status
+CREATE INDEX idx_pedidos_status_data ON pedidos (status, data_pedido, id);
+
+-- Histórico do cliente e listagem do estoquista filtrada por cliente
+CREATE INDEX idx_pedidos_cliente_data ON pedidos (cliente_id, data_pedido, id);
+
+-- ItemPedidoRepository.findByPedidoId e carga dos itens na página de detalhes
+CREATE INDEX idx_itens_pedido_pedido ON itens_pedido (pedido_id);
+
+-- Chave estrangeira para products (exclusão/alteração de produto)
+CREATE INDEX idx_itens_pedido_produto ON itens_pedido (produto_id);
+
+-- ===== CARRINHOS =====
+
+-- Limpeza dos carrinhos inativos: JdbcCartStore (WHERE atualizado_em < ?)
+CREATE INDEX idx_carrinhos_atualizado ON carrinhos (atualizado_em);
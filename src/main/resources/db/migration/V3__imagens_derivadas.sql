@@ -0,0 +1,7 @@
+-- Versões redimensionadas das imagens de produto (ImagensDerivadasService)
+-- Geradas em segundo plano após o upload: ficam nulas até a geração terminar
+-- (a vitrine usa o arquivo original enquanto isso)
+
+ALTER TABLE product_images ADD COLUMN caminho_miniatura VARCHAR(255);
+ALTER TABLE product_images ADD COLUMN caminho_card VARCHAR(255);
+ALTER TABLE product_images ADD COLUMN caminho_zoom VARCHAR(255);
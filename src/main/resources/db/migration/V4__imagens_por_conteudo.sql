@@ -0,0 +1,4 @@
+-- Armazenamento das imagens endereçado pelo conteúdo (FileUploadService)
+-- Várias imagens podem apontar para o mesmo arquivo: a contagem de referências antes de apagar
+-- o arquivo e o reaproveitamento das versões redimensionadas buscam por caminho_arquivo
+CREATE INDEX idx_product_images_caminho ON product_images (caminho_arquivo);
@@ -0,0 +1,16 @@
+-- Ajustes verificados pelo plano de execução das consultas (IndicesConsultasTest)
+
+-- Backoffice: ProductRepository.findAllOrderByDataCriacaoDesc (ORDER BY data_criacao DESC, sem filtro)
+-- Sem condição no WHERE o índice só serve para a ordenação, e o H2 só o usa quando a direção
+-- das colunas é a mesma do ORDER BY (a página sai do índice sem ordenar a tabela inteira)
+DROP INDEX idx_products_data;
+CREATE INDEX idx_products_data ON products (data_criacao DESC, id DESC);
+
+-- As chaves estrangeiras de itens_pedido foram criadas (V1) antes dos índices da V2 e ganharam
+-- índices automáticos com as mesmas colunas; recriadas agora, reaproveitam os índices da V2
+-- (dois índices a menos para manter a cada item de pedido gravado)
+ALTER TABLE itens_pedido DROP CONSTRAINT fk_itens_pedido_pedido;
+ALTER TABLE itens_pedido ADD CONSTRAINT fk_itens_pedido_pedido FOREIGN KEY (pedido_id) REFERENCES pedidos (id);
+
+ALTER TABLE itens_pedido DROP CONSTRAINT fk_itens_pedido_produto;
+ALTER TABLE itens_pedido ADD CONSTRAINT fk_itens_pedido_produto FOREIGN KEY (produto_id) REFERENCES products (id);
@@ -0,0 +1,25 @@
+-- Listagens paginadas por cursor (ORDER BY data DESC, id DESC), verificadas pelo plano de execução
+-- do SQL gerado pelos repositórios (IndicesConsultasTest)
+-- Com as colunas na mesma direção do ORDER BY, a página sai do índice já ordenada (como idx_products_data
+-- na V5); nas listagens filtradas por status, a coluna do filtro também entra no ORDER BY das consultas
+
+-- Vitrine: ProductRepository.findCardsByStatus / findCardsByStatusApos
+DROP INDEX idx_products_status_data;
+CREATE INDEX idx_products_status_data ON products (status, data_criacao DESC, id DESC);
+
+-- Pedidos: PedidoRepositoryCustom.buscarResumos sem filtro ou por período
+DROP INDEX idx_pedidos_data;
+CREATE INDEX idx_pedidos_data ON pedidos (data_pedido DESC, id DESC);
+
+-- Pedidos filtrados por status
+DROP INDEX idx_pedidos_status_data;
+CREATE INDEX idx_pedidos_status_data ON pedidos (status, data_pedido DESC, id DESC);
+
+-- Histórico do cliente e pedidos filtrados por cliente: com igualdade em cliente_id o H2 sempre escolhe
+-- o índice próprio da chave fk_pedidos_cliente (mais estreito), lê só os pedidos do cliente e ordena;
+-- o composto nunca era usado e só pesava nas gravações
+DROP INDEX idx_pedidos_cliente_data;
+
+-- Endereços do cliente: o H2 mantém o índice próprio da chave fk_enderecos_cliente (cliente_id), que já
+-- atende os filtros (poucos endereços por cliente); o composto só disputava o plano com ele
+DROP INDEX idx_enderecos_cliente;
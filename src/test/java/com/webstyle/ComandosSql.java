@@ -0,0 +1,147 @@
+package com.webstyle;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Comandos SQL enviados ao banco durante uma ação dos testes, na ordem em que foram preparados,
+ * com os parâmetros informados (no lote, os da última linha)
+ * O DataSource é envolvido na criação do contexto, então entram tanto o SQL gerado pelo
+ * Hibernate quanto o do JdbcTemplate; só os comandos da thread que chamou capturar são registrados
+ * Cada PreparedStatement conta uma vez, mesmo executado em lote
+ */
+@Component
+public class ComandosSql implements BeanPostProcessor {
+
+    private static final Set<String> EXECUCOES = Set.of("execute", "executeQuery", "executeUpdate",
+            "executeLargeUpdate", "addBatch");
+
+    private static final ThreadLocal<List<Comando>> CAPTURADOS = new ThreadLocal<>();
+
+    @FunctionalInterface
+    public interface Acao {
+        void executar() throws Exception;
+    }
+
+    /**
+     * SQL como enviado ao driver e valores dos parâmetros (posição 1 = índice 0)
+     */
+    public record Comando(String sql, List<Object> parametros) {
+    }
+
+    public List<Comando> capturar(Acao acao) throws Exception {
+        List<Comando> comandos = new ArrayList<>();
+        CAPTURADOS.set(comandos);
+        try {
+            acao.executar();
+        } finally {
+            CAPTURADOS.remove();
+        }
+        return comandos;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource dataSource)) {
+            return bean;
+        }
+        return new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return conexao(super.getConnection());
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return conexao(super.getConnection(username, password));
+            }
+        };
+    }
+
+    private static Comando registrar(String sql) {
+        List<Comando> comandos = CAPTURADOS.get();
+        if (comandos == null) {
+            return null;
+        }
+        Comando comando = new Comando(sql, new ArrayList<>());
+        comandos.add(comando);
+        return comando;
+    }
+
+    /**
+     * Registra o SQL de prepareStatement/prepareCall e, durante uma captura, acompanha os
+     * PreparedStatement (parâmetros) e os Statement (SQL passado na execução)
+     */
+    private static Connection conexao(Connection alvo) {
+        return proxy(Connection.class, alvo, (metodo, argumentos) -> {
+            Comando comando = null;
+            if (metodo.getName().startsWith("prepare")) {
+                comando = registrar((String) argumentos[0]);
+            }
+            Object resultado = invocar(metodo, alvo, argumentos);
+            if (comando != null && metodo.getName().equals("prepareStatement")) {
+                return preparado(comando, (PreparedStatement) resultado);
+            }
+            if (CAPTURADOS.get() != null && metodo.getName().equals("createStatement")) {
+                return comum((Statement) resultado);
+            }
+            return resultado;
+        });
+    }
+
+    private static PreparedStatement preparado(Comando comando, PreparedStatement alvo) {
+        return proxy(PreparedStatement.class, alvo, (metodo, argumentos) -> {
+            if (metodo.getName().startsWith("set") && argumentos != null && argumentos.length >= 2
+                    && argumentos[0] instanceof Integer posicao) {
+                List<Object> parametros = comando.parametros();
+                while (parametros.size() < posicao) {
+                    parametros.add(null);
+                }
+                parametros.set(posicao - 1, metodo.getName().equals("setNull") ? null : argumentos[1]);
+            }
+            return invocar(metodo, alvo, argumentos);
+        });
+    }
+
+    private static Statement comum(Statement alvo) {
+        return proxy(Statement.class, alvo, (metodo, argumentos) -> {
+            if (EXECUCOES.contains(metodo.getName()) && argumentos != null && argumentos.length > 0
+                    && argumentos[0] instanceof String sql) {
+                registrar(sql);
+            }
+            return invocar(metodo, alvo, argumentos);
+        });
+    }
+
+    @FunctionalInterface
+    private interface Interceptador {
+        Object chamar(Method metodo, Object[] argumentos) throws Throwable;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> tipo, T alvo, Interceptador interceptador) {
+        return (T) Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[] { tipo },
+                (proxy, metodo, argumentos) -> interceptador.chamar(metodo, argumentos));
+    }
+
+    private static Object invocar(Method metodo, Object alvo, Object[] argumentos) throws Throwable {
+        try {
+            return metodo.invoke(alvo, argumentos);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
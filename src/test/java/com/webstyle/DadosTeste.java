@@ -0,0 +1,108 @@
+package com.webstyle;
+
+import com.webstyle.model.CartItem;
+import com.webstyle.model.Cliente;
+import com.webstyle.model.Endereco;
+import com.webstyle.model.Pedido;
+import com.webstyle.model.Product;
+import com.webstyle.repository.ClienteRepository;
+import com.webstyle.repository.ProductRepository;
+import com.webstyle.service.PedidoService;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Produtos, clientes (com um endereço de entrega) e pedidos usados pelos testes
+ * O contexto do Spring é compartilhado entre as classes de teste: códigos e nomes
+ * precisam ser únicos (o e-mail e o CPF do cliente saem do nome)
+ */
+@Component
+public class DadosTeste {
+
+    public static final String CEP_SAO_PAULO = "01310100";
+    public static final String CEP_RECIFE = "50030000";
+
+    private final ProductRepository productRepository;
+    private final ClienteRepository clienteRepository;
+    private final PedidoService pedidoService;
+
+    public DadosTeste(ProductRepository productRepository, ClienteRepository clienteRepository,
+                      PedidoService pedidoService) {
+        this.productRepository = productRepository;
+        this.clienteRepository = clienteRepository;
+        this.pedidoService = pedidoService;
+    }
+
+    public Product criarProduto(String codigo, String preco, int estoque) {
+        Product produto = new Product();
+        produto.setCodigo(codigo);
+        produto.setNome("Produto " + codigo);
+        produto.setPreco(new BigDecimal(preco));
+        produto.setQuantidadeEstoque(estoque);
+        produto.setAvaliacao(new BigDecimal("4.0"));
+        produto.setStatus(Product.Status.ATIVO);
+        return productRepository.save(produto);
+    }
+
+    /**
+     * Cliente com endereço de entrega em São Paulo
+     */
+    public Cliente criarCliente(String nome) {
+        return criarCliente(nome, CEP_SAO_PAULO);
+    }
+
+    /**
+     * Cliente com endereço de entrega no CEP informado (CEP_SAO_PAULO ou CEP_RECIFE)
+     */
+    public Cliente criarCliente(String nome, String cep) {
+        Cliente cliente = new Cliente();
+        cliente.setNomeCompleto("Cliente " + nome);
+        cliente.setEmail(nome + "@teste.com");
+        cliente.setCpf(String.format("%011d", Math.abs((long) nome.hashCode())));
+        cliente.setSenha("senha-de-teste");
+        cliente.setDataNascimento(LocalDate.of(1990, 1, 1));
+        cliente.setGenero("OUTRO");
+        cliente.addEndereco(CEP_RECIFE.equals(cep) ? endereco(cep, "Avenida Guararapes", "Santo Antônio", "Recife", "PE")
+                : endereco(cep, "Avenida Paulista", "Bela Vista", "São Paulo", "SP"));
+        return clienteRepository.save(cliente);
+    }
+
+    /**
+     * Endereços de entrega adicionais (São Paulo) para o cliente
+     */
+    public Cliente adicionarEnderecos(Cliente cliente, int quantidade) {
+        for (int i = 0; i < quantidade; i++) {
+            cliente.addEndereco(endereco(CEP_SAO_PAULO, "Rua Augusta", "Consolação", "São Paulo", "SP"));
+        }
+        return clienteRepository.save(cliente);
+    }
+
+    /**
+     * Pedido no primeiro endereço do cliente, sem frete, pago no boleto
+     */
+    public Pedido criarPedido(Cliente cliente, List<CartItem> itens) {
+        BigDecimal subtotal = itens.stream()
+                .map(item -> item.getPreco().multiply(BigDecimal.valueOf(item.getQuantidade())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return pedidoService.criarPedido(cliente, itens, cliente.getEnderecos().get(0).getId(), subtotal,
+                BigDecimal.ZERO, "PAC", "PAC - Correios", "3 a 5 dias úteis", "boleto", 1);
+    }
+
+    public static CartItem item(Product produto, int quantidade) {
+        return new CartItem(produto.getId(), produto.getCodigo(), produto.getNome(), produto.getPreco(), quantidade, null);
+    }
+
+    private Endereco endereco(String cep, String logradouro, String bairro, String cidade, String estado) {
+        Endereco endereco = new Endereco();
+        endereco.setCep(cep);
+        endereco.setLogradouro(logradouro);
+        endereco.setNumero("100");
+        endereco.setBairro(bairro);
+        endereco.setCidade(cidade);
+        endereco.setEstado(estado);
+        return endereco;
+    }
+}
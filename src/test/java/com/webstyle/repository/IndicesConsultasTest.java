@@ -0,0 +1,357 @@
+package com.webstyle.repository;
+
+import com.webstyle.ComandosSql;
+import com.webstyle.DadosTeste;
+import com.webstyle.model.Cliente;
+import com.webstyle.model.Pedido;
+import com.webstyle.model.Product;
+import com.webstyle.service.JdbcCartStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Plano de execução (EXPLAIN) do SQL que os repositórios realmente geram: cada consulta é
+ * executada, o SQL e os parâmetros são capturados no driver (ComandosSql) e cada plano deve
+ * usar o índice esperado (migrações em db/migration)
+ * - Todo método declarado em com.webstyle.repository precisa estar em VERIFICADOS
+ * - As chaves estrangeiras têm índice próprio no H2 (FK_<constraint>_INDEX_*): com igualdade na
+ *   coluna da chave ele é o escolhido (histórico do cliente, endereços, imagens do produto)
+ */
+@SpringBootTest
+class IndicesConsultasTest {
+
+    private static final LocalDateTime CURSOR_DATA = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    private static final Set<String> VERIFICADOS = Set.of(
+            "ProductRepository.findByCodigo", "ProductRepository.findAllOrderByDataCriacaoDesc",
+            "ProductRepository.findCardsByStatus", "ProductRepository.findCardsByStatusApos",
+            "ProductRepository.findCardsByIds", "ProductRepository.findSnapshotsByIds",
+            "ProductRepository.findAllSnapshots",
+            "ProductImageRepository.findByProdutoId",
+            "ProductImageRepository.findByProdutoOrderByImagemPrincipalDescDataUploadAsc",
+            "ProductImageRepository.findByProdutoIdAndImagemPrincipalTrue",
+            "ProductImageRepository.findImagemPrincipalByProdutoId", "ProductImageRepository.deleteByProdutoId",
+            "ProductImageRepository.countByProdutoId", "ProductImageRepository.findSnapshotsByProdutoIds",
+            "EstoqueCentroRepository.findQuantidadesPorCentro",
+            "ClienteRepository.findByEmail", "ClienteRepository.findByCpf", "ClienteRepository.findComEnderecosById",
+            "ClienteRepository.existsByEmail", "ClienteRepository.existsByCpf",
+            "EnderecoRepository.findByClienteId", "EnderecoRepository.findByClienteIdAndFaturamento",
+            "EnderecoRepository.findByClienteIdAndFaturamentoFalseAndAtivoTrueOrderById",
+            "EnderecoRepository.findByIdAndClienteId",
+            "PedidoRepository.findByNumeroPedido", "PedidoRepository.findComItensById",
+            "PedidoRepositoryCustom.buscarResumos",
+            "ItemPedidoRepository.findByPedidoId",
+            "UserRepository.findByEmail");
+
+    @Autowired
+    private ComandosSql comandosSql;
+
+    @Autowired
+    private DadosTeste dadosTeste;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductImageRepository productImageRepository;
+
+    @Autowired
+    private EstoqueCentroRepository estoqueCentroRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private EnderecoRepository enderecoRepository;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private ItemPedidoRepository itemPedidoRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    // Criados uma vez (o contexto e o banco são compartilhados entre os testes)
+    private static Product produto;
+    private static Cliente cliente;
+    private static Pedido pedido;
+
+    @BeforeEach
+    void preparar() {
+        if (produto == null) {
+            produto = dadosTeste.criarProduto("INDICES001", "19.90", 100);
+            cliente = dadosTeste.criarCliente("indices");
+            pedido = dadosTeste.criarPedido(cliente, List.of(DadosTeste.item(produto, 1)));
+        }
+    }
+
+    @Test
+    void todosOsMetodosDosRepositoriosSaoVerificados() throws Exception {
+        ClassPathScanningCandidateComponentProvider busca = new ClassPathScanningCandidateComponentProvider(false) {
+            @Override
+            protected boolean isCandidateComponent(AnnotatedBeanDefinition definicao) {
+                return definicao.getMetadata().isInterface();
+            }
+        };
+        busca.addIncludeFilter((leitor, fabrica) -> true);
+
+        Set<String> declarados = new TreeSet<>();
+        for (BeanDefinition definicao : busca.findCandidateComponents("com.webstyle.repository")) {
+            Class<?> repositorio = Class.forName(definicao.getBeanClassName());
+            for (Method metodo : repositorio.getDeclaredMethods()) {
+                if (!metodo.isDefault() && !Modifier.isStatic(metodo.getModifiers())) {
+                    declarados.add(repositorio.getSimpleName() + "." + metodo.getName());
+                }
+            }
+        }
+        assertThat(VERIFICADOS).containsAll(declarados);
+    }
+
+    // ===== PRODUTOS =====
+
+    @Test
+    void produtoPorCodigoUsaChaveUnica() throws Exception {
+        assertThat(plano(() -> productRepository.findByCodigo("INDICES001")))
+                .contains("UK_PRODUCTS_CODIGO_INDEX_");
+    }
+
+    @Test
+    void listagemDoBackofficeLeOIndiceJaOrdenado() throws Exception {
+        // A contagem da página (quando há) vem depois e não tem filtro
+        assertThat(planos(() -> productRepository.findAllOrderByDataCriacaoDesc(PageRequest.of(0, 10))).get(0))
+                .contains("IDX_PRODUCTS_DATA */")
+                .contains("index sorted");
+    }
+
+    @Test
+    void vitrineLeOIndiceDeStatusJaOrdenado() throws Exception {
+        assertThat(plano(() -> productRepository.findCardsByStatus(Product.Status.ATIVO, PageRequest.of(0, 21))))
+                .contains("IDX_PRODUCTS_STATUS_DATA: STATUS = ?1")
+                .contains("IDX_PRODUCT_IMAGES_PRODUTO: IMAGEM_PRINCIPAL = TRUE AND PRODUTO_ID = P1_0.ID")
+                .contains("index sorted");
+    }
+
+    @Test
+    void vitrineComCursorLeOIndiceDeStatusJaOrdenado() throws Exception {
+        assertThat(plano(() -> productRepository.findCardsByStatusApos(Product.Status.ATIVO, CURSOR_DATA, 5L,
+                PageRequest.of(0, 21))))
+                .contains("IDX_PRODUCTS_STATUS_DATA: STATUS = ?1")
+                .contains("index sorted");
+    }
+
+    @Test
+    void cardsESnapshotsPorIdUsamChavePrimaria() throws Exception {
+        List<Long> ids = List.of(produto.getId(), produto.getId() + 1);
+        assertThat(plano(() -> productRepository.findCardsByIds(ids)))
+                .containsPattern("PRODUCTS\" \"P1_0\" /\\* PUBLIC\\.PRIMARY_KEY_\\w+: ID IN\\(\\?1, \\?2\\)");
+        assertThat(plano(() -> productRepository.findSnapshotsByIds(ids)))
+                .containsPattern("PRODUCTS\" \"P1_0\" /\\* PUBLIC\\.PRIMARY_KEY_\\w+: ID IN\\(\\?1, \\?2\\)");
+    }
+
+    @Test
+    void cargaDoCatalogoLeATabelaInteira() throws Exception {
+        // Carga de todos os produtos nos índices em memória (na inicialização): a leitura completa é esperada
+        assertThat(plano(() -> productRepository.findAllSnapshots()))
+                .contains("PRODUCTS.tableScan");
+    }
+
+    // ===== IMAGENS E ESTOQUE POR CENTRO =====
+
+    @Test
+    void imagensDoProdutoUsamIndiceDaChaveEstrangeira() throws Exception {
+        Long id = produto.getId();
+        assertThat(plano(() -> productImageRepository.findByProdutoId(id)))
+                .contains("FK_PRODUCT_IMAGES_PRODUTO_INDEX_")
+                .doesNotContain("JOIN");
+        assertThat(plano(() -> productImageRepository.findByProdutoOrderByImagemPrincipalDescDataUploadAsc(produto)))
+                .contains("FK_PRODUCT_IMAGES_PRODUTO_INDEX_");
+        assertThat(plano(() -> productImageRepository.countByProdutoId(id)))
+                .contains("FK_PRODUCT_IMAGES_PRODUTO_INDEX_")
+                .doesNotContain("JOIN");
+        assertThat(plano(() -> productImageRepository.findSnapshotsByProdutoIds(List.of(id, id + 1))))
+                .contains("FK_PRODUCT_IMAGES_PRODUTO_INDEX_");
+        assertThat(plano(() -> transactionTemplate.executeWithoutResult(transacao -> {
+            productImageRepository.deleteByProdutoId(id);
+            transacao.setRollbackOnly();
+        }))).startsWith("DELETE").contains("FK_PRODUCT_IMAGES_PRODUTO_INDEX_");
+    }
+
+    @Test
+    void imagemPrincipalUsaIndiceDeProdutoEPrincipal() throws Exception {
+        Long id = produto.getId();
+        assertThat(plano(() -> productImageRepository.findByProdutoIdAndImagemPrincipalTrue(id)))
+                .contains("IDX_PRODUCT_IMAGES_PRODUTO: PRODUTO_ID = ?1 AND IMAGEM_PRINCIPAL = TRUE");
+        assertThat(plano(() -> productImageRepository.findImagemPrincipalByProdutoId(id)))
+                .contains("IDX_PRODUCT_IMAGES_PRODUTO: PRODUTO_ID = ?1 AND IMAGEM_PRINCIPAL = TRUE");
+    }
+
+    @Test
+    void estoqueDosCentrosUsaIndiceDaChaveEstrangeira() throws Exception {
+        assertThat(plano(() -> estoqueCentroRepository.findQuantidadesPorCentro(List.of(produto.getId(), produto.getId() + 1))))
+                .contains("FK_ESTOQUE_CENTROS_PRODUTO_INDEX_");
+    }
+
+    // ===== CLIENTES E ENDEREÇOS =====
+
+    @Test
+    void clientePorEmailECpfUsaChavesUnicas() throws Exception {
+        assertThat(plano(() -> clienteRepository.findByEmail("indices@teste.com"))).contains("UK_CLIENTES_EMAIL_INDEX_");
+        assertThat(plano(() -> clienteRepository.existsByEmail("indices@teste.com"))).contains("UK_CLIENTES_EMAIL_INDEX_");
+        assertThat(plano(() -> clienteRepository.findByCpf(cliente.getCpf()))).contains("UK_CLIENTES_CPF_INDEX_");
+        assertThat(plano(() -> clienteRepository.existsByCpf(cliente.getCpf()))).contains("UK_CLIENTES_CPF_INDEX_");
+        assertThat(plano(() -> userRepository.findByEmail("admin@gmail.com"))).contains("UK_USERS_EMAIL_INDEX_");
+    }
+
+    @Test
+    void clienteComEnderecosUsaChavePrimariaEIndiceDeCliente() throws Exception {
+        assertThat(plano(() -> clienteRepository.findComEnderecosById(cliente.getId())))
+                .containsPattern("CLIENTES\" \"C1_0\" /\\* PUBLIC\\.PRIMARY_KEY_\\w+: ID = \\?1")
+                .contains("FK_ENDERECOS_CLIENTE_INDEX_");
+    }
+
+    @Test
+    void enderecosDoClienteUsamIndiceDeCliente() throws Exception {
+        Long id = cliente.getId();
+        assertThat(plano(() -> enderecoRepository.findByClienteId(id)))
+                .contains("FK_ENDERECOS_CLIENTE_INDEX_")
+                .doesNotContain("JOIN");
+        assertThat(plano(() -> enderecoRepository.findByClienteIdAndFaturamento(id, false)))
+                .containsPattern("FK_ENDERECOS_CLIENTE_INDEX_\\w+: CLIENTE_ID = \\?1");
+        assertThat(plano(() -> enderecoRepository.findByClienteIdAndFaturamentoFalseAndAtivoTrueOrderById(id)))
+                .containsPattern("FK_ENDERECOS_CLIENTE_INDEX_\\w+: CLIENTE_ID = \\?1");
+    }
+
+    @Test
+    void enderecoDoClientePorIdUsaChavePrimaria() throws Exception {
+        Long enderecoId = cliente.getEnderecos().get(0).getId();
+        assertThat(plano(() -> enderecoRepository.findByIdAndClienteId(enderecoId, cliente.getId())))
+                .containsPattern("ENDERECOS\" \"E1_0\" /\\* PUBLIC\\.PRIMARY_KEY_\\w+: ID = \\?1")
+                .doesNotContain("JOIN");
+    }
+
+    // ===== PEDIDOS =====
+
+    @Test
+    void pedidoPorNumeroUsaChaveUnica() throws Exception {
+        assertThat(plano(() -> pedidoRepository.findByNumeroPedido(pedido.getNumeroPedido())))
+                .contains("UK_PEDIDOS_NUMERO_INDEX_");
+    }
+
+    @Test
+    void detalhesDoPedidoUsamChavePrimariaEIndiceDeItens() throws Exception {
+        assertThat(plano(() -> pedidoRepository.findComItensById(pedido.getId())))
+                .containsPattern("PEDIDOS\" \"P1_0\" /\\* PUBLIC\\.PRIMARY_KEY_\\w+: ID = \\?1")
+                .contains("IDX_ITENS_PEDIDO_PEDIDO: PEDIDO_ID = P1_0.ID");
+        assertThat(plano(() -> itemPedidoRepository.findByPedidoId(pedido.getId())))
+                .contains("IDX_ITENS_PEDIDO_PEDIDO: PEDIDO_ID = ?1")
+                .doesNotContain("JOIN");
+    }
+
+    @Test
+    void listagemSemFiltroLeOIndiceDeDataJaOrdenado() throws Exception {
+        PedidoRepositoryCustom.FiltroPedidos filtro = new PedidoRepositoryCustom.FiltroPedidos();
+        assertThat(plano(() -> pedidoRepository.buscarResumos(filtro, null, null, 51)))
+                .contains("IDX_PEDIDOS_DATA */")
+                .contains("index sorted");
+        assertThat(plano(() -> pedidoRepository.buscarResumos(filtro, CURSOR_DATA, 5L, 51)))
+                .contains("IDX_PEDIDOS_DATA */")
+                .contains("index sorted");
+    }
+
+    @Test
+    void listagemPorPeriodoLeOIndiceDeDataJaOrdenado() throws Exception {
+        PedidoRepositoryCustom.FiltroPedidos filtro = new PedidoRepositoryCustom.FiltroPedidos();
+        filtro.setDataInicio(CURSOR_DATA.minusDays(30));
+        filtro.setDataFim(CURSOR_DATA);
+        assertThat(plano(() -> pedidoRepository.buscarResumos(filtro, null, null, 51)))
+                .contains("IDX_PEDIDOS_DATA: DATA_PEDIDO >= ?1 AND DATA_PEDIDO < ?2")
+                .contains("index sorted");
+    }
+
+    @Test
+    void historicoDoClienteLeSoOsPedidosDoCliente() throws Exception {
+        PedidoRepositoryCustom.FiltroPedidos filtro = new PedidoRepositoryCustom.FiltroPedidos();
+        filtro.setClienteId(cliente.getId());
+        assertThat(plano(() -> pedidoRepository.buscarResumos(filtro, null, null, 21)))
+                .containsPattern("FK_PEDIDOS_CLIENTE_INDEX_\\w+: CLIENTE_ID = \\?1")
+                .doesNotContain("PEDIDOS.tableScan");
+        assertThat(plano(() -> pedidoRepository.buscarResumos(filtro, CURSOR_DATA, 5L, 21)))
+                .containsPattern("FK_PEDIDOS_CLIENTE_INDEX_\\w+: CLIENTE_ID = \\?1")
+                .doesNotContain("PEDIDOS.tableScan");
+    }
+
+    @Test
+    void filtroPorStatusLeOIndiceDeStatusJaOrdenado() throws Exception {
+        PedidoRepositoryCustom.FiltroPedidos filtro = new PedidoRepositoryCustom.FiltroPedidos();
+        filtro.setStatus(Pedido.StatusPedido.ENTREGUE);
+        assertThat(plano(() -> pedidoRepository.buscarResumos(filtro, null, null, 51)))
+                .contains("IDX_PEDIDOS_STATUS_DATA: STATUS = ?1")
+                .contains("index sorted");
+        assertThat(plano(() -> pedidoRepository.buscarResumos(filtro, CURSOR_DATA, 5L, 51)))
+                .contains("IDX_PEDIDOS_STATUS_DATA: STATUS = ?1")
+                .contains("index sorted");
+    }
+
+    @Test
+    void filtroPorClienteEStatusLeSoOsPedidosDoCliente() throws Exception {
+        PedidoRepositoryCustom.FiltroPedidos filtro = new PedidoRepositoryCustom.FiltroPedidos();
+        filtro.setClienteId(cliente.getId());
+        filtro.setStatus(Pedido.StatusPedido.ENTREGUE);
+        assertThat(plano(() -> pedidoRepository.buscarResumos(filtro, null, null, 51)))
+                .containsPattern("FK_PEDIDOS_CLIENTE_INDEX_\\w+: CLIENTE_ID = \\?2")
+                .doesNotContain("PEDIDOS.tableScan");
+    }
+
+    // ===== CARRINHOS =====
+
+    @Test
+    void limpezaDosCarrinhosUsaIndiceDeAtualizacao() throws Exception {
+        List<String> planos = planos(() -> new JdbcCartStore(jdbcTemplate, 72).removerInativos());
+        assertThat(planos).hasSize(2).allSatisfy(plano -> assertThat(plano).contains("IDX_CARRINHOS_ATUALIZADO"));
+    }
+
+    /**
+     * Plano da única consulta executada pela ação
+     */
+    private String plano(ComandosSql.Acao acao) throws Exception {
+        List<String> planos = planos(acao);
+        assertThat(planos).hasSize(1);
+        return planos.get(0);
+    }
+
+    private List<String> planos(ComandosSql.Acao acao) throws Exception {
+        List<String> planos = new ArrayList<>();
+        for (ComandosSql.Comando comando : comandosSql.capturar(acao)) {
+            String plano = jdbcTemplate.queryForObject("EXPLAIN " + comando.sql(), String.class,
+                    comando.parametros().toArray());
+            planos.add(plano.replaceAll("\\s+", " "));
+        }
+        return planos;
+    }
+}
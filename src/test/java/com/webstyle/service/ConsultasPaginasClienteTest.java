@@ -0,0 +1,173 @@
+package com.webstyle.service;
+
+import com.webstyle.ComandosSql;
+import com.webstyle.DadosTeste;
+import com.webstyle.model.CartItem;
+import com.webstyle.model.Cliente;
+import com.webstyle.model.Pedido;
+import com.webstyle.model.Product;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static com.webstyle.DadosTeste.item;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Quantidade de comandos SQL (Hibernate e JdbcTemplate) das páginas do cliente:
+ * deve ser a mesma com poucos ou muitos pedidos, itens e endereços
+ * (nenhuma consulta por pedido, por item ou por endereço)
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ConsultasPaginasClienteTest {
+
+    // Resumos da página (uma consulta com um pedido a mais para saber se há próxima página)
+    private static final int CONSULTAS_HISTORICO = 1;
+
+    // Pedido com itens e cliente
+    private static final int CONSULTAS_DETALHE_PEDIDO = 1;
+
+    // Cliente com endereços
+    private static final int CONSULTAS_PERFIL = 1;
+
+    // Vitrine dos produtos (revalidação), endereço, baixa no total, estoque dos centros, baixa nos
+    // centros, pedido, itens (em lote) e leitura dos itens gravados e, depois do commit,
+    // a recarga dos produtos no catálogo (2)
+    private static final int COMANDOS_CHECKOUT = 10;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ComandosSql comandosSql;
+
+    @Autowired
+    private DadosTeste dadosTeste;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private CartStore cartStore;
+
+    private final List<Product> produtos = new ArrayList<>();
+
+    @BeforeEach
+    void preparar() {
+        for (int i = 0; i < 4; i++) {
+            produtos.add(dadosTeste.criarProduto("PAGINAS" + System.nanoTime() + i, "19.90", 1000));
+        }
+    }
+
+    // ===== HISTÓRICO DE PEDIDOS =====
+
+    @Test
+    void primeiraPaginaDoHistoricoTemConsultasFixas() throws Exception {
+        Cliente poucos = criarClienteComPedidos("historico-poucos", 2, 1);
+        Cliente muitos = criarClienteComPedidos("historico-muitos", 30, 4);
+
+        assertThat(comandos(poucos, get("/pedidos"))).hasSize(CONSULTAS_HISTORICO);
+        assertThat(comandos(muitos, get("/pedidos"))).hasSize(CONSULTAS_HISTORICO);
+    }
+
+    @Test
+    void paginasSeguintesDoHistoricoTemConsultasFixas() throws Exception {
+        Cliente muitos = criarClienteComPedidos("historico-seguintes", 45, 3);
+
+        PedidoService.PaginaPedidos primeira = pedidoService.listarHistoricoCliente(muitos.getId(), null, null);
+        assertThat(primeira.isTemMais()).isTrue();
+        String segunda = "/pedidos?aposData=" + primeira.getProximoAposData() + "&aposId=" + primeira.getProximoAposId();
+
+        assertThat(comandos(muitos, get(segunda))).hasSize(CONSULTAS_HISTORICO);
+    }
+
+    // ===== DETALHE DO PEDIDO =====
+
+    @Test
+    void detalheDoPedidoTemConsultasFixas() throws Exception {
+        Cliente cliente = dadosTeste.criarCliente("detalhe-pedido");
+        Pedido umItem = dadosTeste.criarPedido(cliente, itens(1));
+        Pedido quatroItens = dadosTeste.criarPedido(cliente, itens(4));
+
+        for (String pagina : List.of("/pedidos/%d", "/pedidos/%d/detalhes")) {
+            assertThat(comandos(cliente, get(pagina.formatted(umItem.getId())))).hasSize(CONSULTAS_DETALHE_PEDIDO);
+            assertThat(comandos(cliente, get(pagina.formatted(quatroItens.getId())))).hasSize(CONSULTAS_DETALHE_PEDIDO);
+        }
+    }
+
+    // ===== PERFIL =====
+
+    @Test
+    void perfilTemConsultasFixas() throws Exception {
+        Cliente umEndereco = dadosTeste.criarCliente("perfil-um-endereco");
+        Cliente cincoEnderecos = dadosTeste.adicionarEnderecos(dadosTeste.criarCliente("perfil-cinco-enderecos"), 4);
+
+        assertThat(comandos(umEndereco, get("/cliente/perfil"))).hasSize(CONSULTAS_PERFIL);
+        assertThat(comandos(cincoEnderecos, get("/cliente/perfil"))).hasSize(CONSULTAS_PERFIL);
+    }
+
+    // ===== CHECKOUT =====
+
+    @Test
+    void checkoutTemComandosFixos() throws Exception {
+        Cliente cliente = dadosTeste.criarCliente("checkout");
+        // Produtos já no catálogo em memória, como numa loja em funcionamento
+        dadosTeste.criarPedido(cliente, itens(4));
+
+        assertThat(comandosDoCheckout(cliente, itens(1))).hasSize(COMANDOS_CHECKOUT);
+        assertThat(comandosDoCheckout(cliente, itens(4))).hasSize(COMANDOS_CHECKOUT);
+    }
+
+    private List<ComandosSql.Comando> comandosDoCheckout(Cliente cliente, List<CartItem> itens) throws Exception {
+        String carrinhoId = UUID.randomUUID().toString();
+        for (CartItem item : itens) {
+            cartStore.adicionar(carrinhoId, item.getProdutoId(), item.getQuantidade(),
+                    item.getPreco().movePointRight(2).longValueExact(), Integer.MAX_VALUE);
+        }
+        List<ComandosSql.Comando> comandos = comandos(cliente, post("/carrinho/finalizar-pedido")
+                .cookie(new Cookie("CARRINHO_ID", carrinhoId))
+                .param("enderecoId", cliente.getEnderecos().get(0).getId().toString())
+                .param("tipoFrete", "PAC")
+                .param("nomeFrete", "PAC - Correios")
+                .param("prazoEntrega", "3 a 5 dias úteis")
+                .param("valorFrete", "0")
+                .param("formaPagamento", "boleto"));
+        // A reserva de um bloco de números de pedido (a cada "tamanho-bloco" pedidos) fica fora da conta
+        comandos.removeIf(comando -> comando.sql().contains("sequencias_pedido"));
+        return comandos;
+    }
+
+    private List<ComandosSql.Comando> comandos(Cliente cliente, MockHttpServletRequestBuilder requisicao) throws Exception {
+        return comandosSql.capturar(() -> mockMvc.perform(requisicao.sessionAttr("clienteLogado", cliente))
+                .andExpect(status().isOk()));
+    }
+
+    private List<CartItem> itens(int quantidade) {
+        List<CartItem> itens = new ArrayList<>();
+        for (int i = 0; i < quantidade; i++) {
+            itens.add(item(produtos.get(i), 1));
+        }
+        return itens;
+    }
+
+    private Cliente criarClienteComPedidos(String nome, int pedidos, int itensPorPedido) {
+        Cliente cliente = dadosTeste.criarCliente(nome);
+        for (int p = 0; p < pedidos; p++) {
+            dadosTeste.criarPedido(cliente, itens(itensPorPedido));
+        }
+        return cliente;
+    }
+}
@@ -0,0 +1,95 @@
+package com.webstyle.service;
+
+import com.webstyle.DadosTeste;
+import com.webstyle.model.CartItem;
+import com.webstyle.model.Cliente;
+import com.webstyle.model.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static com.webstyle.DadosTeste.CEP_RECIFE;
+import static com.webstyle.DadosTeste.item;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Estoque por centro de distribuição: a cotação do frete e a baixa do pedido usam a mesma
+ * alocação, e a soma dos centros acompanha o estoque total alterado pelo administrador
+ * (centros de application.properties: SP = principal, PE = Recife)
+ */
+@SpringBootTest
+class EstoqueCentrosTest {
+
+    @Autowired
+    private ShippingService shippingService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private DadosTeste dadosTeste;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void pedidoBaixaOCentroDaCotacao() throws Exception {
+        // O maior estoque está em SP, mas PE é o mais próximo e tem a quantidade toda
+        Product produto = criarProduto("CENTROS-COTACAO", 13, 7, 6);
+        List<CartItem> itens = List.of(item(produto, 5));
+
+        List<ShippingService.ShippingOption> opcoes = shippingService.calcularFrete(CEP_RECIFE, new BigDecimal("99.50"), itens);
+        assertThat(opcoes).extracting(ShippingService.ShippingOption::getOrigem).containsOnly("Recife");
+
+        Cliente cliente = dadosTeste.criarCliente("centros-cotacao", CEP_RECIFE);
+        dadosTeste.criarPedido(cliente, itens);
+
+        assertThat(quantidade(produto, "SP")).isEqualTo(7);
+        assertThat(quantidade(produto, "PE")).isEqualTo(1);
+    }
+
+    @Test
+    void envioDivididoMantemTodasAsModalidades() throws Exception {
+        // Um produto só em SP (longe: Transportadora) e outro só em PE (perto: Expressa)
+        Product emSaoPaulo = criarProduto("CENTROS-DIVIDIDO-SP", 5, 5, 0);
+        Product emRecife = criarProduto("CENTROS-DIVIDIDO-PE", 5, 0, 5);
+
+        List<ShippingService.ShippingOption> opcoes = shippingService.calcularFrete(CEP_RECIFE, new BigDecimal("39.80"),
+                List.of(item(emSaoPaulo, 1), item(emRecife, 1)));
+
+        assertThat(opcoes).extracting(ShippingService.ShippingOption::getTipo)
+                .containsExactlyInAnyOrder("PAC", "SEDEX", "EXPRESSA", "TRANSPORTADORA");
+        assertThat(opcoes).extracting(ShippingService.ShippingOption::getOrigem).containsOnly("Recife + São Paulo");
+    }
+
+    @Test
+    void alteracaoDoEstoqueTotalAjustaOsCentros() {
+        Product produto = criarProduto("CENTROS-AJUSTE", 10, 4, 6);
+
+        // Aumento entra no centro principal
+        productService.alterarEstoque(produto.getId(), 15);
+        assertThat(quantidade(produto, "SP")).isEqualTo(9);
+        assertThat(quantidade(produto, "PE")).isEqualTo(6);
+
+        // Redução sai primeiro do centro principal
+        productService.alterarEstoque(produto.getId(), 3);
+        assertThat(quantidade(produto, "SP")).isZero();
+        assertThat(quantidade(produto, "PE")).isEqualTo(3);
+    }
+
+    private Product criarProduto(String codigo, int total, int emSaoPaulo, int emRecife) {
+        Product produto = dadosTeste.criarProduto(codigo, "19.90", total);
+        jdbcTemplate.update("INSERT INTO estoque_centros (produto_id, centro_codigo, quantidade) VALUES (?, 'SP', ?), (?, 'PE', ?)",
+                produto.getId(), emSaoPaulo, produto.getId(), emRecife);
+        return produto;
+    }
+
+    private int quantidade(Product produto, String centro) {
+        return jdbcTemplate.queryForObject("SELECT quantidade FROM estoque_centros WHERE produto_id = ? AND centro_codigo = ?",
+                Integer.class, produto.getId(), centro);
+    }
+}
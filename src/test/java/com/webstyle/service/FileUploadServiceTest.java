@@ -0,0 +1,148 @@
+package com.webstyle.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Gravação das imagens de um envio: em paralelo no pool limitado (app.upload.threads),
+ * caminhos pelo SHA-256 do conteúdo, na ordem recebida, sem sobras quando uma parte falha
+ * (diretório de upload próprio, em target)
+ */
+@SpringBootTest(properties = "app.upload.dir=target/test-uploads/products")
+class FileUploadServiceTest {
+
+    @Autowired
+    private FileUploadService fileUploadService;
+
+    @Value("${app.upload.threads}")
+    private int threadsGravacao;
+
+    @Value("${app.upload.dir}")
+    private String uploadDir;
+
+    // Gravações em andamento ao mesmo tempo e threads que gravaram
+    private final AtomicInteger ativas = new AtomicInteger();
+    private final AtomicInteger maximoAtivas = new AtomicInteger();
+    private final Set<String> threads = ConcurrentHashMap.newKeySet();
+
+    @Test
+    void gravaEmParaleloNoPoolLimitadoENaOrdemRecebida() throws Exception {
+        List<MultipartFile> arquivos = new ArrayList<>();
+        List<byte[]> conteudos = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            byte[] conteudo = conteudoUnico();
+            conteudos.add(conteudo);
+            arquivos.add(lento("foto-" + i + ".png", conteudo));
+        }
+
+        List<String> caminhos = fileUploadService.salvarArquivos(arquivos);
+
+        assertThat(maximoAtivas.get()).isGreaterThan(1).isLessThanOrEqualTo(threadsGravacao);
+        assertThat(threads).hasSizeLessThanOrEqualTo(threadsGravacao).allMatch(nome -> nome.startsWith("upload-"));
+        assertThat(caminhos).hasSize(12);
+        for (int i = 0; i < 12; i++) {
+            assertThat(caminhos.get(i)).isEqualTo(caminhoEsperado(conteudos.get(i), ".png"));
+            assertThat(Files.readAllBytes(Paths.get(caminhos.get(i)))).isEqualTo(conteudos.get(i));
+        }
+    }
+
+    @Test
+    void mesmoConteudoGravaUmArquivo() throws Exception {
+        byte[] conteudo = conteudoUnico();
+
+        List<String> caminhos = fileUploadService.salvarArquivos(List.of(
+                lento("frente.jpeg", conteudo), lento("copia.jpg", conteudo)));
+
+        assertThat(caminhos).containsExactly(caminhoEsperado(conteudo, ".jpg"), caminhoEsperado(conteudo, ".jpg"));
+        assertThat(Files.exists(Paths.get(caminhos.get(0)))).isTrue();
+        // A cópia temporária da segunda parte é descartada
+        assertThat(Paths.get(uploadDir).toFile().list((dir, nome) -> nome.endsWith(".tmp"))).isEmpty();
+    }
+
+    @Test
+    void parteInvalidaNaoGravaNenhumArquivo() {
+        byte[] conteudo = conteudoUnico();
+        MultipartFile texto = new MockMultipartFile("imagens", "nota.txt", "text/plain", "texto".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> fileUploadService.salvarArquivos(List.of(lento("foto.png", conteudo), texto)))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Arquivo deve ser uma imagem");
+        assertThat(threads).isEmpty();
+        assertThat(Files.exists(Paths.get(caminhoEsperado(conteudo, ".png")))).isFalse();
+    }
+
+    @Test
+    void falhaNaGravacaoApagaOsArquivosDoEnvio() {
+        byte[] primeiro = conteudoUnico();
+        byte[] segundo = conteudoUnico();
+        MultipartFile comErro = new MockMultipartFile("imagens", "quebrada.png", "image/png", conteudoUnico()) {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                throw new IOException("Conexão encerrada durante o envio");
+            }
+        };
+
+        assertThatThrownBy(() -> fileUploadService.salvarArquivos(List.of(
+                lento("a.png", primeiro), comErro, lento("b.png", segundo))))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Conexão encerrada durante o envio");
+        // Fora de uma transação, os arquivos gravados sem referência são apagados na hora
+        assertThat(Files.exists(Paths.get(caminhoEsperado(primeiro, ".png")))).isFalse();
+        assertThat(Files.exists(Paths.get(caminhoEsperado(segundo, ".png")))).isFalse();
+    }
+
+    /**
+     * Imagem cuja leitura demora um pouco, para que as gravações se sobreponham
+     */
+    private MultipartFile lento(String nome, byte[] conteudo) {
+        return new MockMultipartFile("imagens", nome, "image/png", conteudo) {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                threads.add(Thread.currentThread().getName());
+                maximoAtivas.accumulateAndGet(ativas.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    ativas.decrementAndGet();
+                }
+                return super.getInputStream();
+            }
+        };
+    }
+
+    private static byte[] conteudoUnico() {
+        return ("imagem " + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private String caminhoEsperado(byte[] conteudo, String extensao) {
+        try {
+            String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(conteudo));
+            return uploadDir + "/" + hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash + extensao;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.webstyle.service;
+
+import com.webstyle.DadosTeste;
+import com.webstyle.model.Cliente;
+import com.webstyle.model.Product;
+import com.webstyle.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checkouts simultâneos do mesmo produto com estoque limitado:
+ * nenhum pedido pode ser criado além do estoque (ReservaEstoqueService)
+ */
+@SpringBootTest
+class PedidoServiceConcorrenciaTest {
+
+    private static final int ESTOQUE = 5;
+    private static final int CHECKOUTS = 24;
+
+    @Autowired
+    private DadosTeste dadosTeste;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void checkoutsSimultaneosNaoVendemAlemDoEstoque() throws Exception {
+        Product produto = dadosTeste.criarProduto("CONCORRENCIA001", "49.90", ESTOQUE);
+        Cliente comprador = dadosTeste.criarCliente("concorrencia");
+        Long produtoId = produto.getId();
+        AtomicInteger sucessos = new AtomicInteger();
+        AtomicInteger semEstoque = new AtomicInteger();
+        CountDownLatch largada = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> checkouts = new ArrayList<>();
+        for (int i = 0; i < CHECKOUTS; i++) {
+            checkouts.add(executor.submit(() -> {
+                largada.await();
+                try {
+                    dadosTeste.criarPedido(comprador, List.of(DadosTeste.item(produto, 1)));
+                    sucessos.incrementAndGet();
+                } catch (RuntimeException e) {
+                    assertThat(e.getMessage()).startsWith("Estoque insuficiente");
+                    semEstoque.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        largada.countDown();
+        for (Future<?> checkout : checkouts) {
+            checkout.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(sucessos.get()).isEqualTo(ESTOQUE);
+        assertThat(semEstoque.get()).isEqualTo(CHECKOUTS - ESTOQUE);
+        assertThat(productRepository.findById(produtoId).orElseThrow().getQuantidadeEstoque()).isZero();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(quantidade), 0) FROM itens_pedido WHERE produto_id = ?", Integer.class, produtoId))
+                .isEqualTo(ESTOQUE);
+    }
+}
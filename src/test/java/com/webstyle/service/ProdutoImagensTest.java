@@ -0,0 +1,114 @@
+package com.webstyle.service;
+
+import com.webstyle.ComandosSql;
+import com.webstyle.model.Product;
+import com.webstyle.model.ProductImage;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Imagens do cadastro de produto: todas as linhas de product_images em um único lote JDBC,
+ * com as chaves geradas devolvidas na ordem do envio e a coleção do produto igual ao banco
+ * (diretório de upload próprio, em target)
+ */
+@SpringBootTest(properties = "app.upload.dir=target/test-uploads/products")
+class ProdutoImagensTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ComandosSql comandosSql;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void imagensDoCadastroEntramEmUmLote() throws Exception {
+        List<MultipartFile> imagens = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            imagens.add(png("foto-" + i + ".png", new Color(10 * i, 80, 200)));
+        }
+        Product[] salvo = new Product[1];
+
+        List<ComandosSql.Comando> comandos = comandosSql.capturar(() ->
+                salvo[0] = productService.cadastrarProduto(produto("IMAGENS-LOTE"), imagens, 2L));
+
+        // Um único INSERT preparado (Hibernate gravaria uma instrução por imagem: ids IDENTITY)
+        assertThat(comandos)
+                .filteredOn(comando -> comando.sql().toLowerCase(Locale.ROOT).startsWith("insert into product_images"))
+                .hasSize(1);
+
+        // Chaves geradas na ordem do envio, coleção do produto igual às linhas gravadas
+        List<Map<String, Object>> linhas = jdbcTemplate.queryForList(
+                "SELECT id, nome_original, caminho_arquivo, imagem_principal FROM product_images WHERE produto_id = ? ORDER BY id",
+                salvo[0].getId());
+        assertThat(linhas).extracting(linha -> linha.get("nome_original"))
+                .containsExactly("foto-0.png", "foto-1.png", "foto-2.png", "foto-3.png", "foto-4.png");
+        assertThat(linhas).extracting(linha -> linha.get("imagem_principal"))
+                .containsExactly(false, false, true, false, false);
+        assertThat(salvo[0].getImagens()).extracting(ProductImage::getId)
+                .containsExactlyElementsOf(linhas.stream().map(linha -> ((Number) linha.get("id")).longValue()).toList());
+        assertThat(salvo[0].getImagens()).extracting(ProductImage::getCaminhoArquivo)
+                .containsExactlyElementsOf(linhas.stream().map(linha -> (String) linha.get("caminho_arquivo")).toList());
+        assertThat(salvo[0].getImagemPrincipal().getNomeOriginal()).isEqualTo("foto-2.png");
+        assertThat(linhas).allSatisfy(linha -> assertThat(Files.exists(Paths.get((String) linha.get("caminho_arquivo")))).isTrue());
+    }
+
+    @Test
+    void mesmaImagemDuasVezesUsaUmArquivo() throws Exception {
+        Color cor = new Color(123, 45, 67);
+
+        Product salvo = productService.cadastrarProduto(produto("IMAGENS-REPETIDAS"),
+                List.of(png("frente.png", cor), png("frente-de-novo.png", cor)), null);
+
+        List<String> caminhos = jdbcTemplate.queryForList(
+                "SELECT caminho_arquivo FROM product_images WHERE produto_id = ? ORDER BY id", String.class, salvo.getId());
+        assertThat(caminhos).hasSize(2);
+        assertThat(caminhos.get(0)).isEqualTo(caminhos.get(1));
+        assertThat(salvo.getImagemPrincipal().getNomeOriginal()).isEqualTo("frente.png");
+    }
+
+    private static Product produto(String codigo) {
+        Product produto = new Product();
+        produto.setCodigo(codigo + "-" + System.nanoTime());
+        produto.setNome("Produto " + codigo);
+        produto.setPreco(new BigDecimal("49.90"));
+        produto.setQuantidadeEstoque(10);
+        return produto;
+    }
+
+    /**
+     * PNG pequeno de uma cor (as versões redimensionadas são geradas após o commit)
+     */
+    private static MultipartFile png(String nome, Color cor) throws IOException {
+        BufferedImage imagem = new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < 8; x++) {
+            for (int y = 0; y < 8; y++) {
+                imagem.setRGB(x, y, cor.getRGB());
+            }
+        }
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        ImageIO.write(imagem, "png", saida);
+        return new MockMultipartFile("imagens", nome, "image/png", saida.toByteArray());
+    }
+}
@@ -0,0 +1,171 @@
+package com.webstyle.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * ViaCepClient contra um servidor HTTP local (porta livre escolhida pelo sistema)
+ * O servidor responde conforme o modo: JSON válido, HTTP 500 ou resposta lenta
+ */
+class ViaCepClientTest {
+
+    private static final String JSON_PAULISTA = "{\"cep\":\"01310-100\",\"logradouro\":\"Avenida Paulista\","
+            + "\"bairro\":\"Bela Vista\",\"localidade\":\"São Paulo\",\"uf\":\"SP\",\"ibge\":\"3550308\"}";
+
+    private enum Modo { OK, ERRO, LENTO }
+
+    private HttpServer servidor;
+    private volatile Modo modo = Modo.OK;
+    private final AtomicInteger requisicoes = new AtomicInteger();
+
+    @BeforeEach
+    void iniciarServidor() throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        servidor.createContext("/ws/", troca -> {
+            requisicoes.incrementAndGet();
+            try {
+                if (modo == Modo.LENTO) {
+                    TimeUnit.SECONDS.sleep(3);
+                }
+                if (modo == Modo.ERRO) {
+                    troca.sendResponseHeaders(500, -1);
+                    return;
+                }
+                byte[] corpo = JSON_PAULISTA.getBytes(StandardCharsets.UTF_8);
+                troca.getResponseHeaders().set("Content-Type", "application/json");
+                troca.sendResponseHeaders(200, corpo.length);
+                try (OutputStream saida = troca.getResponseBody()) {
+                    saida.write(corpo);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                // Cliente desistiu (timeout): nada a responder
+            } finally {
+                troca.close();
+            }
+        });
+        servidor.setExecutor(Executors.newCachedThreadPool());
+        servidor.start();
+    }
+
+    @AfterEach
+    void pararServidor() {
+        servidor.stop(0);
+    }
+
+    private ViaCepClient criarCliente(long timeoutMs, int limiteFalhas, long circuitoAbertoSegundos) {
+        String url = "http://127.0.0.1:" + servidor.getAddress().getPort() + "/ws/";
+        return new ViaCepClient(url, 500, timeoutMs, 20, limiteFalhas, circuitoAbertoSegundos);
+    }
+
+    @Test
+    void consultaComSucessoInterpretaResposta() throws Exception {
+        ViaCepClient cliente = criarCliente(1000, 3, 30);
+
+        CepCache.Entrada entrada = cliente.consultar("01310100").get();
+
+        assertThat(entrada.isNaoEncontrado()).isFalse();
+        assertThat(entrada.getCepInfo().getLogradouro()).isEqualTo("Avenida Paulista");
+        assertThat(entrada.getCepInfo().getIbge()).isEqualTo("3550308");
+    }
+
+    @Test
+    void respostaLentaFalhaPorTimeout() {
+        ViaCepClient cliente = criarCliente(200, 3, 30);
+        modo = Modo.LENTO;
+
+        long inicio = System.nanoTime();
+        assertThatThrownBy(() -> cliente.consultar("01310100").get())
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(HttpTimeoutException.class);
+        long decorridoMs = (System.nanoTime() - inicio) / 1_000_000;
+
+        assertThat(decorridoMs).isLessThan(2000);
+        assertThat(cliente.getEstatisticas().get("timeouts")).isEqualTo(1L);
+    }
+
+    @Test
+    void circuitoAbreAposFalhasConsecutivas() {
+        ViaCepClient cliente = criarCliente(1000, 3, 30);
+        modo = Modo.ERRO;
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> cliente.consultar("01310100").get())
+                    .hasCauseInstanceOf(IOException.class)
+                    .hasMessageContaining("HTTP 500");
+        }
+        assertThat(cliente.getEstatisticas().get("circuito")).isEqualTo("ABERTO");
+
+        // Com o circuito aberto a consulta falha na hora, sem chegar ao servidor
+        assertThatThrownBy(() -> cliente.consultar("01310100").get())
+                .hasCauseInstanceOf(IOException.class)
+                .hasMessageContaining("circuito aberto");
+        assertThat(requisicoes.get()).isEqualTo(3);
+        assertThat(cliente.getEstatisticas().get("curtoCircuito")).isEqualTo(1L);
+    }
+
+    @Test
+    void consultaDeTesteFechaOCircuito() throws Exception {
+        ViaCepClient cliente = criarCliente(1000, 2, 0);
+        modo = Modo.ERRO;
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> cliente.consultar("01310100").get()).isInstanceOf(ExecutionException.class);
+        }
+        assertThat(cliente.getEstatisticas().get("circuito")).isEqualTo("ABERTO");
+
+        // Intervalo encerrado: a consulta de teste passa e, com sucesso, o circuito fecha
+        modo = Modo.OK;
+        assertThat(cliente.consultar("01310100").get().isNaoEncontrado()).isFalse();
+        assertThat(cliente.getEstatisticas().get("circuito")).isEqualTo("FECHADO");
+    }
+
+    @Test
+    void indisponibilidadeUsaCacheEDepoisBaseOffline() throws Exception {
+        ViaCepClient cliente = criarCliente(1000, 2, 30);
+        // TTL zero: a resposta guardada expira na hora e só serve de resposta de emergência
+        CepCache cepCache = new CepCache(100, 0, 0);
+        BaseCepOffline baseCepOffline = new BaseCepOffline(new DefaultResourceLoader(), "classpath:data/cep-faixas.csv");
+        baseCepOffline.carregar();
+        ShippingService shippingService = new ShippingService(cliente, cepCache, baseCepOffline, null, null);
+
+        assertThat(shippingService.consultarCep("01310-100").getLogradouro()).isEqualTo("Avenida Paulista");
+        TimeUnit.MILLISECONDS.sleep(5);
+
+        modo = Modo.ERRO;
+
+        // Última resposta conhecida do cache (com logradouro)
+        assertThat(shippingService.consultarCep("01310-100").getLogradouro()).isEqualTo("Avenida Paulista");
+
+        // CEP nunca consultado: UF pela base offline (sem logradouro)
+        ShippingService.CepInfo offline = shippingService.consultarCep("20040-020");
+        assertThat(offline.getUf()).isEqualTo("RJ");
+        assertThat(offline.getLogradouro()).isNull();
+
+        // Circuito já aberto pelas falhas acima: o fallback continua valendo sem chamar o servidor
+        assertThat(cliente.getEstatisticas().get("circuito")).isEqualTo("ABERTO");
+        int antes = requisicoes.get();
+        assertThat(shippingService.consultarCep("01310-100").getLogradouro()).isEqualTo("Avenida Paulista");
+        assertThat(requisicoes.get()).isEqualTo(antes);
+
+        // Fora do cache e da base offline: o erro chega ao chamador
+        assertThatThrownBy(() -> shippingService.consultarCep("00000-001")).isInstanceOf(IOException.class);
+    }
+}